@@ -0,0 +1,179 @@
+package com.example.restarter_backend.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+
+/**
+ * The backend's HTTP API as the load generator uses it. One HttpClient (and connection pool) is
+ * shared by every simulated member; each member's session travels as its own JSESSIONID cookie.
+ * Every exchange is timed and recorded under a request name such as "POST /api/loans".
+ */
+final class LibraryClient {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private final HttpClient http;
+    private final String baseUrl;
+    private final Duration timeout;
+    private final Results results;
+
+    LibraryClient(LoadConfig config, Results results) {
+        this.http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(config.timeout())
+                .followRedirects(HttpClient.Redirect.NEVER) // a redirect to the login page means the session is gone
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        this.baseUrl = config.baseUrl();
+        this.timeout = config.timeout();
+        this.results = results;
+    }
+
+    /** Status, body (parsed when JSON) and outcome of one exchange; status 0 when it failed before a response. */
+    record Reply(int status, JsonNode body, Results.Outcome outcome, List<String> cookies) {
+
+        boolean ok() {
+            return outcome == Results.Outcome.OK;
+        }
+
+        boolean sessionLost() {
+            return status == 401 || status == 403 || status == 302;
+        }
+    }
+
+    Reply login(Member member, String password) {
+        Reply reply = send("POST /api/auth/login", post("/api/auth/login",
+                Map.of("username", member.username(), "password", password), null).build());
+        member.setSessionCookie(reply.ok() ? sessionCookie(reply.cookies()) : null);
+        return reply;
+    }
+
+    Reply myLoans(Member member) {
+        return send("GET /api/loans/my-loans", get("/api/loans/my-loans", member));
+    }
+
+    Reply facets() {
+        return send("GET /api/books/facets", get("/api/books/facets", null));
+    }
+
+    Reply availablePage(int page) {
+        return send("GET /api/books/status", get("/api/books/status?status=AVAILABLE&size=20&page=" + page, null));
+    }
+
+    Reply book(long id) {
+        return send("GET /api/books/{id}", get("/api/books/" + id, null));
+    }
+
+    Reply suggest(String prefix) {
+        return send("GET /api/books/suggest", get("/api/books/suggest?limit=10&prefix=" + encode(prefix), null));
+    }
+
+    Reply search(String keyword) {
+        return send("GET /api/books/search", get("/api/books/search?keyword=" + encode(keyword), null));
+    }
+
+    // With an Idempotency-Key, like the UI, so a retried checkout cannot create a second loan
+    Reply borrow(Member member, String isbn) {
+        return send("POST /api/loans", post("/api/loans", Map.of("isbn", isbn), member)
+                .header("Idempotency-Key", UUID.randomUUID().toString())
+                .build());
+    }
+
+    Reply renew(Member member, long loanId) {
+        return send("POST /api/loans/{id}/renew", request("/api/loans/" + loanId + "/renew", member)
+                .POST(HttpRequest.BodyPublishers.noBody())
+                .build());
+    }
+
+    Reply giveBack(Member member, long loanId) {
+        return send("PUT /api/loans/{id}/return", request("/api/loans/" + loanId + "/return", member)
+                .header("Idempotency-Key", UUID.randomUUID().toString())
+                .PUT(HttpRequest.BodyPublishers.noBody())
+                .build());
+    }
+
+    private Reply send(String name, HttpRequest request) {
+        long begin = System.nanoTime();
+        int status = 0;
+        Results.Outcome outcome;
+        JsonNode body = null;
+        List<String> cookies = List.of();
+        try {
+            HttpResponse<byte[]> response = http.send(request, HttpResponse.BodyHandlers.ofByteArray());
+            status = response.statusCode();
+            outcome = classify(status);
+            cookies = response.headers().allValues("Set-Cookie");
+            if (response.body().length > 0 && response.headers().firstValue("Content-Type")
+                    .filter(type -> type.contains("json")).isPresent()) {
+                body = JSON.readTree(response.body());
+            }
+        } catch (IOException e) {
+            outcome = Results.Outcome.ERROR;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            outcome = Results.Outcome.ERROR;
+        }
+        results.recordRequest(name, (System.nanoTime() - begin) / 1_000, outcome, status);
+        return new Reply(status, body, outcome, cookies);
+    }
+
+    private HttpRequest get(String path, Member member) {
+        return request(path, member).GET().build();
+    }
+
+    private HttpRequest.Builder post(String path, Object body, Member member) {
+        try {
+            return request(path, member)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(JSON.writeValueAsBytes(body)));
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private HttpRequest.Builder request(String path, Member member) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(timeout)
+                .header("Accept", "application/json");
+        if (member != null && member.sessionCookie() != null) {
+            builder.header("Cookie", member.sessionCookie());
+        }
+        return builder;
+    }
+
+    private static Results.Outcome classify(int status) {
+        if (status >= 200 && status < 300 || status == 304) {
+            return Results.Outcome.OK;
+        }
+        // 3xx: the login redirect of an expired session
+        return status >= 300 && status < 500 ? Results.Outcome.REJECTED : Results.Outcome.ERROR;
+    }
+
+    // "JSESSIONID=ABC; Path=/; HttpOnly" -> "JSESSIONID=ABC"
+    private static String sessionCookie(List<String> setCookies) {
+        for (String cookie : setCookies) {
+            if (cookie.startsWith("JSESSIONID=")) {
+                int end = cookie.indexOf(';');
+                return end < 0 ? cookie : cookie.substring(0, end);
+            }
+        }
+        return null;
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+}
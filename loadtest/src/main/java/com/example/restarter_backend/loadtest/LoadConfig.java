@@ -0,0 +1,119 @@
+package com.example.restarter_backend.loadtest;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Command-line options, all --name=value. With the application running under the loadtest profile:
+ *
+ *   mvn -f loadtest/pom.xml compile exec:java -Dexec.args="--rate=200 --duration=2m --label=my-branch"
+ *
+ *
+ *   --base-url       application under test (http://localhost:8080)
+ *   --rate           scenario starts per second, open model: arrivals do not wait for responses (50)
+ *   --arrivals       poisson (exponential gaps) or constant (poisson)
+ *   --duration       measured part of the run, e.g. 90s, 5m (60s)
+ *   --warmup         unmeasured lead-in at the same rate (15s)
+ *   --mix            scenario weights, e.g. browse:35,search:30,borrow:12,renew:6,return:12,login:5
+ *   --users          seeded members to act as, loadtest-00001.. (1000, see app.loadtest.users)
+ *   --password       their password (loadtest)
+ *   --books          seeded titles to borrow, ISBN LT-0000001.. (5000, see app.loadtest.books)
+ *   --book-skew      Zipf exponent of title popularity, 0 for uniform (1.0)
+ *   --max-in-flight  scenarios running at once; arrivals beyond it are counted as dropped (2000)
+ *   --timeout        per request (10s)
+ *   --label          name of the run in the reports, e.g. the release or branch (run)
+ *   --out            report directory (target/reports)
+ *
+ * The user and ISBN formats must match LoadTestSeeder in the application.
+ */
+record LoadConfig(String baseUrl, double rate, boolean poisson, Duration duration, Duration warmup,
+                  Map<Scenario, Integer> mix, int users, String password, int books, double bookSkew,
+                  int maxInFlight, Duration timeout, String label, Path out) {
+
+    static final String USERNAME_FORMAT = "loadtest-%05d";
+    static final String ISBN_FORMAT = "LT-%07d";
+
+    private static final String DEFAULT_MIX = "login:5,browse:35,search:30,borrow:12,renew:6,return:12";
+
+    static LoadConfig parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value, got: " + arg);
+            }
+            int eq = arg.indexOf('=');
+            options.put(arg.substring(2, eq), arg.substring(eq + 1));
+        }
+        LoadConfig config = new LoadConfig(
+                stripTrailingSlash(options.getOrDefault("base-url", "http://localhost:8080")),
+                Double.parseDouble(options.getOrDefault("rate", "50")),
+                !"constant".equalsIgnoreCase(options.getOrDefault("arrivals", "poisson")),
+                duration(options.getOrDefault("duration", "60s")),
+                duration(options.getOrDefault("warmup", "15s")),
+                mix(options.getOrDefault("mix", DEFAULT_MIX)),
+                Integer.parseInt(options.getOrDefault("users", "1000")),
+                options.getOrDefault("password", "loadtest"),
+                Integer.parseInt(options.getOrDefault("books", "5000")),
+                Double.parseDouble(options.getOrDefault("book-skew", "1.0")),
+                Integer.parseInt(options.getOrDefault("max-in-flight", "2000")),
+                duration(options.getOrDefault("timeout", "10s")),
+                options.getOrDefault("label", "run"),
+                Path.of(options.getOrDefault("out", "target/reports")));
+        if (config.rate <= 0 || config.users < 1 || config.books < 1 || config.maxInFlight < 1) {
+            throw new IllegalArgumentException("rate, users, books and max-in-flight must be positive");
+        }
+        return config;
+    }
+
+    // 250ms, 90s, 5m, 1h, or an ISO-8601 duration (PT90S)
+    static Duration duration(String value) {
+        String v = value.trim().toLowerCase(Locale.ROOT);
+        if (v.startsWith("pt")) {
+            return Duration.parse(v.toUpperCase(Locale.ROOT));
+        }
+        if (v.endsWith("ms")) {
+            return Duration.ofMillis(Long.parseLong(v.substring(0, v.length() - 2)));
+        }
+        long amount = Long.parseLong(v.substring(0, v.length() - 1));
+        return switch (v.charAt(v.length() - 1)) {
+            case 's' -> Duration.ofSeconds(amount);
+            case 'm' -> Duration.ofMinutes(amount);
+            case 'h' -> Duration.ofHours(amount);
+            default -> throw new IllegalArgumentException("Unknown duration: " + value);
+        };
+    }
+
+    static Map<Scenario, Integer> mix(String value) {
+        Map<Scenario, Integer> mix = new EnumMap<>(Scenario.class);
+        for (String part : value.split(",")) {
+            String[] nameAndWeight = part.trim().split(":");
+            if (nameAndWeight.length != 2) {
+                throw new IllegalArgumentException("Expected scenario:weight, got: " + part);
+            }
+            int weight = Integer.parseInt(nameAndWeight[1].trim());
+            if (weight > 0) {
+                mix.put(Scenario.valueOf(nameAndWeight[0].trim().toUpperCase(Locale.ROOT)), weight);
+            }
+        }
+        if (mix.isEmpty()) {
+            throw new IllegalArgumentException("The mix has no scenario with a positive weight");
+        }
+        return mix;
+    }
+
+    String username(int member) {
+        return String.format(USERNAME_FORMAT, member);
+    }
+
+    String isbn(int book) {
+        return String.format(ISBN_FORMAT, book);
+    }
+
+    private static String stripTrailingSlash(String url) {
+        return url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+    }
+}
@@ -0,0 +1,316 @@
+package com.example.restarter_backend.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * Open-model load generator for the library backend: scenarios (see Scenario) start at a fixed
+ * average rate whether or not earlier ones have finished, each on its own virtual thread, the way
+ * independent users arrive. A slow server therefore builds up scenarios in flight instead of
+ * quietly lowering the offered load.
+ *
+ * Runs a warm-up at the same rate, then the measured period, waits for the scenarios in flight,
+ * and prints and writes the report (see Results). Exit status 1 if any measured scenario failed
+ * with a server error.
+ */
+public final class LoadGenerator {
+
+    private static final int MAX_LOANS_PER_MEMBER = 3; // LoanService's active loan limit
+    private static final int PAGE_SIZE = 20;
+
+    private final LoadConfig config;
+    private final Results results = new Results();
+    private final LibraryClient client;
+    private final ConcurrentLinkedQueue<Member> idleMembers = new ConcurrentLinkedQueue<>();
+    private final Scenario[] scenarios;
+    private final int[] cumulativeWeights;
+    private final double[] bookPopularity;
+
+    LoadGenerator(LoadConfig config) {
+        this.config = config;
+        this.client = new LibraryClient(config, results);
+        List<Member> members = new ArrayList<>(config.users());
+        for (int i = 1; i <= config.users(); i++) {
+            members.add(new Member(config.username(i)));
+        }
+        Collections.shuffle(members);
+        idleMembers.addAll(members);
+
+        scenarios = config.mix().keySet().toArray(new Scenario[0]);
+        cumulativeWeights = new int[scenarios.length];
+        int total = 0;
+        for (int i = 0; i < scenarios.length; i++) {
+            total += config.mix().get(scenarios[i]);
+            cumulativeWeights[i] = total;
+        }
+        bookPopularity = zipfCdf(config.books(), config.bookSkew());
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadConfig config = LoadConfig.parse(args);
+        System.out.printf("Load test '%s' against %s: %.1f scenarios/s (%s), %s warm-up, %s measured, mix %s%n",
+                config.label(), config.baseUrl(), config.rate(), config.poisson() ? "poisson" : "constant",
+                config.warmup(), config.duration(), config.mix());
+        LoadGenerator generator = new LoadGenerator(config);
+        boolean failed = generator.run();
+        System.exit(failed ? 1 : 0);
+    }
+
+    boolean run() throws Exception {
+        Instant startedAt = Instant.now();
+        long meanGapNanos = (long) (TimeUnit.SECONDS.toNanos(1) / config.rate());
+        long start = System.nanoTime();
+        long measureFrom = start + config.warmup().toNanos();
+        long end = measureFrom + config.duration().toNanos();
+        Semaphore inFlight = new Semaphore(config.maxInFlight());
+        Thread progress = Thread.ofPlatform().daemon().name("loadtest-progress").start(() -> reportProgress(measureFrom));
+
+        try (ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor()) {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            long next = start;
+            while (next < end) {
+                long wait = next - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+                long scheduled = next;
+                boolean measured = scheduled >= measureFrom;
+                Scenario scenario = pickScenario(random);
+                if (!inFlight.tryAcquire()) {
+                    if (measured) {
+                        results.recordDropped(scenario);
+                    }
+                } else {
+                    workers.submit(() -> {
+                        try {
+                            runScenario(scenario, scheduled, measured);
+                        } finally {
+                            inFlight.release();
+                        }
+                    });
+                }
+                next += config.poisson() ? (long) (-Math.log(1.0 - random.nextDouble()) * meanGapNanos) : meanGapNanos;
+            }
+        } // waits for the scenarios still in flight
+        progress.interrupt();
+
+        double seconds = config.duration().toMillis() / 1000.0;
+        System.out.println();
+        results.print(System.out, seconds);
+        results.write(config, startedAt, seconds);
+        System.out.println("Report written to " + config.out().toAbsolutePath().resolve(config.label() + ".json"));
+        return results.failedScenarios() > 0;
+    }
+
+    private void runScenario(Scenario scenario, long scheduled, boolean measured) {
+        Member member = null;
+        if (scenario.needsMember()) {
+            member = idleMembers.poll();
+            if (member == null) {
+                // Every seeded member is busy: more members are needed for this rate
+                if (measured) {
+                    results.recordDropped(scenario);
+                }
+                return;
+            }
+        }
+        Results.Outcome outcome;
+        Scenario ran = scenario;
+        try {
+            if (member != null && member.sessionCookie() == null && scenario != Scenario.LOGIN) {
+                Results.Outcome login = login(member);
+                if (login != Results.Outcome.OK) {
+                    record(scenario, scheduled, measured, login);
+                    return;
+                }
+            }
+            ran = effectiveScenario(scenario, member);
+            outcome = switch (ran) {
+                case LOGIN -> login(member);
+                case BROWSE -> browse();
+                case SEARCH -> search();
+                case BORROW -> borrow(member);
+                case RENEW -> renew(member);
+                case RETURN -> giveBack(member);
+            };
+        } catch (RuntimeException e) {
+            outcome = Results.Outcome.ERROR;
+        } finally {
+            if (member != null) {
+                idleMembers.add(member);
+            }
+        }
+        record(ran, scheduled, measured, outcome);
+    }
+
+    private void record(Scenario scenario, long scheduled, boolean measured, Results.Outcome outcome) {
+        if (measured) {
+            results.recordScenario(scenario, (System.nanoTime() - scheduled) / 1_000, outcome);
+        }
+    }
+
+    // Keeps members inside the loan limit and gives renewals and returns a loan to act on
+    private static Scenario effectiveScenario(Scenario scenario, Member member) {
+        if (member == null) {
+            return scenario;
+        }
+        return switch (scenario) {
+            case BORROW -> member.openLoans().size() >= MAX_LOANS_PER_MEMBER ? Scenario.RETURN : Scenario.BORROW;
+            case RENEW, RETURN -> member.openLoans().isEmpty() ? Scenario.BORROW : scenario;
+            default -> scenario;
+        };
+    }
+
+    private Results.Outcome login(Member member) {
+        LibraryClient.Reply login = client.login(member, config.password());
+        if (!login.ok()) {
+            return login.outcome();
+        }
+        LibraryClient.Reply loans = client.myLoans(member);
+        if (loans.ok() && loans.body() != null) {
+            // Loans left open by an earlier run count towards the limit too
+            member.openLoans().clear();
+            for (JsonNode loan : loans.body()) {
+                String status = loan.path("status").asText();
+                if (status.equals("ACTIVE") || status.equals("OVERDUE")) {
+                    member.openLoans().add(loan.path("id").asLong());
+                }
+            }
+        }
+        return loans.outcome();
+    }
+
+    private Results.Outcome browse() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Results.Outcome worst = client.facets().outcome();
+        LibraryClient.Reply page = client.availablePage(random.nextInt(Math.max(1, config.books() / PAGE_SIZE)));
+        worst = worse(worst, page.outcome());
+        JsonNode content = page.body() != null ? page.body().path("content") : null;
+        if (content == null || content.isEmpty()) {
+            page = client.availablePage(0); // past the last page: most titles are out
+            worst = worse(worst, page.outcome());
+            content = page.body() != null ? page.body().path("content") : null;
+        }
+        if (content != null && !content.isEmpty()) {
+            long id = content.get(random.nextInt(content.size())).path("id").asLong();
+            worst = worse(worst, client.book(id).outcome());
+        }
+        return worst;
+    }
+
+    // Types the first letters of a word, follows one of the completions and searches for it
+    private Results.Outcome search() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String typed = String.valueOf((char) ('a' + random.nextInt(26)));
+        LibraryClient.Reply suggestions = client.suggest(typed);
+        Results.Outcome worst = suggestions.outcome();
+        String target = typed;
+        if (suggestions.body() != null && !suggestions.body().isEmpty()) {
+            target = suggestions.body().get(random.nextInt(suggestions.body().size())).path("text").asText(typed);
+        }
+        for (int length = 2; length <= Math.min(4, target.length()); length++) {
+            worst = worse(worst, client.suggest(target.substring(0, length)).outcome());
+        }
+        return worse(worst, client.search(target).outcome());
+    }
+
+    private Results.Outcome borrow(Member member) {
+        LibraryClient.Reply reply = withSession(member, () -> client.borrow(member, config.isbn(pickBook())));
+        if (reply.ok() && reply.body() != null) {
+            member.openLoans().add(reply.body().path("id").asLong());
+        }
+        return reply.outcome();
+    }
+
+    private Results.Outcome renew(Member member) {
+        long loanId = member.openLoans().get(ThreadLocalRandom.current().nextInt(member.openLoans().size()));
+        return withSession(member, () -> client.renew(member, loanId)).outcome();
+    }
+
+    private Results.Outcome giveBack(Member member) {
+        int index = ThreadLocalRandom.current().nextInt(member.openLoans().size());
+        LibraryClient.Reply reply = withSession(member, () -> client.giveBack(member, member.openLoans().get(index)));
+        if (reply.ok() || reply.outcome() == Results.Outcome.REJECTED) {
+            member.openLoans().remove(index); // returned now, or no longer open (returned by a librarian, archived)
+        }
+        return reply.outcome();
+    }
+
+    // One retry after logging in again when the session has expired
+    private LibraryClient.Reply withSession(Member member, Supplier<LibraryClient.Reply> call) {
+        LibraryClient.Reply reply = call.get();
+        if (reply.sessionLost() && client.login(member, config.password()).ok()) {
+            reply = call.get();
+        }
+        return reply;
+    }
+
+    private Scenario pickScenario(ThreadLocalRandom random) {
+        int ticket = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < scenarios.length; i++) {
+            if (ticket < cumulativeWeights[i]) {
+                return scenarios[i];
+            }
+        }
+        return scenarios[scenarios.length - 1];
+    }
+
+    // 1-based title number, Zipf-distributed: title 1 is the most popular
+    private int pickBook() {
+        double u = ThreadLocalRandom.current().nextDouble();
+        int low = 0;
+        int high = bookPopularity.length - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (bookPopularity[mid] < u) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low + 1;
+    }
+
+    private static double[] zipfCdf(int books, double exponent) {
+        double[] cdf = new double[books];
+        double sum = 0;
+        for (int i = 0; i < books; i++) {
+            sum += 1.0 / Math.pow(i + 1, exponent);
+            cdf[i] = sum;
+        }
+        for (int i = 0; i < books; i++) {
+            cdf[i] /= sum;
+        }
+        return cdf;
+    }
+
+    private static Results.Outcome worse(Results.Outcome a, Results.Outcome b) {
+        return a.compareTo(b) >= 0 ? a : b;
+    }
+
+    private void reportProgress(long measureFrom) {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException e) {
+                return;
+            }
+            long now = System.nanoTime();
+            System.out.printf("%s %d scenarios measured, %d failed, %d members idle%n",
+                    now < measureFrom ? "[warm-up]" : "[measuring]", results.completedScenarios(),
+                    results.failedScenarios(), idleMembers.size());
+        }
+    }
+}
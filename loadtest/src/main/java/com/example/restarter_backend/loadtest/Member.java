@@ -0,0 +1,36 @@
+package com.example.restarter_backend.loadtest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A seeded member as the generator sees it: session cookie and the ids of its open loans.
+ * Used by one scenario at a time (members are taken from and put back into a pool), so it
+ * needs no synchronization of its own.
+ */
+final class Member {
+
+    private final String username;
+    private String sessionCookie;
+    private final List<Long> openLoans = new ArrayList<>();
+
+    Member(String username) {
+        this.username = username;
+    }
+
+    String username() {
+        return username;
+    }
+
+    String sessionCookie() {
+        return sessionCookie;
+    }
+
+    void setSessionCookie(String sessionCookie) {
+        this.sessionCookie = sessionCookie;
+    }
+
+    List<Long> openLoans() {
+        return openLoans;
+    }
+}
@@ -0,0 +1,162 @@
+package com.example.restarter_backend.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histograms (microseconds) and outcome counts, per scenario and per request type.
+ *
+ * Scenario latency is measured from the scheduled start, not from when a thread got to it,
+ * so a stalled server shows up in the percentiles instead of hiding behind fewer arrivals
+ * (no coordinated omission). Request latency is measured per HTTP exchange.
+ *
+ * Outcomes: ok (2xx, 304), rejected (other 4xx: business rules such as the loan limit or a
+ * title with no copy left), error (5xx, timeouts, connection failures).
+ */
+final class Results {
+
+    enum Outcome { OK, REJECTED, ERROR }
+
+    private static final long HIGHEST_TRACKABLE_MICROS = 3_600_000_000L;
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+    private final Map<String, Stat> scenarios = new ConcurrentHashMap<>();
+    private final Map<String, Stat> requests = new ConcurrentHashMap<>();
+
+    void recordScenario(Scenario scenario, long micros, Outcome outcome) {
+        scenarios.computeIfAbsent(scenario.name(), name -> new Stat()).record(micros, outcome, 0);
+    }
+
+    void recordRequest(String request, long micros, Outcome outcome, int status) {
+        requests.computeIfAbsent(request, name -> new Stat()).record(micros, outcome, status);
+    }
+
+    void recordDropped(Scenario scenario) {
+        scenarios.computeIfAbsent(scenario.name(), name -> new Stat()).dropped.increment();
+    }
+
+    long completedScenarios() {
+        return scenarios.values().stream().mapToLong(stat -> stat.histogram.getTotalCount()).sum();
+    }
+
+    long failedScenarios() {
+        return scenarios.values().stream().mapToLong(stat -> stat.errors.sum()).sum();
+    }
+
+    void print(PrintStream out, double seconds) {
+        out.printf("%-34s %9s %9s %8s %8s %8s %9s %9s %9s %9s %9s%n", "", "count", "per sec", "ok %",
+                "reject %", "error %", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        out.println("-- scenarios (from scheduled start) --");
+        new TreeMap<>(scenarios).forEach((name, stat) -> stat.print(out, name, seconds));
+        out.println("-- requests --");
+        new TreeMap<>(requests).forEach((name, stat) -> stat.print(out, name, seconds));
+    }
+
+    /**
+     * Writes <label>.json (summary of every scenario and request) and one HdrHistogram percentile
+     * file per scenario (<label>-<scenario>.hgrm, milliseconds), which the HdrHistogram plotter can
+     * overlay across runs.
+     */
+    void write(LoadConfig config, Instant startedAt, double seconds) throws IOException {
+        Files.createDirectories(config.out());
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("label", config.label());
+        report.put("startedAt", startedAt.toString());
+        report.put("baseUrl", config.baseUrl());
+        report.put("targetRate", config.rate());
+        report.put("arrivals", config.poisson() ? "poisson" : "constant");
+        report.put("measuredSeconds", seconds);
+        report.put("mix", config.mix());
+        report.put("users", config.users());
+        report.put("books", config.books());
+        report.put("bookSkew", config.bookSkew());
+        report.put("scenarios", summaries(scenarios, seconds));
+        report.put("requests", summaries(requests, seconds));
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT)
+                .writeValue(config.out().resolve(config.label() + ".json").toFile(), report);
+
+        for (Map.Entry<String, Stat> entry : scenarios.entrySet()) {
+            Path file = config.out().resolve(config.label() + "-" + entry.getKey().toLowerCase() + ".hgrm");
+            try (PrintStream out = new PrintStream(Files.newOutputStream(file))) {
+                entry.getValue().histogram.copy().outputPercentileDistribution(out, 1000.0);
+            }
+        }
+    }
+
+    private static Map<String, Object> summaries(Map<String, Stat> stats, double seconds) {
+        Map<String, Object> summaries = new TreeMap<>();
+        stats.forEach((name, stat) -> summaries.put(name, stat.summary(seconds)));
+        return summaries;
+    }
+
+    private static final class Stat {
+        final Histogram histogram = new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3);
+        final LongAdder ok = new LongAdder();
+        final LongAdder rejected = new LongAdder();
+        final LongAdder errors = new LongAdder();
+        final LongAdder dropped = new LongAdder();
+        final Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+
+        void record(long micros, Outcome outcome, int status) {
+            histogram.recordValue(Math.min(Math.max(micros, 0), HIGHEST_TRACKABLE_MICROS));
+            switch (outcome) {
+                case OK -> ok.increment();
+                case REJECTED -> rejected.increment();
+                case ERROR -> errors.increment();
+            }
+            if (status > 0) {
+                statuses.computeIfAbsent(status, code -> new LongAdder()).increment();
+            }
+        }
+
+        Map<String, Object> summary(double seconds) {
+            Histogram snapshot = histogram.copy();
+            long count = snapshot.getTotalCount();
+            Map<String, Object> summary = new LinkedHashMap<>();
+            summary.put("count", count);
+            summary.put("perSecond", count / seconds);
+            summary.put("ok", ok.sum());
+            summary.put("rejected", rejected.sum());
+            summary.put("errors", errors.sum());
+            summary.put("dropped", dropped.sum());
+            summary.put("errorRate", count == 0 ? 0.0 : (double) errors.sum() / count);
+            Map<String, Double> percentiles = new LinkedHashMap<>();
+            for (double percentile : PERCENTILES) {
+                percentiles.put("p" + percentile, snapshot.getValueAtPercentile(percentile) / 1000.0);
+            }
+            percentiles.put("max", snapshot.getMaxValue() / 1000.0);
+            summary.put("latencyMillis", percentiles);
+            if (!statuses.isEmpty()) {
+                Map<Integer, Long> byStatus = new TreeMap<>();
+                statuses.forEach((code, counter) -> byStatus.put(code, counter.sum()));
+                summary.put("statuses", byStatus);
+            }
+            return summary;
+        }
+
+        void print(PrintStream out, String name, double seconds) {
+            Histogram snapshot = histogram.copy();
+            long count = snapshot.getTotalCount();
+            double total = Math.max(count, 1);
+            out.printf("%-34s %9d %9.1f %8.2f %8.2f %8.2f %9.2f %9.2f %9.2f %9.2f %9.2f%s%n", name, count, count / seconds,
+                    100.0 * ok.sum() / total, 100.0 * rejected.sum() / total, 100.0 * errors.sum() / total,
+                    snapshot.getValueAtPercentile(50) / 1000.0, snapshot.getValueAtPercentile(90) / 1000.0,
+                    snapshot.getValueAtPercentile(99) / 1000.0, snapshot.getValueAtPercentile(99.9) / 1000.0,
+                    snapshot.getMaxValue() / 1000.0,
+                    dropped.sum() > 0 ? "  (" + dropped.sum() + " dropped)" : "");
+        }
+    }
+}
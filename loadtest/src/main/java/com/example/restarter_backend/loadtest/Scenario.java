@@ -0,0 +1,30 @@
+package com.example.restarter_backend.loadtest;
+
+/**
+ * One user journey, started at the configured arrival rate in proportion to its weight in the mix.
+ * Member scenarios run as one of the seeded members; BROWSE and SEARCH are anonymous.
+ */
+enum Scenario {
+    // Fresh login (BCrypt check plus a new session), then the member's loan list
+    LOGIN(true),
+    // Facets, a page of available titles, then one title's details
+    BROWSE(false),
+    // A few autocomplete keystrokes, then a full search for the chosen completion
+    SEARCH(false),
+    // Checkout of a seeded title (skewed towards popular ones); falls back to RETURN at the loan limit
+    BORROW(true),
+    // Renewal of one of the member's loans; falls back to BORROW without loans
+    RENEW(true),
+    // Return of one of the member's loans; falls back to BORROW without loans
+    RETURN(true);
+
+    private final boolean needsMember;
+
+    Scenario(boolean needsMember) {
+        this.needsMember = needsMember;
+    }
+
+    boolean needsMember() {
+        return needsMember;
+    }
+}
@@ -2,19 +2,24 @@ package com.example.restarter_backend;
 
 import io.github.cdimascio.dotenv.Dotenv;
 import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcAutoConfiguration;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcTransactionManagerAutoConfiguration;
 import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 
-@SpringBootApplication
+// The R2DBC catalog path builds its own pool (ReactiveCatalogService); Boot's R2DBC auto-configuration
+// would add a reactive transaction manager next to the JPA one. Excluded here rather than in
+// spring.autoconfigure.exclude, which the fast profile overrides
+@SpringBootApplication(exclude = {R2dbcAutoConfiguration.class, R2dbcTransactionManagerAutoConfiguration.class})
 @EnableScheduling
 public class RestarterBackendApplication {
 
     public static void main(String[] args) {
-        // Load the .env file
-        Dotenv dotenv = Dotenv.configure().load();
-        System.out.println("DB_USERNAME=" + dotenv.get("DB_USERNAME")); // Debug
-        
-        dotenv.entries().forEach(entry -> System.setProperty(entry.getKey(),
+        // Load the .env file when there is one (containers and CI pass DB_* as real env vars instead).
+        // Values are never printed - they are credentials.
+        Dotenv dotenv = Dotenv.configure().ignoreIfMissing().load();
+
+        dotenv.entries(Dotenv.Filter.DECLARED_IN_ENV_FILE).forEach(entry -> System.setProperty(entry.getKey(),
         entry.getValue()));
 
         SpringApplication.run(RestarterBackendApplication.class, args);
@@ -0,0 +1,32 @@
+package com.example.restarter_backend.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class HikariDiagnosticsConfig {
+
+    @Bean
+    public static PoolMetricsTrackerFactory poolMetricsTrackerFactory(
+            @Value("${app.datasource.diagnostics.slow-acquire-ms:100}") long slowAcquireMillis) {
+        return new PoolMetricsTrackerFactory(slowAcquireMillis);
+    }
+
+    // Installs the tracker on every Hikari pool (primary and replica) before the pool starts
+    @Bean
+    public static BeanPostProcessor hikariMetricsPostProcessor(ObjectProvider<PoolMetricsTrackerFactory> trackerFactory) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof HikariDataSource hikari && hikari.getMetricsTrackerFactory() == null) {
+                    hikari.setMetricsTrackerFactory(trackerFactory.getObject());
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.restarter_backend.config;
+
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class JacksonConfig {
+
+    // Spring Boot registers every Module bean with its ObjectMapper.
+    // Blackbird swaps reflective getter/setter calls for generated lambdas, which matters on large loan lists.
+    @Bean
+    public Module blackbirdModule() {
+        return new BlackbirdModule();
+    }
+}
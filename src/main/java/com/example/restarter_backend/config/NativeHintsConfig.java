@@ -0,0 +1,59 @@
+package com.example.restarter_backend.config;
+
+import com.example.restarter_backend.controller.UserController;
+import com.example.restarter_backend.dto.BookFacetCount;
+import com.example.restarter_backend.dto.LoanCreationRequest;
+import com.example.restarter_backend.dto.LoginRequest;
+import com.example.restarter_backend.dto.LoginResponse;
+import com.example.restarter_backend.dto.RegisterRequest;
+import com.example.restarter_backend.entity.Book;
+import com.example.restarter_backend.entity.Loan;
+import com.example.restarter_backend.entity.Role;
+import com.example.restarter_backend.entity.User;
+import com.example.restarter_backend.service.LoanService;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+
+import java.util.List;
+
+/**
+ * Reflection and resource hints for the GraalVM native image (mvn -Pnative package).
+ * On the JVM these hints are ignored.
+ */
+@Configuration
+@ImportRuntimeHints(NativeHintsConfig.Hints.class)
+public class NativeHintsConfig {
+
+    static class Hints implements RuntimeHintsRegistrar {
+
+        @Override
+        public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+            // Entities and DTOs: Hibernate and Jackson reach their fields, constructors and
+            // Lombok-generated accessors reflectively
+            for (Class<?> type : List.of(Book.class, Loan.class, User.class,
+                    LoanCreationRequest.class, LoginRequest.class, LoginResponse.class,
+                    RegisterRequest.class, BookFacetCount.class)) {
+                hints.reflection().registerType(type,
+                        MemberCategory.DECLARED_FIELDS,
+                        MemberCategory.INVOKE_DECLARED_CONSTRUCTORS,
+                        MemberCategory.INVOKE_PUBLIC_METHODS);
+            }
+            for (Class<?> type : List.of(Book.Status.class, Loan.Status.class, Role.class)) {
+                hints.reflection().registerType(type, MemberCategory.INVOKE_PUBLIC_METHODS);
+            }
+
+            // @PreAuthorize SpEL calls @loanService.isLoanOwner and @userController.isOwner reflectively
+            hints.reflection().registerType(LoanService.class, MemberCategory.INVOKE_PUBLIC_METHODS);
+            hints.reflection().registerType(UserController.class, MemberCategory.INVOKE_PUBLIC_METHODS);
+
+            // Dotenv falls back to a .env on the classpath when there is none in the working directory
+            hints.resources().registerPattern(".env");
+
+            // Second-level cache regions, read by the JCache region factory
+            hints.resources().registerPattern("ehcache.xml");
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.restarter_backend.config;
+
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hikari metrics tracker that keeps a connection-acquisition histogram per pool and
+ * warns when borrowers start queueing, so pool sizing can be tuned from data rather
+ * than defaults. Installed on every HikariDataSource by HikariDiagnosticsConfig.
+ */
+@Slf4j
+public class PoolMetricsTrackerFactory implements MetricsTrackerFactory {
+
+    // Upper bounds of the acquisition-time buckets, in microseconds; the last bucket is open-ended
+    private static final long[] BUCKET_BOUNDS_MICROS = {
+        100, 500, 1_000, 2_000, 5_000, 10_000, 25_000, 50_000, 100_000, 250_000, 500_000, 1_000_000, 5_000_000
+    };
+    private static final long WARN_INTERVAL_MILLIS = 10_000;
+
+    private final Map<String, PoolMetrics> pools = new ConcurrentHashMap<>();
+    private final long slowAcquireNanos;
+
+    public PoolMetricsTrackerFactory(long slowAcquireMillis) {
+        this.slowAcquireNanos = TimeUnit.MILLISECONDS.toNanos(slowAcquireMillis);
+    }
+
+    @Override
+    public IMetricsTracker create(String poolName, PoolStats poolStats) {
+        PoolMetrics metrics = new PoolMetrics(poolName, poolStats);
+        pools.put(poolName, metrics);
+        return metrics;
+    }
+
+    /**
+     * Acquisition histogram and counters per pool name, for the diagnostics endpoint.
+     */
+    public Map<String, Object> snapshot() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        pools.forEach((name, metrics) -> result.put(name, metrics.snapshot()));
+        return result;
+    }
+
+    private class PoolMetrics implements IMetricsTracker {
+        private final String poolName;
+        private final PoolStats poolStats;
+        private final LongAdder[] buckets = new LongAdder[BUCKET_BOUNDS_MICROS.length + 1];
+        private final LongAdder acquisitions = new LongAdder();
+        private final LongAdder totalAcquireNanos = new LongAdder();
+        private final LongAccumulator maxAcquireNanos = new LongAccumulator(Long::max, 0);
+        private final LongAdder slowAcquisitions = new LongAdder();
+        private final LongAdder timeouts = new LongAdder();
+        private final LongAccumulator maxUsageMillis = new LongAccumulator(Long::max, 0);
+        private final AtomicLong lastWarning = new AtomicLong();
+
+        PoolMetrics(String poolName, PoolStats poolStats) {
+            this.poolName = poolName;
+            this.poolStats = poolStats;
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = new LongAdder();
+            }
+        }
+
+        @Override
+        public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+            acquisitions.increment();
+            totalAcquireNanos.add(elapsedAcquiredNanos);
+            maxAcquireNanos.accumulate(elapsedAcquiredNanos);
+            buckets[bucketFor(TimeUnit.NANOSECONDS.toMicros(elapsedAcquiredNanos))].increment();
+            if (elapsedAcquiredNanos >= slowAcquireNanos) {
+                slowAcquisitions.increment();
+                warn("slow connection acquisition (" + TimeUnit.NANOSECONDS.toMillis(elapsedAcquiredNanos) + " ms)");
+            }
+        }
+
+        @Override
+        public void recordConnectionUsageMillis(long elapsedBorrowedMillis) {
+            maxUsageMillis.accumulate(elapsedBorrowedMillis);
+        }
+
+        @Override
+        public void recordConnectionTimeout() {
+            timeouts.increment();
+            warn("connection acquisition timed out");
+        }
+
+        // Rate-limited so a saturated pool doesn't flood the log
+        private void warn(String what) {
+            long now = System.currentTimeMillis();
+            long last = lastWarning.get();
+            if (now - last >= WARN_INTERVAL_MILLIS && lastWarning.compareAndSet(last, now)) {
+                log.warn("Pool '{}' saturated: {} - active={}, idle={}, waiting={}, max={}",
+                        poolName, what, poolStats.getActiveConnections(), poolStats.getIdleConnections(),
+                        poolStats.getPendingThreads(), poolStats.getMaxConnections());
+            }
+        }
+
+        Map<String, Object> snapshot() {
+            long count = acquisitions.sum();
+            Map<String, Long> histogram = new LinkedHashMap<>();
+            for (int i = 0; i < BUCKET_BOUNDS_MICROS.length; i++) {
+                histogram.put("<=" + formatMicros(BUCKET_BOUNDS_MICROS[i]), buckets[i].sum());
+            }
+            histogram.put(">" + formatMicros(BUCKET_BOUNDS_MICROS[BUCKET_BOUNDS_MICROS.length - 1]),
+                    buckets[BUCKET_BOUNDS_MICROS.length].sum());
+
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("acquisitions", count);
+            result.put("meanAcquireMillis", count == 0 ? 0.0 : totalAcquireNanos.sum() / (double) count / 1_000_000.0);
+            result.put("maxAcquireMillis", maxAcquireNanos.get() / 1_000_000.0);
+            result.put("slowAcquisitions", slowAcquisitions.sum());
+            result.put("timeouts", timeouts.sum());
+            result.put("maxUsageMillis", maxUsageMillis.get());
+            result.put("acquireHistogram", histogram);
+            return result;
+        }
+    }
+
+    private static int bucketFor(long micros) {
+        for (int i = 0; i < BUCKET_BOUNDS_MICROS.length; i++) {
+            if (micros <= BUCKET_BOUNDS_MICROS[i]) {
+                return i;
+            }
+        }
+        return BUCKET_BOUNDS_MICROS.length;
+    }
+
+    private static String formatMicros(long micros) {
+        return micros < 1_000 ? micros + "us" : (micros / 1_000) + "ms";
+    }
+}
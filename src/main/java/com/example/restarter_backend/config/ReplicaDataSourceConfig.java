@@ -0,0 +1,62 @@
+package com.example.restarter_backend.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+/**
+ * Primary/replica data sources, active only when app.datasource.replica.jdbc-url is set.
+ * Each side gets its own Hikari pool. The primary is still configured through
+ * spring.datasource.* and the replica through app.datasource.replica.*.
+ * Without a replica URL, Spring Boot's single auto-configured pool is used as before.
+ *
+ * Spring Data runs its own query methods in read-only transactions, so a bare
+ * repository read outside a service transaction also goes to the replica. Code that
+ * reads and then writes must run inside a read-write @Transactional method.
+ * spring.jpa.open-in-view is off, so each transaction gets its own connection from the
+ * routing rather than the first one a request happened to open.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "app.datasource.replica", name = "jdbc-url")
+public class ReplicaDataSourceConfig {
+
+    @Value("${app.datasource.routing.fallback-cooldown-seconds:30}")
+    private long fallbackCooldownSeconds;
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    @ConfigurationProperties("app.datasource.replica")
+    public HikariDataSource replicaDataSource() {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName("replica");
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+
+    // The lazy proxy defers the physical connection until the first statement,
+    // when the read-only flag of the surrounding transaction is already known
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primary,
+                                 @Qualifier("replicaDataSource") DataSource replica) {
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primary, replica, fallbackCooldownSeconds * 1000);
+        routing.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+}
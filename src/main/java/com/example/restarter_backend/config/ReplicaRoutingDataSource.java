@@ -0,0 +1,86 @@
+package com.example.restarter_backend.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+
+/**
+ * Routes connections for read-only transactions to the replica pool and everything
+ * else to the primary. Must sit behind a LazyConnectionDataSourceProxy, so the
+ * target is picked at the first statement, after the transaction's read-only flag is set.
+ *
+ * Reads on the replica tolerate replication lag. If the replica cannot hand out a
+ * connection, reads fall back to the primary until the cooldown has passed.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    public enum Route {
+        PRIMARY,
+        REPLICA
+    }
+
+    private final DataSource primary;
+    private final DataSource replica;
+    private final long fallbackCooldownMillis;
+
+    // While in the future, read-only traffic stays on the primary
+    private volatile long replicaDownUntil;
+
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica, long fallbackCooldownMillis) {
+        this.primary = primary;
+        this.replica = replica;
+        this.fallbackCooldownMillis = fallbackCooldownMillis;
+        setTargetDataSources(Map.of(Route.PRIMARY, primary, Route.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                && System.currentTimeMillis() >= replicaDownUntil) {
+            return Route.REPLICA;
+        }
+        return Route.PRIMARY;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (determineCurrentLookupKey() != Route.REPLICA) {
+            return primary.getConnection();
+        }
+        try {
+            return replica.getConnection();
+        } catch (SQLException ex) {
+            markReplicaDown(ex);
+            return primary.getConnection();
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        if (determineCurrentLookupKey() != Route.REPLICA) {
+            return primary.getConnection(username, password);
+        }
+        try {
+            return replica.getConnection(username, password);
+        } catch (SQLException ex) {
+            markReplicaDown(ex);
+            return primary.getConnection(username, password);
+        }
+    }
+
+    public boolean isReplicaAvailable() {
+        return System.currentTimeMillis() >= replicaDownUntil;
+    }
+
+    private void markReplicaDown(SQLException ex) {
+        replicaDownUntil = System.currentTimeMillis() + fallbackCooldownMillis;
+        log.warn("Replica connection failed ({}), routing reads to the primary for {} ms", ex.getMessage(), fallbackCooldownMillis);
+    }
+}
@@ -42,8 +42,15 @@ public class SecurityConfig {
                     "/api/auth/**",
                     "/api/books",
                     "/api/books/status",
-                    "/api/books/search"
+                    "/api/books/facets",
+                    "/api/books/trending",
+                    "/api/books/search",
+                    "/api/books/suggest"
                 ).permitAll()
+                // Single-book reads are part of the public catalog as well
+                .requestMatchers(HttpMethod.GET, "/api/books/{id}", "/api/books/{id}/related").permitAll()
+                // Streaming variant of the public catalog (app.reactive.enabled)
+                .requestMatchers(HttpMethod.GET, "/api/reactive/books", "/api/reactive/books/search", "/api/reactive/books/{id}").permitAll()
                 // All other requests require authentication
                 .anyRequest().authenticated()
             )
@@ -91,7 +98,8 @@ public class SecurityConfig {
         CorsConfiguration configuration = new CorsConfiguration();
         configuration.setAllowedOrigins(Arrays.asList("http://localhost:5173")); // Allow your frontend origin
         configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "DELETE", "OPTIONS"));
-        configuration.setAllowedHeaders(Arrays.asList("Authorization", "Content-Type", "Accept", "X-Requested-With", "remember-me"));
+        configuration.setAllowedHeaders(Arrays.asList("Authorization", "Content-Type", "Accept", "X-Requested-With", "remember-me", "Idempotency-Key"));
+        configuration.setExposedHeaders(Arrays.asList("Idempotent-Replayed")); // Set on responses replayed for a repeated Idempotency-Key
         configuration.setAllowCredentials(true);
         configuration.setMaxAge(3600L); // How long the pre-flight request can be cached
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
@@ -0,0 +1,102 @@
+package com.example.restarter_backend.controller;
+
+import com.example.restarter_backend.service.AnalyticsService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+
+// Circulation dashboards; everything here reads the daily rollup tables, never the loans table
+@RestController
+@RequestMapping("/api/analytics")
+public class AnalyticsController {
+
+    private static final int DEFAULT_RANGE_DAYS = 30;
+    private static final int MAX_RANGE_DAYS = 366;
+    private static final int MAX_LIMIT = 100;
+
+    @Autowired
+    private AnalyticsService analyticsService;
+
+    // LIBRARIAN ONLY: most borrowed titles in the date range (default: last 30 days)
+    @PreAuthorize("hasRole('LIBRARIAN')")
+    @GetMapping("/top-books")
+    public ResponseEntity<?> getTopBooks(@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                         @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                         @RequestParam(defaultValue = "10") int limit) {
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : end.minusDays(DEFAULT_RANGE_DAYS - 1);
+        String error = validateRange(start, end);
+        if (error != null) {
+            return badRequest(error);
+        }
+        return ResponseEntity.ok(analyticsService.getTopBooks(start, end, Math.min(Math.max(limit, 1), MAX_LIMIT)));
+    }
+
+    // LIBRARIAN ONLY: loans created and returned per day
+    @PreAuthorize("hasRole('LIBRARIAN')")
+    @GetMapping("/loans-per-day")
+    public ResponseEntity<?> getLoansPerDay(@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : end.minusDays(DEFAULT_RANGE_DAYS - 1);
+        String error = validateRange(start, end);
+        if (error != null) {
+            return badRequest(error);
+        }
+        return ResponseEntity.ok(analyticsService.getLoansPerDay(start, end));
+    }
+
+    // LIBRARIAN ONLY: overdue and late-return rates per category
+    @PreAuthorize("hasRole('LIBRARIAN')")
+    @GetMapping("/overdue-rate")
+    public ResponseEntity<?> getOverdueRates(@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : end.minusDays(DEFAULT_RANGE_DAYS - 1);
+        String error = validateRange(start, end);
+        if (error != null) {
+            return badRequest(error);
+        }
+        return ResponseEntity.ok(analyticsService.getOverdueRates(start, end));
+    }
+
+    // LIBRARIAN ONLY: rebuilds the rollups of past days from the loans table (backfill or repair)
+    @PreAuthorize("hasRole('LIBRARIAN')")
+    @PostMapping("/rebuild")
+    public ResponseEntity<?> rebuild(@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                     @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        String error = validateRange(from, to);
+        if (error != null) {
+            return badRequest(error);
+        }
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            analyticsService.compactDay(day);
+        }
+        return ResponseEntity.ok(Map.of("message", "Rebuilt rollups from " + from + " to " + to));
+    }
+
+    private static String validateRange(LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            return "'from' must not be after 'to'";
+        }
+        if (ChronoUnit.DAYS.between(from, to) >= MAX_RANGE_DAYS) {
+            return "Date range is limited to " + MAX_RANGE_DAYS + " days";
+        }
+        return null;
+    }
+
+    private static ResponseEntity<Map<String, String>> badRequest(String message) {
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of("message", message));
+    }
+}
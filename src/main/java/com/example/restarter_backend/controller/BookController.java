@@ -1,32 +1,75 @@
 package com.example.restarter_backend.controller;
 
+import com.example.restarter_backend.dto.BookSuggestion;
+import com.example.restarter_backend.dto.RelatedBook;
+import com.example.restarter_backend.dto.TrendingBook;
 import com.example.restarter_backend.entity.Book;
 import com.example.restarter_backend.service.BookService;
+import com.example.restarter_backend.service.CatalogVersion;
+import com.example.restarter_backend.service.RecommendationService;
+import com.example.restarter_backend.service.SuggestService;
+import com.example.restarter_backend.service.TrendingService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import java.time.Duration;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/books")
 public class BookController {
+    private static final int MAX_PAGE_SIZE = 100;
+
     @Autowired
     private BookService bookService;
 
-    // Accessible by any authenticated user (LIBRARIAN or MEMBER)
-    // SecurityConfig's .anyRequest().authenticated() already covers this if no specific roles are needed
+    @Autowired
+    private CatalogVersion catalogVersion;
+
+    @Autowired
+    private TrendingService trendingService;
+
+    @Autowired
+    private RecommendationService recommendationService;
+
+    @Autowired
+    private SuggestService suggestService;
+
+    // How long a shared cache (the local reverse proxy) may serve a catalog response before revalidating
+    @Value("${app.catalog.shared-max-age-seconds:30}")
+    private long sharedMaxAgeSeconds;
+
+    // Public catalog reads below are conditional: the ETag is checked before any repository call.
+    // The ETag is read before the query, so a concurrent write can only make it older than the body, never newer.
     @GetMapping
-    public List<Book> getAllBooks() {
-        return bookService.getAllBooks();
+    public ResponseEntity<List<Book>> getAllBooks(@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String eTag = catalogVersion.eTag();
+        if (catalogVersion.matches(ifNoneMatch, eTag)) {
+            return notModified(eTag);
+        }
+        return ResponseEntity.ok().eTag(eTag).cacheControl(catalogCacheControl()).body(bookService.getAllBooks());
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Book> getBookById(@PathVariable Long id) {
+    public ResponseEntity<Book> getBookById(@PathVariable Long id,
+                                            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String eTag = catalogVersion.eTag();
+        if (catalogVersion.matches(ifNoneMatch, eTag)) {
+            return notModified(eTag);
+        }
         Optional<Book> book = bookService.getBookById(id);
-        return book.map(ResponseEntity::ok)
+        return book.map(b -> ResponseEntity.ok().eTag(eTag).cacheControl(catalogCacheControl()).body(b))
                 .orElseGet(() -> ResponseEntity.notFound().build());
     }
 
@@ -52,21 +95,89 @@ public class BookController {
     }
 
     @GetMapping("/search")
-    public List<Book> searchBooks(@RequestParam String keyword) {
-        return bookService.searchBooks(keyword);
+    public ResponseEntity<List<Book>> searchBooks(@RequestParam String keyword,
+                                                  @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String eTag = catalogVersion.eTag();
+        if (catalogVersion.matches(ifNoneMatch, eTag)) {
+            return notModified(eTag);
+        }
+        return ResponseEntity.ok().eTag(eTag).cacheControl(catalogCacheControl()).body(bookService.searchBooks(keyword));
     }
 
-    public ResponseEntity<List<Book>> getBooksByStatus(@RequestParam String status) {
-            try {
-                // Convert the string status parameter to the Book.Status enum
-                // Using toUpperCase() to make the conversion case-insensitive (e.g., "available" -> AVAILABLE)
-                Book.Status bookStatus = Book.Status.valueOf(status.toUpperCase());
-                List<Book> books = bookService.getAvailableBooks(bookStatus); // Call the service method
-                return ResponseEntity.ok(books);
-            } catch (IllegalArgumentException e) {
-                // Handle cases where the provided 'status' string doesn't match any enum constant
-                return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-                                    .body(null); // Or return a more informative error message
-            }
+    // Public: paged status filter, optionally combined with category and publication-year range
+    @GetMapping("/status")
+    public ResponseEntity<?> getBooksByStatus(@RequestParam String status,
+                                              @RequestParam(required = false) String category,
+                                              @RequestParam(required = false) Integer fromYear,
+                                              @RequestParam(required = false) Integer toYear,
+                                              @RequestParam(defaultValue = "0") int page,
+                                              @RequestParam(defaultValue = "20") int size) {
+        try {
+            // Convert the string status parameter to the Book.Status enum
+            // Using toUpperCase() to make the conversion case-insensitive (e.g., "available" -> AVAILABLE)
+            Book.Status bookStatus = Book.Status.valueOf(status.toUpperCase());
+            PageRequest pageRequest = PageRequest.of(Math.max(page, 0), Math.min(Math.max(size, 1), MAX_PAGE_SIZE), Sort.by("id"));
+            Page<Book> books = bookService.getBooksByStatus(bookStatus, category, fromYear, toYear, pageRequest);
+
+            Map<String, Object> response = new LinkedHashMap<>();
+            response.put("content", books.getContent());
+            response.put("page", books.getNumber());
+            response.put("size", books.getSize());
+            response.put("totalElements", books.getTotalElements());
+            response.put("totalPages", books.getTotalPages());
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            // Handle cases where the provided 'status' string doesn't match any enum constant
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                                 .body(Map.of("message", "Invalid status: " + status));
         }
-    }
\ No newline at end of file
+    }
+
+    // Public: most borrowed books lately, served from memory (approximate, decayed counts)
+    @GetMapping("/trending")
+    public ResponseEntity<List<TrendingBook>> getTrendingBooks(@RequestParam(defaultValue = "10") int limit) {
+        List<TrendingBook> trending = trendingService.getTrending(Math.min(Math.max(limit, 1), trendingService.getCapacity()));
+        // The leaderboard is rebuilt every 30 seconds, so clients and proxies may reuse it as long
+        return ResponseEntity.ok().cacheControl(CacheControl.maxAge(Duration.ofSeconds(30)).cachePublic()).body(trending);
+    }
+
+    // Public: search-as-you-type completions over titles, authors and categories, served from memory
+    @GetMapping("/suggest")
+    public ResponseEntity<List<BookSuggestion>> suggest(@RequestParam String prefix,
+                                                        @RequestParam(defaultValue = "10") int limit) {
+        List<BookSuggestion> suggestions = suggestService.suggest(prefix, Math.min(Math.max(limit, 1), suggestService.getTopK()));
+        // The index is rebuilt at most once a minute, so a keystroke repeated within that is a cache hit
+        return ResponseEntity.ok().cacheControl(CacheControl.maxAge(Duration.ofSeconds(60)).cachePublic()).body(suggestions);
+    }
+
+    // Public: books often borrowed by members who borrowed this one (rebuilt nightly)
+    @GetMapping("/{id}/related")
+    public ResponseEntity<List<RelatedBook>> getRelatedBooks(@PathVariable Long id,
+                                                             @RequestParam(defaultValue = "10") int limit) {
+        List<RelatedBook> related = recommendationService.getRelated(id,
+                Math.min(Math.max(limit, 1), recommendationService.getMaxNeighbours()));
+        return ResponseEntity.ok().cacheControl(CacheControl.maxAge(Duration.ofHours(1)).cachePublic()).body(related);
+    }
+
+    // Public: counts per status and category for building the catalog filters
+    @GetMapping("/facets")
+    public Map<String, Object> getStatusFacets() {
+        return bookService.getStatusFacets();
+    }
+
+    // ---- Helper Methods ----
+    // Browsers always revalidate (max-age=0); the reverse proxy may reuse a response for a short while
+    private CacheControl catalogCacheControl() {
+        return CacheControl.maxAge(Duration.ZERO)
+                .sMaxAge(Duration.ofSeconds(sharedMaxAgeSeconds))
+                .cachePublic()
+                .mustRevalidate();
+    }
+
+    private <T> ResponseEntity<T> notModified(String eTag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .eTag(eTag)
+                .cacheControl(catalogCacheControl())
+                .build();
+    }
+}
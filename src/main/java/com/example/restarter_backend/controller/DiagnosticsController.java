@@ -0,0 +1,190 @@
+package com.example.restarter_backend.controller;
+
+import com.example.restarter_backend.config.PoolMetricsTrackerFactory;
+import com.example.restarter_backend.event.LoanEventCounters;
+import com.example.restarter_backend.event.OutboxDispatcher;
+import com.example.restarter_backend.repository.OutboxEventRepository;
+import com.example.restarter_backend.service.BookService;
+import com.example.restarter_backend.service.DueDateIndex;
+import com.example.restarter_backend.service.IdempotencyService;
+import com.example.restarter_backend.service.PartitionedJobRunner;
+import com.example.restarter_backend.service.ReactiveCatalogService;
+import com.example.restarter_backend.service.SuggestService;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/diagnostics")
+public class DiagnosticsController {
+
+    @Autowired
+    private ObjectProvider<HikariDataSource> hikariDataSources;
+
+    @Autowired
+    private PoolMetricsTrackerFactory poolMetrics;
+
+    @Autowired
+    private LoanEventCounters loanEventCounters;
+
+    @Autowired
+    private OutboxDispatcher outboxDispatcher;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private DueDateIndex dueDateIndex;
+
+    @Autowired
+    private PartitionedJobRunner partitionedJobRunner;
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private ObjectProvider<ReactiveCatalogService> reactiveCatalogService;
+
+    @Autowired
+    private SuggestService suggestService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    // LIBRARIAN ONLY: live pool state plus the acquisition-time histogram per pool
+    @PreAuthorize("hasRole('LIBRARIAN')")
+    @GetMapping("/pool")
+    public Map<String, Object> getPoolDiagnostics() {
+        Map<String, Object> pools = new LinkedHashMap<>();
+        hikariDataSources.orderedStream().forEach(dataSource -> {
+            Map<String, Object> pool = new LinkedHashMap<>();
+            pool.put("maximumPoolSize", dataSource.getMaximumPoolSize());
+            pool.put("minimumIdle", dataSource.getMinimumIdle());
+            pool.put("connectionTimeoutMillis", dataSource.getConnectionTimeout());
+            pool.put("leakDetectionThresholdMillis", dataSource.getLeakDetectionThreshold());
+            HikariPoolMXBean mxBean = dataSource.getHikariPoolMXBean();
+            if (mxBean != null) {
+                pool.put("active", mxBean.getActiveConnections());
+                pool.put("idle", mxBean.getIdleConnections());
+                pool.put("total", mxBean.getTotalConnections());
+                pool.put("waitingThreads", mxBean.getThreadsAwaitingConnection());
+            } else {
+                pool.put("started", false);
+            }
+            pools.put(dataSource.getPoolName(), pool);
+        });
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("pools", pools);
+        reactiveCatalogService.ifAvailable(service -> response.put("r2dbc", service.getPoolStats()));
+        response.put("acquisition", poolMetrics.snapshot());
+        return response;
+    }
+
+    // LIBRARIAN ONLY: delivered loan events per type, the outbox backlog and the due-date index size
+    @PreAuthorize("hasRole('LIBRARIAN')")
+    @GetMapping("/events")
+    public Map<String, Object> getEventDiagnostics() {
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("delivered", loanEventCounters.snapshot());
+        response.put("queued", outboxDispatcher.getQueueDepth());
+        response.put("undispatched", outboxEventRepository.countByDispatchedAtIsNull());
+        // Given up after max-attempts failed deliveries; lastError on the row says why
+        response.put("failed", outboxEventRepository.countByDispatchedAtIsNullAndAttemptsGreaterThanEqual(outboxDispatcher.getMaxAttempts()));
+        response.put("dueDateIndex", Map.of(
+                "loaded", dueDateIndex.isLoaded(),
+                "loans", dueDateIndex.size(),
+                "buckets", dueDateIndex.bucketCount()));
+        return response;
+    }
+
+    // LIBRARIAN ONLY: catalog reads served by a query already in flight or just finished, instead of their own
+    @PreAuthorize("hasRole('LIBRARIAN')")
+    @GetMapping("/coalescing")
+    public Map<String, Object> getCoalescingDiagnostics() {
+        return bookService.getCoalescingStats();
+    }
+
+    // LIBRARIAN ONLY: size and age of the in-memory autocomplete index
+    @PreAuthorize("hasRole('LIBRARIAN')")
+    @GetMapping("/suggest")
+    public Map<String, Object> getSuggestDiagnostics() {
+        return suggestService.getStats();
+    }
+
+    // LIBRARIAN ONLY: Hibernate second-level cache per region (ehcache.xml), plus natural-id and query cache totals.
+    // Counts are since startup; entries in memory is -1 where the provider does not report it
+    @PreAuthorize("hasRole('LIBRARIAN')")
+    @GetMapping("/cache")
+    public Map<String, Object> getCacheDiagnostics() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        Map<String, Object> regions = new LinkedHashMap<>();
+        for (String name : statistics.getSecondLevelCacheRegionNames()) {
+            CacheRegionStatistics region = statistics.getCacheRegionStatistics(name);
+            if (region != null) {
+                regions.put(name, regionStats(region));
+            }
+        }
+        CacheRegionStatistics queryResults = statistics.getQueryRegionStatistics("default-query-results-region");
+        if (queryResults != null) {
+            regions.put(queryResults.getRegionName(), regionStats(queryResults));
+        }
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("statisticsEnabled", statistics.isStatisticsEnabled());
+        response.put("regions", regions);
+        response.put("naturalId", Map.of(
+                "hits", statistics.getNaturalIdCacheHitCount(),
+                "misses", statistics.getNaturalIdCacheMissCount(),
+                "puts", statistics.getNaturalIdCachePutCount()));
+        response.put("query", Map.of(
+                "hits", statistics.getQueryCacheHitCount(),
+                "misses", statistics.getQueryCacheMissCount(),
+                "puts", statistics.getQueryCachePutCount()));
+        return response;
+    }
+
+    private static Map<String, Object> regionStats(CacheRegionStatistics region) {
+        long hits = region.getHitCount();
+        long lookups = hits + region.getMissCount();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("hits", hits);
+        stats.put("misses", region.getMissCount());
+        stats.put("puts", region.getPutCount());
+        stats.put("hitRatio", lookups == 0 ? 0.0 : (double) hits / lookups);
+        stats.put("entriesInMemory", region.getElementCountInMemory());
+        return stats;
+    }
+
+    // LIBRARIAN ONLY: Idempotency-Key replays on the loan endpoints (requests answered without running them)
+    @PreAuthorize("hasRole('LIBRARIAN')")
+    @GetMapping("/idempotency")
+    public Map<String, Object> getIdempotencyDiagnostics() {
+        return idempotencyService.getStats();
+    }
+
+    // LIBRARIAN ONLY: last run of each partitioned job with per-partition timings and failures
+    @PreAuthorize("hasRole('LIBRARIAN')")
+    @GetMapping("/jobs")
+    public Map<String, Object> getJobDiagnostics() {
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("parallelism", partitionedJobRunner.getParallelism());
+        response.put("lastRuns", partitionedJobRunner.getLastReports());
+        return response;
+    }
+}
@@ -1,9 +1,13 @@
 package com.example.restarter_backend.controller;
 
 import com.example.restarter_backend.dto.LoanCreationRequest;
+import com.example.restarter_backend.dto.Views;
+import com.fasterxml.jackson.annotation.JsonView;
 import org.springframework.http.HttpStatus;
 import com.example.restarter_backend.entity.Loan;
+import com.example.restarter_backend.entity.LoanRecord;
 import com.example.restarter_backend.exception.LoanLimitExceededException;
+import com.example.restarter_backend.service.IdempotencyService;
 import com.example.restarter_backend.service.LoanService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
@@ -22,35 +26,47 @@ public class LoanController {
     @Autowired
     private LoanService loanService;
 
+    @Autowired
+    private IdempotencyService idempotencyService;
+
     // --- GET Endpoints ---
     // LIBRARIAN ONLY: Get all loans in the system
     @PreAuthorize("hasRole('LIBRARIAN')")
     @GetMapping("/all")
-    public List<Loan> getAllLoans() {
+    @JsonView(Views.Summary.class) // Slim view: full Book/User graphs are not needed in a list
+    public List<LoanRecord> getAllLoans() {
         return loanService.getAllLoans();
     }
     
     // AUTHENTICATED USER: Get loans for current user
     @PreAuthorize("hasRole('MEMBER') or hasRole('LIBRARIAN')")
     @GetMapping("/my-loans")
-    public List<Loan> getMyLoans(Authentication authentication) {
+    @JsonView(Views.Summary.class)
+    public List<LoanRecord> getMyLoans(Authentication authentication) {
         // Get current user's loans
         return loanService.getLoansByUsername(authentication.getName());
     }
 
     // --- POST Endpoints ---
     // AUTHENTICATED USER: Create a new loan
+    // Retries with the same Idempotency-Key header get the first response back instead of a second loan
     @PostMapping
     @PreAuthorize("hasRole('MEMBER') or hasRole('LIBRARIAN')")
-    public ResponseEntity<?> createLoan(@RequestBody LoanCreationRequest loanRequest, Authentication authentication) {
+    public ResponseEntity<?> createLoan(@RequestBody LoanCreationRequest loanRequest,
+                                        @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+                                        Authentication authentication) {
+        // Security: ensure non-librarians can only borrow for themselves
+        if (!authentication.getAuthorities().stream()
+                .anyMatch(auth -> auth.getAuthority().equals("ROLE_LIBRARIAN"))) {
+            // Get the authenticated user's details and set it on the loan
+            loanRequest.setUsername(authentication.getName());
+        }
+        return idempotencyService.execute(idempotencyKey, authentication.getName(), "POST", "/api/loans", loanRequest,
+                () -> doCreateLoan(loanRequest));
+    }
+
+    private ResponseEntity<?> doCreateLoan(LoanCreationRequest loanRequest) {
         try {
-            // Security: ensure non-librarians can only borrow for themselves
-            if (!authentication.getAuthorities().stream()
-                    .anyMatch(auth -> auth.getAuthority().equals("ROLE_LIBRARIAN"))) {
-                // Get the authenticated user's details and set it on the loan
-                loanRequest.setUsername(authentication.getName());
-            }
-            
             Loan createdLoan = loanService.createLoan(loanRequest);
             return ResponseEntity.status(HttpStatus.CREATED).body(createdLoan); // Return 201 Created for successful creation
         } catch (LoanLimitExceededException ex) {
@@ -78,9 +94,17 @@ public class LoanController {
     }
 
     // AUTHENTICATED USER: Return a loan
+    // With an Idempotency-Key header a retried return replays the first result instead of failing with 400
     @PutMapping("/{id}/return") // Using PUT for updating the loan status
     @PreAuthorize("hasRole('LIBRARIAN') or @loanService.isLoanOwner(#id, authentication.name)")
-    public ResponseEntity<Loan> returnLoan(@PathVariable Long id, Authentication authentication) {
+    public ResponseEntity<?> returnLoan(@PathVariable Long id,
+                                        @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+                                        Authentication authentication) {
+        return idempotencyService.execute(idempotencyKey, authentication.getName(), "PUT", "/api/loans/" + id + "/return", null,
+                () -> doReturnLoan(id));
+    }
+
+    private ResponseEntity<?> doReturnLoan(Long id) {
         try {
             // The service method should handle finding the loan,
             // checking its status (e.g., must be 'ACTIVE'),
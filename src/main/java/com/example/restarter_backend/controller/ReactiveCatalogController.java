@@ -0,0 +1,76 @@
+package com.example.restarter_backend.controller;
+
+import com.example.restarter_backend.entity.Book;
+import com.example.restarter_backend.service.CatalogVersion;
+import com.example.restarter_backend.service.ReactiveCatalogService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+/**
+ * Public catalog reads over R2DBC (app.reactive.enabled=true). Lists are streamed as
+ * newline-delimited JSON, one book per line, written as rows arrive; Spring MVC requests the
+ * next row only after the previous one has been written, so a slow client slows the query
+ * down instead of filling memory. The request thread is released while the query runs.
+ * ETags are the same as on /api/books.
+ */
+@RestController
+@RequestMapping("/api/reactive/books")
+@ConditionalOnProperty(name = "app.reactive.enabled", havingValue = "true")
+public class ReactiveCatalogController {
+
+    @Autowired
+    private ReactiveCatalogService reactiveCatalogService;
+
+    @Autowired
+    private CatalogVersion catalogVersion;
+
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<Flux<Book>> streamBooks(@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String eTag = catalogVersion.eTag();
+        if (catalogVersion.matches(ifNoneMatch, eTag)) {
+            return notModified(eTag);
+        }
+        return ResponseEntity.ok().eTag(eTag).cacheControl(revalidate()).body(reactiveCatalogService.streamAll());
+    }
+
+    @GetMapping(value = "/search", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<Flux<Book>> searchBooks(@RequestParam String keyword,
+                                                  @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String eTag = catalogVersion.eTag();
+        if (catalogVersion.matches(ifNoneMatch, eTag)) {
+            return notModified(eTag);
+        }
+        return ResponseEntity.ok().eTag(eTag).cacheControl(revalidate()).body(reactiveCatalogService.search(keyword));
+    }
+
+    @GetMapping("/{id}")
+    public Mono<ResponseEntity<Book>> getBookById(@PathVariable long id,
+                                                  @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String eTag = catalogVersion.eTag();
+        if (catalogVersion.matches(ifNoneMatch, eTag)) {
+            return Mono.just(notModified(eTag));
+        }
+        return reactiveCatalogService.findById(id)
+                .map(book -> ResponseEntity.ok().eTag(eTag).cacheControl(revalidate()).body(book))
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    // No shared max-age here: these responses are not meant to be cached by the reverse proxy
+    private static CacheControl revalidate() {
+        return CacheControl.maxAge(Duration.ZERO).cachePublic().mustRevalidate();
+    }
+
+    private static <T> ResponseEntity<T> notModified(String eTag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).cacheControl(revalidate()).build();
+    }
+}
@@ -4,6 +4,7 @@ import com.example.restarter_backend.entity.User;
 import com.example.restarter_backend.service.UserService;
 import com.example.restarter_backend.dto.RegisterRequest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
@@ -13,6 +14,7 @@ import jakarta.servlet.http.HttpSession;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.HttpStatus;
 
+import java.time.LocalDate;
 import java.util.List;
 
 @RestController
@@ -23,7 +25,8 @@ public class UserController {
     private UserService userService;
 
     // ---- Helper Method ----
-    private boolean isOwner(Long id, Authentication auth) {
+    // Public so the @PreAuthorize expressions below (SpEL on @userController) can call it
+    public boolean isOwner(Long id, Authentication auth) {
         return userService.isUserOwner(id, auth.getName());
     }
 
@@ -48,6 +51,15 @@ public class UserController {
         userService.deleteUser(id);
     }
 
+    // Renews a membership (one year from its current end, or from today if it has ended) or sets
+    // the given end date; lifts an expiry suspension. Members cannot renew through PUT /{id}
+    @PreAuthorize("hasRole('LIBRARIAN')")
+    @PutMapping("/{id}/membership")
+    public User renewMembership(@PathVariable Long id,
+                                @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate until) {
+        return userService.renewMembership(id, until);
+    }
+
     @PreAuthorize("hasRole('LIBRARIAN')")
     @GetMapping("/search")
     public List<User> searchUsersByUsername(@RequestParam String username) {
@@ -56,14 +68,14 @@ public class UserController {
 
     // ==== Shared Endpoints (Librarian or Owner) ====
     @GetMapping("/{id}")
-    @PreAuthorize("hasRole('LIBRARIAN') or @userController.isOwner(#id, principal)")
+    @PreAuthorize("hasRole('LIBRARIAN') or @userController.isOwner(#id, authentication)")
     public User getUserById(@PathVariable Long id) {
         return userService.getUserById(id)
                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found"));
     }
 
     @PutMapping("/{id}")
-    @PreAuthorize("hasRole('LIBRARIAN') or @userController.isOwner(#id, principal)")
+    @PreAuthorize("hasRole('LIBRARIAN') or @userController.isOwner(#id, authentication)")
     public User updateUser(@PathVariable Long id, @RequestBody User userDetails) {
         return userService.updateUser(id, userDetails);
     }
@@ -0,0 +1,26 @@
+package com.example.restarter_backend.dto;
+
+public class BookCopyCount {
+    private Long bookId;
+    private Long available;
+    private Long total;
+
+    // Used by the JPQL constructor expression in BookCopyRepository (book status reconciliation)
+    public BookCopyCount(Long bookId, Long available, Long total) {
+        this.bookId = bookId;
+        this.available = available;
+        this.total = total;
+    }
+
+    public Long getBookId() {
+        return bookId;
+    }
+
+    public Long getAvailable() {
+        return available;
+    }
+
+    public Long getTotal() {
+        return total;
+    }
+}
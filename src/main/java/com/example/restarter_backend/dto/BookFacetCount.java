@@ -0,0 +1,28 @@
+package com.example.restarter_backend.dto;
+
+import com.example.restarter_backend.entity.Book;
+
+public class BookFacetCount {
+    private Book.Status status;
+    private String category;
+    private Long count;
+
+    // Used by the JPQL constructor expression in BookRepository
+    public BookFacetCount(Book.Status status, String category, Long count) {
+        this.status = status;
+        this.category = category;
+        this.count = count;
+    }
+
+    public Book.Status getStatus() {
+        return status;
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    public Long getCount() {
+        return count;
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.restarter_backend.dto;
+
+public class BookLoanCount {
+    private Long bookId;
+    private String title;
+    private String author;
+    private Long loans;
+
+    // Used by the JPQL constructor expression in DailyBookLoanStatRepository
+    public BookLoanCount(Long bookId, String title, String author, Long loans) {
+        this.bookId = bookId;
+        this.title = title;
+        this.author = author;
+        this.loans = loans;
+    }
+
+    public Long getBookId() {
+        return bookId;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getAuthor() {
+        return author;
+    }
+
+    public Long getLoans() {
+        return loans;
+    }
+}
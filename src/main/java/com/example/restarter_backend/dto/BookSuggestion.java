@@ -0,0 +1,32 @@
+package com.example.restarter_backend.dto;
+
+public class BookSuggestion {
+
+    public enum Type {
+        TITLE, AUTHOR, CATEGORY
+    }
+
+    private String text;
+    private Type type;
+    private Long bookId;
+
+    public BookSuggestion(String text, Type type, Long bookId) {
+        this.text = text;
+        this.type = type;
+        this.bookId = bookId;
+    }
+
+    // As catalogued (original case and accents)
+    public String getText() {
+        return text;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    // Set for TITLE suggestions only
+    public Long getBookId() {
+        return bookId;
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.restarter_backend.dto;
+
+public class CategoryOverdueRate {
+    private String category;
+    private Long created;
+    private Long returned;
+    private Long returnedLate;
+    private Long becameOverdue;
+
+    // Used by the JPQL constructor expression in DailyCategoryStatRepository
+    public CategoryOverdueRate(String category, Long created, Long returned, Long returnedLate, Long becameOverdue) {
+        this.category = category;
+        this.created = created;
+        this.returned = returned;
+        this.returnedLate = returnedLate;
+        this.becameOverdue = becameOverdue;
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    public Long getCreated() {
+        return created;
+    }
+
+    public Long getReturned() {
+        return returned;
+    }
+
+    public Long getReturnedLate() {
+        return returnedLate;
+    }
+
+    public Long getBecameOverdue() {
+        return becameOverdue;
+    }
+
+    // Loans that went overdue per loan lent in the period
+    public double getOverdueRate() {
+        return created == null || created == 0 ? 0.0 : (double) becameOverdue / created;
+    }
+
+    // Returns made after the due date per return in the period
+    public double getLateReturnRate() {
+        return returned == null || returned == 0 ? 0.0 : (double) returnedLate / returned;
+    }
+}
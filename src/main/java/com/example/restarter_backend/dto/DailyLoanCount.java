@@ -0,0 +1,28 @@
+package com.example.restarter_backend.dto;
+
+import java.time.LocalDate;
+
+public class DailyLoanCount {
+    private LocalDate date;
+    private Long created;
+    private Long returned;
+
+    // Used by the JPQL constructor expression in DailyCategoryStatRepository
+    public DailyLoanCount(LocalDate date, Long created, Long returned) {
+        this.date = date;
+        this.created = created;
+        this.returned = returned;
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public Long getCreated() {
+        return created;
+    }
+
+    public Long getReturned() {
+        return returned;
+    }
+}
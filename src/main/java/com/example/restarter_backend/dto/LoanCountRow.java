@@ -0,0 +1,26 @@
+package com.example.restarter_backend.dto;
+
+public class LoanCountRow {
+    private Long bookId;
+    private String category;
+    private Long count;
+
+    // Used by the JPQL constructor expressions in LoanRepository (analytics compaction)
+    public LoanCountRow(Long bookId, String category, Long count) {
+        this.bookId = bookId;
+        this.category = category;
+        this.count = count;
+    }
+
+    public Long getBookId() {
+        return bookId;
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    public Long getCount() {
+        return count;
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.restarter_backend.dto;
+
+public class RelatedBook {
+    private Long bookId;
+    private String title;
+    private String author;
+    private Float score;
+
+    public RelatedBook(Long bookId, String title, String author, Float score) {
+        this.bookId = bookId;
+        this.title = title;
+        this.author = author;
+        this.score = score;
+    }
+
+    public Long getBookId() {
+        return bookId;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getAuthor() {
+        return author;
+    }
+
+    // Cosine similarity of the two books' borrower sets, 0..1
+    public Float getScore() {
+        return score;
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.restarter_backend.dto;
+
+public class TrendingBook {
+    private Long bookId;
+    private String title;
+    private String author;
+    private Long score;
+
+    public TrendingBook(Long bookId, String title, String author, Long score) {
+        this.bookId = bookId;
+        this.title = title;
+        this.author = author;
+        this.score = score;
+    }
+
+    public Long getBookId() {
+        return bookId;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getAuthor() {
+        return author;
+    }
+
+    // Decayed, approximate loan count: only the order is meaningful
+    public Long getScore() {
+        return score;
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.restarter_backend.dto;
+
+public class UserBookPair {
+    private final Long userId;
+    private final Long bookId;
+
+    // Used by the JPQL constructor expression in LoanRepository (co-borrowing batch)
+    public UserBookPair(Long userId, Long bookId) {
+        this.userId = userId;
+        this.bookId = bookId;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public Long getBookId() {
+        return bookId;
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.restarter_backend.dto;
+
+/**
+ * Jackson views used with @JsonView on controller methods.
+ * Properties without a view are left out when a view is active.
+ */
+public class Views {
+
+    // Slim representation for list endpoints (e.g. loans embed only the key book and user fields)
+    public interface Summary {}
+}
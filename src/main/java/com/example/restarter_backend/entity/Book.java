@@ -1,27 +1,50 @@
 package com.example.restarter_backend.entity;
 
+import com.example.restarter_backend.dto.Views;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonView;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 
 @Entity
+@Table(indexes = {
+    // Serves the /api/books/status filter (status + category + year range) and the facet counts
+    @Index(name = "idx_book_status_category_year", columnList = "status, category, publicationYear")
+})
+// Lazy references to books are initialized up to 50 per select; a proxy's own fields are not serialized
+@BatchSize(size = 50)
+// Second-level cached, as is the isbn -> id mapping (see ehcache.xml); NaturalIdLookup reads through both
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "book")
+@NaturalIdCache(region = "book-isbn")
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 @Getter
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
 public class Book {
     @Id
+    @JsonView(Views.Summary.class)
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    @NaturalId(mutable = true) // BookService.updateBook can change it
+    @JsonView(Views.Summary.class)
     @Column(nullable = false, unique = true)
     private String isbn;
 
+    @JsonView(Views.Summary.class)
     @Column(nullable = false)
     private String title;
 
+    @JsonView(Views.Summary.class)
     @Column(nullable = false)
     private String author;
 
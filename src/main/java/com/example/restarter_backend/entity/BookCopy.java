@@ -0,0 +1,58 @@
+package com.example.restarter_backend.entity;
+
+import com.example.restarter_backend.dto.Views;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonView;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.BatchSize;
+
+/**
+ * One physical item of a title, identified by its barcode. Loans reference the copy they
+ * lent out; Book.copiesAvailable counts the AVAILABLE copies and is kept in step by LoanService.
+ */
+@Entity
+@Table(name = "book_copy", indexes = {
+    // Free-copy allocation: first AVAILABLE copy of a title
+    @Index(name = "idx_book_copy_book_status", columnList = "book_id, status")
+})
+@BatchSize(size = 50) // See Book
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
+@Getter
+@Setter
+@NoArgsConstructor
+public class BookCopy {
+    @Id
+    @JsonView(Views.Summary.class)
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @JsonIgnore // Already serialized as Loan.book
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "book_id", nullable = false)
+    private Book book;
+
+    @JsonView(Views.Summary.class)
+    @Column(nullable = false, unique = true, length = 64)
+    private String barcode;
+
+    @JsonView(Views.Summary.class)
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private Status status;
+
+    public enum Status {
+        AVAILABLE,
+        ON_LOAN,
+        WITHDRAWN
+    }
+
+    public BookCopy(Book book, String barcode, Status status) {
+        this.book = book;
+        this.barcode = barcode;
+        this.status = status;
+    }
+}
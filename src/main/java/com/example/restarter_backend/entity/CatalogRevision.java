@@ -0,0 +1,21 @@
+package com.example.restarter_backend.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * The single row (id 1) holding the shared catalog version; see CatalogVersion. Written and
+ * read with plain SQL, mapped here so the schema creates the table.
+ */
+@Entity
+@Table(name = "catalog_version")
+@Getter
+@NoArgsConstructor
+public class CatalogRevision {
+    @Id
+    private Long id;
+
+    @Column(nullable = false)
+    private long version;
+}
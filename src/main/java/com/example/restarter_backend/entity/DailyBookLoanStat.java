@@ -0,0 +1,41 @@
+package com.example.restarter_backend.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDate;
+
+/**
+ * Loans created and returned per book per day. Incremented from loan events,
+ * rewritten from the loans table by the nightly compaction (AnalyticsService).
+ */
+@Entity
+@Table(name = "daily_book_loan_stat", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_daily_book_loan_stat", columnNames = {"statDate", "bookId"})
+})
+@Getter
+@Setter
+@NoArgsConstructor
+public class DailyBookLoanStat {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private LocalDate statDate;
+
+    @Column(nullable = false)
+    private Long bookId;
+
+    private int loansCreated;
+    private int loansReturned;
+
+    public DailyBookLoanStat(LocalDate statDate, Long bookId, int loansCreated, int loansReturned) {
+        this.statDate = statDate;
+        this.bookId = bookId;
+        this.loansCreated = loansCreated;
+        this.loansReturned = loansReturned;
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.restarter_backend.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.ColumnDefault;
+
+import java.time.LocalDate;
+
+/**
+ * Circulation per book category per day. becameOverdue only comes from events (the loans
+ * table does not record when a loan went overdue), so compaction keeps it as is.
+ */
+@Entity
+@Table(name = "daily_category_stat", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_daily_category_stat", columnNames = {"statDate", "category"})
+})
+@Getter
+@Setter
+@NoArgsConstructor
+public class DailyCategoryStat {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private LocalDate statDate;
+
+    @Column(nullable = false)
+    private String category;
+
+    private int loansCreated;
+    private int loansReturned;
+    private int returnedLate;
+    private int becameOverdue;
+
+    // Set by compaction: the day's created and returned counts now come from the loans table,
+    // so events for that day only add to becameOverdue
+    @ColumnDefault("false")
+    @Column(nullable = false)
+    private boolean compacted;
+
+    public DailyCategoryStat(LocalDate statDate, String category) {
+        this.statDate = statDate;
+        this.category = category;
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.restarter_backend.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Outcome of a request sent with an Idempotency-Key header, shared by all nodes.
+ * The id is a SHA-256 of user, method, path and key; requestHash guards against the same
+ * key being reused for a different body. See IdempotencyService.
+ */
+@Entity
+@Table(name = "idempotency_record", indexes = {
+    // Hourly purge of expired records
+    @Index(name = "idx_idempotency_record_expires", columnList = "expiresAt")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+public class IdempotencyRecord {
+    @Id
+    @Column(length = 64)
+    private String id;
+
+    @Column(nullable = false, length = 64)
+    private String requestHash;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private Status status;
+
+    private Integer responseStatus;
+
+    @Lob
+    private String responseBody;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    // While IN_PROGRESS: when another node may take the key over (the first one crashed)
+    @Column(nullable = false)
+    private LocalDateTime expiresAt;
+
+    public enum Status {
+        IN_PROGRESS,
+        COMPLETED
+    }
+}
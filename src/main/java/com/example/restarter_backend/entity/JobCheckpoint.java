@@ -0,0 +1,63 @@
+package com.example.restarter_backend.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Progress of one partition of a partitioned job run. A rerun with the same run key
+ * skips partitions already DONE, so a failed or interrupted run resumes where it stopped.
+ */
+@Entity
+@Table(name = "job_checkpoint", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_job_checkpoint", columnNames = {"jobName", "runKey", "partitionNo"})
+})
+@Getter
+@Setter
+@NoArgsConstructor
+public class JobCheckpoint {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 64)
+    private String jobName;
+
+    @Column(nullable = false, length = 64)
+    private String runKey;
+
+    @Column(nullable = false)
+    private Integer partitionNo;
+
+    private Long fromId;
+    private Long toId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private Status status;
+
+    private Integer rowsProcessed;
+    private Long elapsedMillis;
+
+    @Column(length = 500)
+    private String error;
+
+    private LocalDateTime updatedAt;
+
+    public enum Status {
+        RUNNING,
+        DONE,
+        FAILED
+    }
+
+    public JobCheckpoint(String jobName, String runKey, Integer partitionNo, Long fromId, Long toId) {
+        this.jobName = jobName;
+        this.runKey = runKey;
+        this.partitionNo = partitionNo;
+        this.fromId = fromId;
+        this.toId = toId;
+    }
+}
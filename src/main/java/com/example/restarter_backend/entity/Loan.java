@@ -1,39 +1,64 @@
 package com.example.restarter_backend.entity;
 
+import com.example.restarter_backend.dto.Views;
+import com.fasterxml.jackson.annotation.JsonView;
 import jakarta.persistence.*;
 import lombok.*;
 import java.time.LocalDate;// or LocalDateTime
 
 @Entity
+@Table(indexes = {
+    // Range scans on due date per status: reminders, overdue sweep
+    @Index(name = "idx_loan_status_due", columnList = "status, dueDate"),
+    // Per-day rebuild of the analytics rollups
+    @Index(name = "idx_loan_loan_date", columnList = "loanDate"),
+    @Index(name = "idx_loan_return_date", columnList = "returnDate")
+})
 @Getter
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
 public class Loan {
     @Id
+    @JsonView(Views.Summary.class)
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @ManyToOne
+    // Associations are lazy: paths that serialize them load them with an entity graph
+    // (LoanRepository.findWithDetailsById), everything else only needs their ids
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JsonView(Views.Summary.class)
     @JoinColumn(name = "book_id", nullable = false)
     private Book book;
     
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JsonView(Views.Summary.class)
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
+
+    // The item lent out; null for loans made before copies were tracked
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JsonView(Views.Summary.class)
+    @JoinColumn(name = "copy_id")
+    private BookCopy copy;
     
+    @JsonView(Views.Summary.class)
     @Column(name = "loan_date")
     private LocalDate loanDate;
     // getter and setter
     public LocalDate getLoanDate() { return loanDate; }
     public void setLoanDate(LocalDate loanDate) { this.loanDate = loanDate; }
 
+    @JsonView(Views.Summary.class)
     private LocalDate dueDate;
+    @JsonView(Views.Summary.class)
     private LocalDate returnDate;
 
+    @JsonView(Views.Summary.class)
     @Enumerated(EnumType.STRING)
     private Status status;
 
+    @JsonView(Views.Summary.class)
     private int renewalCount; // Number of times this loan has been renewed
 
     public enum Status {
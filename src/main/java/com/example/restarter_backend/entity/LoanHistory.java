@@ -0,0 +1,54 @@
+package com.example.restarter_backend.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDate;
+
+/**
+ * Cold storage for returned loans, moved out of the loan table by LoanArchivalService.
+ * Rows keep their original loan id. In MySQL the table is partitioned by month of
+ * returnDate (db/mysql/loan_history.sql); partitioned InnoDB tables cannot have foreign keys,
+ * so deleting a book or user with archived loans is refused in the services instead.
+ * Reads go through LoanRecord, the union of both tables.
+ */
+@Entity
+@Table(name = "loan_history", indexes = {
+    @Index(name = "idx_loan_history_user", columnList = "user_id"),
+    @Index(name = "idx_loan_history_book", columnList = "book_id"),
+    @Index(name = "idx_loan_history_return_date", columnList = "returnDate")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+public class LoanHistory {
+    @Id
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "book_id", nullable = false, foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
+    private Book book;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false, foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
+    private User user;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "copy_id", foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
+    private BookCopy copy;
+
+    @Column(name = "loan_date")
+    private LocalDate loanDate;
+
+    private LocalDate dueDate;
+
+    @Column(nullable = false)
+    private LocalDate returnDate;
+
+    @Enumerated(EnumType.STRING)
+    private Loan.Status status;
+
+    private int renewalCount;
+}
@@ -0,0 +1,68 @@
+package com.example.restarter_backend.entity;
+
+import com.example.restarter_backend.dto.Views;
+import com.fasterxml.jackson.annotation.JsonView;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+import org.hibernate.annotations.Subselect;
+import org.hibernate.annotations.Synchronize;
+
+import java.time.LocalDate;
+
+/**
+ * Read-only view over current and archived loans (loan UNION ALL loan_history), for
+ * queries that need the whole history. Everything that changes loans uses Loan.
+ * MySQL 8.0.29+ pushes WHERE conditions into both branches, so filters still use each table's indexes.
+ */
+@Entity
+@Immutable
+@Subselect("SELECT id, book_id, copy_id, user_id, loan_date, due_date, return_date, status, renewal_count, FALSE AS archived FROM loan " +
+           "UNION ALL " +
+           "SELECT id, book_id, copy_id, user_id, loan_date, due_date, return_date, status, renewal_count, TRUE AS archived FROM loan_history")
+@Synchronize({"loan", "loan_history"})
+@Getter
+@NoArgsConstructor
+public class LoanRecord {
+    @Id
+    @JsonView(Views.Summary.class)
+    private Long id;
+
+    // Lazy; the listing queries in LoanRecordRepository fetch all three with an entity graph
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JsonView(Views.Summary.class)
+    @JoinColumn(name = "book_id")
+    private Book book;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JsonView(Views.Summary.class)
+    @JoinColumn(name = "user_id")
+    private User user;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JsonView(Views.Summary.class)
+    @JoinColumn(name = "copy_id")
+    private BookCopy copy;
+
+    @JsonView(Views.Summary.class)
+    @Column(name = "loan_date")
+    private LocalDate loanDate;
+
+    @JsonView(Views.Summary.class)
+    private LocalDate dueDate;
+
+    @JsonView(Views.Summary.class)
+    private LocalDate returnDate;
+
+    @JsonView(Views.Summary.class)
+    @Enumerated(EnumType.STRING)
+    private Loan.Status status;
+
+    @JsonView(Views.Summary.class)
+    private int renewalCount;
+
+    // True once the loan has been moved to loan_history
+    @JsonView(Views.Summary.class)
+    private boolean archived;
+}
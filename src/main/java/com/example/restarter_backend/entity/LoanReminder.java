@@ -0,0 +1,50 @@
+package com.example.restarter_backend.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * One row per reminder sent, so a rerun of the reminder job never notifies twice
+ * for the same loan, kind and due date. A renewal moves the due date, so it gets new reminders.
+ */
+@Entity
+@Table(name = "loan_reminder", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_loan_reminder", columnNames = {"loanId", "kind", "dueDate"})
+})
+@Getter
+@Setter
+@NoArgsConstructor
+public class LoanReminder {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long loanId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private Kind kind;
+
+    @Column(nullable = false)
+    private LocalDate dueDate;
+
+    private LocalDateTime sentAt;
+
+    public enum Kind {
+        DUE_SOON,
+        OVERDUE
+    }
+
+    public LoanReminder(Long loanId, Kind kind, LocalDate dueDate, LocalDateTime sentAt) {
+        this.loanId = loanId;
+        this.kind = kind;
+        this.dueDate = dueDate;
+        this.sentAt = sentAt;
+    }
+}
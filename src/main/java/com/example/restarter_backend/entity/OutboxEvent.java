@@ -0,0 +1,66 @@
+package com.example.restarter_backend.entity;
+
+import com.example.restarter_backend.event.LoanEvent;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.ColumnDefault;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Transactional outbox row: written in the same transaction as the loan change,
+ * then handed to the in-process dispatcher after commit. Delivery is at-least-once:
+ * the row is marked dispatched only after every listener has returned.
+ */
+@Entity
+@Table(name = "outbox_event", indexes = {
+    // Poller scans for rows that were never dispatched
+    @Index(name = "idx_outbox_dispatched", columnList = "dispatchedAt, id")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+public class OutboxEvent {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 32)
+    private LoanEvent.Type type;
+
+    private Long loanId;
+    private Long bookId;
+    private Long userId;
+    private LocalDate dueDate;
+
+    // Loan and book details as of the change, so listeners need not read them back
+    private LocalDate loanDate;
+    private LocalDate returnDate;
+    private String category;
+
+    @Column(nullable = false)
+    private LocalDateTime occurredAt;
+
+    // Null until every listener has handled the event
+    private LocalDateTime dispatchedAt;
+
+    // A dispatcher thread is delivering the row until then, or a failed delivery waits until then for its retry
+    private LocalDateTime claimedUntil;
+
+    // Failed deliveries so far; the poller gives up at app.events.max-attempts
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(length = 500)
+    private String lastError;
+
+    // Set in the transaction that adds the event to the analytics rollups, so a redelivery adds nothing
+    @ColumnDefault("false")
+    @Column(nullable = false)
+    private boolean analyticsApplied;
+}
@@ -0,0 +1,39 @@
+package com.example.restarter_backend.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Lease row for a scheduled job (or one partition of it). A node owns the job
+ * while lockedUntil is in the future; see LeaseLockService.
+ */
+@Entity
+@Table(name = "scheduler_lock")
+@Getter
+@Setter
+@NoArgsConstructor
+public class SchedulerLock {
+    @Id
+    @Column(length = 128)
+    private String name;
+
+    @Column(nullable = false)
+    private String lockedBy;
+
+    @Column(nullable = false)
+    private LocalDateTime lockedAt;
+
+    @Column(nullable = false)
+    private LocalDateTime lockedUntil;
+
+    public SchedulerLock(String name, String lockedBy, LocalDateTime lockedAt, LocalDateTime lockedUntil) {
+        this.name = name;
+        this.lockedBy = lockedBy;
+        this.lockedAt = lockedAt;
+        this.lockedUntil = lockedUntil;
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.restarter_backend.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Last persisted trending score per book, reloaded at startup so the leaderboard
+ * survives a restart (see TrendingService).
+ */
+@Entity
+@Table(name = "trending_score")
+@Getter
+@Setter
+@NoArgsConstructor
+public class TrendingScore {
+    @Id
+    private Long bookId;
+
+    private long score;
+
+    private LocalDateTime savedAt;
+
+    public TrendingScore(Long bookId, long score, LocalDateTime savedAt) {
+        this.bookId = bookId;
+        this.score = score;
+        this.savedAt = savedAt;
+    }
+}
@@ -1,15 +1,35 @@
 package com.example.restarter_backend.entity;
 
+import com.example.restarter_backend.dto.Views;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonView;
 import jakarta.persistence.*;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
+
 import java.time.LocalDate;
 
 @Entity
-@Table(name = "user")
+@Table(name = "user", indexes = {
+    // Nightly membership expiry job: one expiry date at a time, in id order
+    @Index(name = "idx_user_membership_expiry", columnList = "membershipExpiryDate")
+})
+@BatchSize(size = 50) // See Book
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "user") // See Book
+@NaturalIdCache(region = "user-username")
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class User {
     @Id
+    @JsonView(Views.Summary.class)
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
     
+    @NaturalId(mutable = true) // UserService.updateUser can change it
+    @JsonView(Views.Summary.class)
     @Column(name = "username", unique = true, nullable = false)
     private String username;
     private String email;
@@ -22,6 +42,15 @@ public class User {
     private String contactInfo;
     private LocalDate registrationDate;
     private LocalDate membershipExpiryDate;
+
+    // Set by MembershipExpiryService once the membership has expired; createLoan refuses while set
+    @ColumnDefault("false")
+    @Column(nullable = false)
+    private boolean borrowingSuspended;
+
+    // Expiry date the member was last told about, so each membership term gets one advance notice
+    private LocalDate expiryNoticeSentFor;
+    @JsonView(Views.Summary.class)
     private String name;
 
     // Getters and setters
@@ -50,7 +79,19 @@ public class User {
     public void setRegistrationDate(LocalDate registrationDate) { this.registrationDate = registrationDate; }
 
     public LocalDate getMembershipExpiryDate() { return membershipExpiryDate; }
-    public void setMembershipExpiryDate(LocalDate membershipExpiryDate) { this.membershipExpiryDate = membershipExpiryDate; }
+    public void setMembershipExpiryDate(LocalDate membershipExpiryDate) {
+        this.membershipExpiryDate = membershipExpiryDate;
+        // A renewed membership lifts the expiry suspension
+        if (membershipExpiryDate != null && !membershipExpiryDate.isBefore(LocalDate.now())) {
+            this.borrowingSuspended = false;
+        }
+    }
+
+    public boolean isBorrowingSuspended() { return borrowingSuspended; }
+    public void setBorrowingSuspended(boolean borrowingSuspended) { this.borrowingSuspended = borrowingSuspended; }
+
+    public LocalDate getExpiryNoticeSentFor() { return expiryNoticeSentFor; }
+    public void setExpiryNoticeSentFor(LocalDate expiryNoticeSentFor) { this.expiryNoticeSentFor = expiryNoticeSentFor; }
 
     public String getName() {
         return name;
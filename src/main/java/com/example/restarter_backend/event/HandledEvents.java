@@ -0,0 +1,40 @@
+package com.example.restarter_backend.event;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Outbox ids a listener has already handled, the most recent ones only. Outbox delivery is
+ * at-least-once (see OutboxDispatcher): when one listener fails, the retry hands the event to
+ * every listener again, so listeners with counting side effects check here first.
+ *
+ * In memory, like the state of the listeners that use it: after a restart both start over.
+ */
+public final class HandledEvents {
+
+    private static final int DEFAULT_CAPACITY = 10_000;
+
+    private final Map<Long, Boolean> ids;
+
+    public HandledEvents() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public HandledEvents(int capacity) {
+        this.ids = new LinkedHashMap<>(16, 0.75f, false) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Boolean> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Records the event as handled. Checks and records in one step, so concurrent deliveries of the
+     * same event cannot both pass: meant for handling that does not fail halfway.
+     * @return false if it was handled before (events without an outbox id are never deduplicated)
+     */
+    public synchronized boolean markHandled(LoanEvent event) {
+        return event.getOutboxId() == null || ids.put(event.getOutboxId(), Boolean.TRUE) == null;
+    }
+}
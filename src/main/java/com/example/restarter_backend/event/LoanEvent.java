@@ -0,0 +1,79 @@
+package com.example.restarter_backend.event;
+
+import com.example.restarter_backend.entity.OutboxEvent;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Loan state change delivered to in-process listeners (@EventListener) after the
+ * originating transaction has committed. Built from a row of the outbox table.
+ */
+public class LoanEvent {
+
+    public enum Type {
+        LOAN_CREATED,
+        LOAN_RENEWED,
+        LOAN_RETURNED,
+        LOAN_OVERDUE,
+        BOOK_AVAILABLE
+    }
+
+    private final Long outboxId;
+    private final Type type;
+    private final Long loanId;
+    private final Long bookId;
+    private final Long userId;
+    private final LocalDate dueDate;
+    private final LocalDateTime occurredAt;
+    private final LocalDate loanDate;
+    private final LocalDate returnDate;
+    private final String category;
+
+    public LoanEvent(Long outboxId, Type type, Long loanId, Long bookId, Long userId, LocalDate dueDate, LocalDateTime occurredAt) {
+        this(outboxId, type, loanId, bookId, userId, dueDate, occurredAt, null, null, null);
+    }
+
+    public LoanEvent(Long outboxId, Type type, Long loanId, Long bookId, Long userId, LocalDate dueDate, LocalDateTime occurredAt,
+                     LocalDate loanDate, LocalDate returnDate, String category) {
+        this.outboxId = outboxId;
+        this.type = type;
+        this.loanId = loanId;
+        this.bookId = bookId;
+        this.userId = userId;
+        this.dueDate = dueDate;
+        this.occurredAt = occurredAt;
+        this.loanDate = loanDate;
+        this.returnDate = returnDate;
+        this.category = category;
+    }
+
+    public static LoanEvent from(OutboxEvent row) {
+        return new LoanEvent(row.getId(), row.getType(), row.getLoanId(), row.getBookId(), row.getUserId(),
+                row.getDueDate(), row.getOccurredAt(), row.getLoanDate(), row.getReturnDate(), row.getCategory());
+    }
+
+    public Long getOutboxId() { return outboxId; }
+    public Type getType() { return type; }
+    public Long getLoanId() { return loanId; }
+    public Long getBookId() { return bookId; }
+    public Long getUserId() { return userId; }
+    public LocalDate getDueDate() { return dueDate; }
+    public LocalDateTime getOccurredAt() { return occurredAt; }
+    public LocalDate getLoanDate() { return loanDate; }
+    public LocalDate getReturnDate() { return returnDate; }
+    // The book's category when the event was written; null for rows written before it was recorded
+    public String getCategory() { return category; }
+
+    @Override
+    public String toString() {
+        return "LoanEvent{" +
+               "outboxId=" + outboxId +
+               ", type=" + type +
+               ", loanId=" + loanId +
+               ", bookId=" + bookId +
+               ", userId=" + userId +
+               ", dueDate=" + dueDate +
+               '}';
+    }
+}
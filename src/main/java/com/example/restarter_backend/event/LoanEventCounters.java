@@ -0,0 +1,38 @@
+package com.example.restarter_backend.event;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts delivered loan events per type (shown on /api/diagnostics/events).
+ */
+@Component
+public class LoanEventCounters {
+
+    private final Map<LoanEvent.Type, LongAdder> counts = new EnumMap<>(LoanEvent.Type.class);
+    private final HandledEvents handled = new HandledEvents();
+
+    public LoanEventCounters() {
+        for (LoanEvent.Type type : LoanEvent.Type.values()) {
+            counts.put(type, new LongAdder());
+        }
+    }
+
+    @EventListener
+    public void onLoanEvent(LoanEvent event) {
+        if (handled.markHandled(event)) {
+            counts.get(event.getType()).increment();
+        }
+    }
+
+    public Map<String, Long> snapshot() {
+        Map<String, Long> result = new LinkedHashMap<>();
+        counts.forEach((type, count) -> result.put(type.name(), count.sum()));
+        return result;
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.restarter_backend.event;
+
+import com.example.restarter_backend.entity.Loan;
+import com.example.restarter_backend.entity.OutboxEvent;
+import com.example.restarter_backend.repository.OutboxEventRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+
+@Service
+public class LoanEventPublisher {
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private OutboxDispatcher outboxDispatcher;
+
+    /**
+     * Records the event in the outbox as part of the current transaction and hands it
+     * to the async dispatcher once that transaction commits. A rolled-back loan change
+     * therefore never produces an event, and listeners add no latency to the request.
+     */
+    public void publish(LoanEvent.Type type, Loan loan) {
+        OutboxEvent row = new OutboxEvent();
+        row.setType(type);
+        row.setLoanId(loan.getId());
+        row.setBookId(loan.getBook() != null ? loan.getBook().getId() : null);
+        row.setUserId(loan.getUser() != null ? loan.getUser().getId() : null);
+        row.setDueDate(loan.getDueDate());
+        row.setLoanDate(loan.getLoanDate());
+        row.setReturnDate(loan.getReturnDate());
+        row.setCategory(loan.getBook() != null ? loan.getBook().getCategory() : null);
+        row.setOccurredAt(LocalDateTime.now());
+        OutboxEvent saved = outboxEventRepository.save(row);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    outboxDispatcher.dispatch(saved);
+                }
+            });
+        } else {
+            outboxDispatcher.dispatch(saved);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.restarter_backend.event;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Notification stub: logs what a member would be told. Stands in for email/SMS delivery.
+ */
+@Slf4j
+@Component
+public class LoanNotificationListener {
+
+    // A redelivered event must not notify the member twice
+    private final HandledEvents handled = new HandledEvents();
+
+    @EventListener
+    public void onLoanEvent(LoanEvent event) {
+        if (!handled.markHandled(event)) {
+            return;
+        }
+        switch (event.getType()) {
+            case LOAN_CREATED -> log.info("NOTIFY user {}: loan {} created, due {}", event.getUserId(), event.getLoanId(), event.getDueDate());
+            case LOAN_RENEWED -> log.info("NOTIFY user {}: loan {} renewed, now due {}", event.getUserId(), event.getLoanId(), event.getDueDate());
+            case LOAN_RETURNED -> log.info("NOTIFY user {}: loan {} returned", event.getUserId(), event.getLoanId());
+            case LOAN_OVERDUE -> log.info("NOTIFY user {}: loan {} is overdue (was due {})", event.getUserId(), event.getLoanId(), event.getDueDate());
+            default -> { }
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.restarter_backend.event;
+
+import com.example.restarter_backend.entity.OutboxEvent;
+import com.example.restarter_backend.repository.OutboxEventRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Delivers outbox events to @EventListener consumers on a bounded executor of its own,
+ * off the borrow/return request threads. Events that don't fit in the queue stay in the
+ * outbox and are picked up by the poller.
+ *
+ * Delivery is at-least-once. A row is claimed for claim-timeout-seconds, delivered, and only
+ * then marked dispatched; if a listener throws, the failure is recorded on the row and the
+ * poller retries it with backoff, up to max-attempts. A crash between delivery and marking
+ * also redelivers. Listeners that the same event applies twice (one listener failing makes
+ * the others see it again) skip outbox ids they have handled (see HandledEvents).
+ */
+@Slf4j
+@Component
+public class OutboxDispatcher {
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private ApplicationEventPublisher applicationEventPublisher;
+
+    @Value("${app.events.dispatcher-threads:2}")
+    private int dispatcherThreads;
+
+    @Value("${app.events.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${app.events.retention-days:7}")
+    private int retentionDays;
+
+    @Value("${app.events.claim-timeout-seconds:60}")
+    private int claimTimeoutSeconds;
+
+    @Value("${app.events.retry-delay-seconds:30}")
+    private int retryDelaySeconds;
+
+    @Value("${app.events.max-attempts:10}")
+    private int maxAttempts;
+
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    void start() {
+        executor = new ThreadPoolExecutor(dispatcherThreads, dispatcherThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("loan-events-"),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    public void dispatch(OutboxEvent row) {
+        LoanEvent event = LoanEvent.from(row);
+        int attempts = row.getAttempts();
+        try {
+            executor.execute(() -> deliver(event, attempts));
+        } catch (RejectedExecutionException ex) {
+            log.debug("Event queue full, outbox poller will deliver {}", event);
+        }
+    }
+
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    private void deliver(LoanEvent event, int attempts) {
+        LocalDateTime now = LocalDateTime.now();
+        // Claim first, so the after-commit path and the poller do not deliver the same row at the same time
+        if (outboxEventRepository.claim(event.getOutboxId(), now, now.plusSeconds(claimTimeoutSeconds)) == 0) {
+            return;
+        }
+        try {
+            applicationEventPublisher.publishEvent(event);
+        } catch (RuntimeException ex) {
+            // Exponential backoff: retry-delay, twice that, four times that...
+            LocalDateTime retryAt = LocalDateTime.now().plusSeconds((long) retryDelaySeconds << Math.min(attempts, 10));
+            String error = String.valueOf(ex.getMessage());
+            outboxEventRepository.recordFailure(event.getOutboxId(),
+                    error.length() > 500 ? error.substring(0, 500) : error, retryAt);
+            log.error("Listener failed for {} (attempt {} of {}): {}", event, attempts + 1, maxAttempts, ex.getMessage(), ex);
+            return;
+        }
+        outboxEventRepository.markDispatched(event.getOutboxId(), LocalDateTime.now());
+    }
+
+    // Picks up rows the after-commit dispatch missed (queue full, node restarted before delivery)
+    // and failed deliveries whose retry is due
+    @Scheduled(fixedDelayString = "${app.events.outbox-poll-ms:30000}")
+    public void dispatchPending() {
+        LocalDateTime now = LocalDateTime.now();
+        List<OutboxEvent> pending = outboxEventRepository.findPending(now.minusSeconds(10), now, maxAttempts, PageRequest.of(0, 500));
+        pending.forEach(this::dispatch);
+    }
+
+    @Scheduled(cron = "0 30 3 * * ?") // Runs every day at 3:30 AM
+    public void purgeDispatched() {
+        int purged = outboxEventRepository.deleteDispatchedBefore(LocalDateTime.now().minusDays(retentionDays));
+        log.info("Purged {} dispatched outbox events older than {} days", purged, retentionDays);
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.restarter_backend.notification;
+
+import com.example.restarter_backend.entity.Loan;
+import com.example.restarter_backend.entity.LoanReminder;
+import com.example.restarter_backend.entity.User;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Local stand-in for an email gateway: appends each message as one line to a file.
+ */
+@Component
+public class FileReminderSender implements ReminderSender {
+
+    @Value("${app.reminders.sink-file:logs/reminders.log}")
+    private Path sinkFile;
+
+    @Override
+    public synchronized void send(User user, LoanReminder.Kind kind, LocalDate dueDate, List<Loan> loans) {
+        String titles = loans.stream()
+                .map(loan -> loan.getBook().getTitle())
+                .collect(Collectors.joining("; "));
+        append(user, LocalDateTime.now() + " " + kind + " to=" + user.getEmail()
+                + " user=" + user.getUsername() + " due=" + dueDate
+                + " loans=" + loans.size() + " titles=[" + titles + "]");
+    }
+
+    @Override
+    public synchronized void sendMembershipNotice(User user, MembershipNotice notice, LocalDate expiryDate) {
+        append(user, LocalDateTime.now() + " MEMBERSHIP_" + notice + " to=" + user.getEmail()
+                + " user=" + user.getUsername() + " expires=" + expiryDate);
+    }
+
+    private void append(User user, String line) {
+        try {
+            if (sinkFile.getParent() != null) {
+                Files.createDirectories(sinkFile.getParent());
+            }
+            Files.writeString(sinkFile, line + System.lineSeparator(), StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not write reminder for " + user.getUsername(), ex);
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.restarter_backend.notification;
+
+import com.example.restarter_backend.entity.Loan;
+import com.example.restarter_backend.entity.LoanReminder;
+import com.example.restarter_backend.entity.User;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Delivers one reminder message to a member, covering all of their loans that share a due date,
+ * or a notice about their membership. Implementations may throw to signal a failed delivery;
+ * the loans are then retried on the next run.
+ */
+public interface ReminderSender {
+
+    void send(User user, LoanReminder.Kind kind, LocalDate dueDate, List<Loan> loans);
+
+    void sendMembershipNotice(User user, MembershipNotice notice, LocalDate expiryDate);
+
+    enum MembershipNotice {
+        EXPIRING_SOON,
+        EXPIRED
+    }
+}
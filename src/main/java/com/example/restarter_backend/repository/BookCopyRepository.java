@@ -0,0 +1,50 @@
+package com.example.restarter_backend.repository;
+
+import com.example.restarter_backend.dto.BookCopyCount;
+import com.example.restarter_backend.entity.BookCopy;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface BookCopyRepository extends JpaRepository<BookCopy, Long> {
+    // Free copies of a title for checkout: FOR UPDATE SKIP LOCKED (lock timeout -2), so concurrent
+    // checkouts each take a different copy instead of queueing on the first one
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT c FROM BookCopy c WHERE c.book.id = :bookId AND c.status = :status ORDER BY c.id")
+    List<BookCopy> findFreeForUpdate(@Param("bookId") Long bookId,
+                                     @Param("status") BookCopy.Status status,
+                                     Pageable pageable);
+
+    // Current state of a title's copies, read with shared locks (sees committed checkouts, not the snapshot)
+    @Lock(LockModeType.PESSIMISTIC_READ)
+    @Query("SELECT c FROM BookCopy c WHERE c.book.id = :bookId AND c.status <> :excluded")
+    List<BookCopy> findByBookIdForShare(@Param("bookId") Long bookId, @Param("excluded") BookCopy.Status excluded);
+
+    long countByBookId(Long bookId);
+
+    boolean existsByBookId(Long bookId);
+
+    // Per-book available and total copy counts in an id range, for the book status reconciliation job
+    @Query("SELECT new com.example.restarter_backend.dto.BookCopyCount(c.book.id, " +
+           "SUM(CASE WHEN c.status = :available THEN 1 ELSE 0 END), COUNT(c)) " +
+           "FROM BookCopy c WHERE c.book.id BETWEEN :fromId AND :toId AND c.status <> :excluded GROUP BY c.book.id")
+    List<BookCopyCount> countByBookInIdRange(@Param("available") BookCopy.Status available,
+                                             @Param("excluded") BookCopy.Status excluded,
+                                             @Param("fromId") Long fromId, @Param("toId") Long toId);
+
+    // Runs in the caller's transaction (BookService.deleteBook)
+    @Modifying
+    @Query("DELETE FROM BookCopy c WHERE c.book.id = :bookId")
+    int deleteByBookId(@Param("bookId") Long bookId);
+}
@@ -1,8 +1,15 @@
 package com.example.restarter_backend.repository;
 
+import com.example.restarter_backend.dto.BookFacetCount;
 import com.example.restarter_backend.entity.Book;
-
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -13,6 +20,8 @@ public interface BookRepository extends JpaRepository<Book, Long> {
     List<Book> findByTitleContainingIgnoreCaseOrAuthorContainingIgnoreCaseOrIsbnContainingIgnoreCaseOrCategoryContainingIgnoreCase(
         String title, String author, String isbn, String category
     );
+    // Query cache: the ids are reused until a book changes (then the books come from the second-level cache)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     List<Book> findByStatus(Book.Status status);
     
     // Add this method to find a book by its ISBN
@@ -20,4 +29,43 @@ public interface BookRepository extends JpaRepository<Book, Long> {
     
     // Count books by status (if needed)
     long countByStatus(Book.Status status);
-}
\ No newline at end of file
+
+    // For the book status reconciliation job (BookReconciliationScheduler)
+    @Query("SELECT MAX(b.id) FROM Book b")
+    Long findMaxId();
+
+    List<Book> findByIdBetween(Long fromId, Long toId);
+
+    // Titles that have no BookCopy rows yet, in id order (BookCopyService backfill)
+    @Query("SELECT b FROM Book b WHERE b.id > :afterId " +
+           "AND NOT EXISTS (SELECT c.id FROM BookCopy c WHERE c.book = b) ORDER BY b.id")
+    List<Book> findWithoutCopies(@Param("afterId") Long afterId, Pageable pageable);
+
+    // For /api/books/status - optional filters are skipped when null, so the
+    // (status, category, publicationYear) index is used as far as the filters go
+    @Query("SELECT b FROM Book b WHERE b.status = :status " +
+           "AND (:category IS NULL OR b.category = :category) " +
+           "AND (:fromYear IS NULL OR b.publicationYear >= :fromYear) " +
+           "AND (:toYear IS NULL OR b.publicationYear <= :toYear)")
+    Page<Book> findByStatusFiltered(@Param("status") Book.Status status,
+                                    @Param("category") String category,
+                                    @Param("fromYear") Integer fromYear,
+                                    @Param("toYear") Integer toYear,
+                                    Pageable pageable);
+
+    // For /api/books/facets - one grouped query instead of a countByStatus call per status
+    @Query("SELECT new com.example.restarter_backend.dto.BookFacetCount(b.status, b.category, COUNT(b)) " +
+           "FROM Book b GROUP BY b.status, b.category")
+    List<BookFacetCount> findStatusCategoryFacets();
+
+    // For the autocomplete index (SuggestService): only the indexed columns, no entities
+    @Query("SELECT b.id AS id, b.title AS title, b.author AS author, b.category AS category FROM Book b")
+    List<SuggestSource> findSuggestSources();
+
+    interface SuggestSource {
+        Long getId();
+        String getTitle();
+        String getAuthor();
+        String getCategory();
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.restarter_backend.repository;
+
+import com.example.restarter_backend.dto.BookLoanCount;
+import com.example.restarter_backend.entity.DailyBookLoanStat;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface DailyBookLoanStatRepository extends JpaRepository<DailyBookLoanStat, Long> {
+    // 0 means the row for that day and book does not exist yet
+    @Modifying
+    @Query("UPDATE DailyBookLoanStat s SET s.loansCreated = s.loansCreated + :created, " +
+           "s.loansReturned = s.loansReturned + :returned WHERE s.statDate = :day AND s.bookId = :bookId")
+    int increment(@Param("day") LocalDate day, @Param("bookId") Long bookId,
+                  @Param("created") int created, @Param("returned") int returned);
+
+    @Query("SELECT new com.example.restarter_backend.dto.BookLoanCount(s.bookId, b.title, b.author, SUM(s.loansCreated)) " +
+           "FROM DailyBookLoanStat s, Book b WHERE b.id = s.bookId AND s.statDate BETWEEN :from AND :to " +
+           "GROUP BY s.bookId, b.title, b.author ORDER BY SUM(s.loansCreated) DESC")
+    List<BookLoanCount> findTopBooks(@Param("from") LocalDate from, @Param("to") LocalDate to, Pageable pageable);
+
+    // Loans per book since the given day, for ranking autocomplete suggestions (SuggestService)
+    @Query("SELECT s.bookId AS bookId, SUM(s.loansCreated) AS loans FROM DailyBookLoanStat s " +
+           "WHERE s.statDate >= :from GROUP BY s.bookId")
+    List<BookLoanTotal> sumLoansPerBookSince(@Param("from") LocalDate from);
+
+    interface BookLoanTotal {
+        Long getBookId();
+        Long getLoans();
+    }
+
+    @Modifying
+    @Query("DELETE FROM DailyBookLoanStat s WHERE s.statDate = :day")
+    int deleteByDay(@Param("day") LocalDate day);
+
+    @Modifying
+    @Query("DELETE FROM DailyBookLoanStat s WHERE s.statDate < :before")
+    int deleteBefore(@Param("before") LocalDate before);
+}
@@ -0,0 +1,38 @@
+package com.example.restarter_backend.repository;
+
+import com.example.restarter_backend.dto.CategoryOverdueRate;
+import com.example.restarter_backend.dto.DailyLoanCount;
+import com.example.restarter_backend.entity.DailyCategoryStat;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface DailyCategoryStatRepository extends JpaRepository<DailyCategoryStat, Long> {
+    // 0 means the row for that day and category does not exist yet
+    @Modifying
+    @Query("UPDATE DailyCategoryStat s SET s.loansCreated = s.loansCreated + :created, " +
+           "s.loansReturned = s.loansReturned + :returned, s.returnedLate = s.returnedLate + :returnedLate, " +
+           "s.becameOverdue = s.becameOverdue + :becameOverdue WHERE s.statDate = :day AND s.category = :category")
+    int increment(@Param("day") LocalDate day, @Param("category") String category, @Param("created") int created,
+                  @Param("returned") int returned, @Param("returnedLate") int returnedLate,
+                  @Param("becameOverdue") int becameOverdue);
+
+    List<DailyCategoryStat> findByStatDate(LocalDate statDate);
+
+    boolean existsByStatDateAndCompactedTrue(LocalDate statDate);
+
+    @Query("SELECT new com.example.restarter_backend.dto.DailyLoanCount(s.statDate, SUM(s.loansCreated), SUM(s.loansReturned)) " +
+           "FROM DailyCategoryStat s WHERE s.statDate BETWEEN :from AND :to GROUP BY s.statDate ORDER BY s.statDate")
+    List<DailyLoanCount> findLoansPerDay(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Query("SELECT new com.example.restarter_backend.dto.CategoryOverdueRate(s.category, SUM(s.loansCreated), " +
+           "SUM(s.loansReturned), SUM(s.returnedLate), SUM(s.becameOverdue)) " +
+           "FROM DailyCategoryStat s WHERE s.statDate BETWEEN :from AND :to GROUP BY s.category ORDER BY s.category")
+    List<CategoryOverdueRate> findOverdueRates(@Param("from") LocalDate from, @Param("to") LocalDate to);
+}
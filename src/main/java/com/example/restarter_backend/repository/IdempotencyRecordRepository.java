@@ -0,0 +1,52 @@
+package com.example.restarter_backend.repository;
+
+import com.example.restarter_backend.entity.IdempotencyRecord;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+// Callers run these in their own transaction (IdempotencyService), never inside the request's transaction
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+    // Claims a key; a duplicate key means another request (on any node) got there first.
+    // Native statements name the tables they touch, or Hibernate empties the whole second-level cache
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "idempotency_record"))
+    @Query(value = "INSERT INTO idempotency_record (id, request_hash, status, created_at, expires_at) " +
+                   "VALUES (:id, :requestHash, 'IN_PROGRESS', :now, :until)",
+           nativeQuery = true)
+    int insertClaim(@Param("id") String id, @Param("requestHash") String requestHash,
+                    @Param("now") LocalDateTime now, @Param("until") LocalDateTime until);
+
+    @Modifying
+    @Query("UPDATE IdempotencyRecord r SET r.status = :status, r.responseStatus = :responseStatus, " +
+           "r.responseBody = :responseBody, r.expiresAt = :until WHERE r.id = :id")
+    int complete(@Param("id") String id, @Param("status") IdempotencyRecord.Status status,
+                 @Param("responseStatus") int responseStatus, @Param("responseBody") String responseBody,
+                 @Param("until") LocalDateTime until);
+
+    // Pushes back the expiry of claims whose request is still running, so no other request takes them over
+    @Modifying
+    @Query("UPDATE IdempotencyRecord r SET r.expiresAt = :until WHERE r.id IN :ids AND r.status = :status")
+    int extendClaims(@Param("ids") Collection<String> ids, @Param("status") IdempotencyRecord.Status status,
+                     @Param("until") LocalDateTime until);
+
+    // Frees a key whose record has expired, so a new request can claim it
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.id = :id AND r.expiresAt <= :now")
+    int deleteExpired(@Param("id") String id, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.expiresAt < :now")
+    int purgeExpired(@Param("now") LocalDateTime now);
+}
@@ -0,0 +1,22 @@
+package com.example.restarter_backend.repository;
+
+import com.example.restarter_backend.entity.JobCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface JobCheckpointRepository extends JpaRepository<JobCheckpoint, Long> {
+    Optional<JobCheckpoint> findByJobNameAndRunKeyAndPartitionNo(String jobName, String runKey, Integer partitionNo);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM JobCheckpoint c WHERE c.updatedAt < :before")
+    int deleteUpdatedBefore(@Param("before") LocalDateTime before);
+}
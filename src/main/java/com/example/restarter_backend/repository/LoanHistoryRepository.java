@@ -0,0 +1,35 @@
+package com.example.restarter_backend.repository;
+
+import com.example.restarter_backend.entity.LoanHistory;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+
+// Archival moves are set-based statements; both run in the caller's transaction (LoanArchivalService)
+@Repository
+public interface LoanHistoryRepository extends JpaRepository<LoanHistory, Long> {
+    // Native space hints: see IdempotencyRecordRepository
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "loan_history"))
+    @Query(value = "INSERT INTO loan_history (id, book_id, copy_id, user_id, loan_date, due_date, return_date, status, renewal_count) " +
+                   "SELECT id, book_id, copy_id, user_id, loan_date, due_date, return_date, status, renewal_count FROM loan WHERE id IN (:ids)",
+           nativeQuery = true)
+    int copyFromLoans(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "loan"))
+    @Query(value = "DELETE FROM loan WHERE id IN (:ids)", nativeQuery = true)
+    int deleteLoans(@Param("ids") Collection<Long> ids);
+
+    // loan_history has no foreign keys: BookService.deleteBook and UserService.deleteUser check these instead
+    boolean existsByBookId(Long bookId);
+
+    boolean existsByUserId(Long userId);
+}
@@ -0,0 +1,20 @@
+package com.example.restarter_backend.repository;
+
+import com.example.restarter_backend.entity.LoanRecord;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+// Read-only: LoanRecord is the union of current and archived loans
+@Repository
+public interface LoanRecordRepository extends JpaRepository<LoanRecord, Long> {
+    // Listings serialize book, user and copy: fetched in the same select (copy is an outer join)
+    @Override
+    @EntityGraph(attributePaths = {"book", "user", "copy"})
+    List<LoanRecord> findAll();
+
+    @EntityGraph(attributePaths = {"book", "user", "copy"})
+    List<LoanRecord> findByUserId(Long userId);
+}
@@ -0,0 +1,20 @@
+package com.example.restarter_backend.repository;
+
+import com.example.restarter_backend.entity.LoanReminder;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface LoanReminderRepository extends JpaRepository<LoanReminder, Long> {
+    // Loans in the batch that were already reminded for this kind and due date
+    @Query("SELECT r.loanId FROM LoanReminder r WHERE r.kind = :kind AND r.dueDate = :dueDate AND r.loanId IN :loanIds")
+    List<Long> findSentLoanIds(@Param("kind") LoanReminder.Kind kind,
+                               @Param("dueDate") LocalDate dueDate,
+                               @Param("loanIds") Collection<Long> loanIds);
+}
@@ -1,25 +1,101 @@
 package com.example.restarter_backend.repository;
 
+import com.example.restarter_backend.dto.LoanCountRow;
+import com.example.restarter_backend.dto.UserBookPair;
 import com.example.restarter_backend.entity.Loan;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.stereotype.Repository;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 
 @Repository
 public interface LoanRepository extends JpaRepository<Loan, Long> {
-    // For updateOverdueLoansForUser
+    // Loan.book, user and copy are lazy: the finders below load loans only, which is all the
+    // status checks and sweeps need. Paths that return a loan to the client use findWithDetailsById
     List<Loan> findByUserId(Long userId); 
     // For checks in createLoan
     long countByUserIdAndStatus(Long userId, Loan.Status status); 
     // Required for LoanService.calculateTotalFinesForUser
     List<Loan> findByUserIdAndStatusIn(Long userId, List<Loan.Status> statuses);
-    // for isBookAvailable
-    long countByBookIdAndStatus(Long bookId, Loan.Status status); 
-    // For updateAllOverdueLoans
     List<Loan> findByStatus(Loan.Status status); 
+    // Renew, return and delete: the loan with everything its JSON response (and the copy release) needs, in one select
+    @EntityGraph(attributePaths = {"book", "user", "copy"})
+    Optional<Loan> findWithDetailsById(Long id);
+
+    // For the @PreAuthorize ownership check: one indexed lookup, nothing loaded
+    boolean existsByIdAndUserUsername(Long id, String username);
+
+    // For the single-node overdue sweep before the due-date index has loaded: ACTIVE loans past due, a range scan of idx_loan_status_due
+    @Query("SELECT l FROM Loan l WHERE l.status = :status AND l.dueDate < :today ORDER BY l.dueDate, l.id")
+    List<Loan> findDueBefore(@Param("status") Loan.Status status, @Param("today") LocalDate today, Pageable pageable);
+
+    // For the partitioned overdue sweep (OverdueSweepScheduler in cluster mode)
+    @Query("SELECT MAX(l.id) FROM Loan l")
+    Long findMaxId();
+
+    @Query("SELECT l FROM Loan l WHERE l.status = :status AND l.dueDate < :today AND l.id BETWEEN :fromId AND :toId")
+    List<Loan> findDueBeforeInIdRange(@Param("status") Loan.Status status, @Param("today") LocalDate today,
+                                      @Param("fromId") Long fromId, @Param("toId") Long toId);
+
+    // Outstanding loans made before copies were tracked, attached to copies by the backfill
+    List<Loan> findByBookIdAndStatusInAndCopyIsNull(Long bookId, Collection<Loan.Status> statuses);
+
+    // Per-book loan counts for one day, for the analytics compaction (rollups are rebuilt from these).
+    // Read through LoanRecord so days past the archival horizon can still be rebuilt
+    @Query("SELECT new com.example.restarter_backend.dto.LoanCountRow(b.id, b.category, COUNT(l)) " +
+           "FROM LoanRecord l JOIN l.book b WHERE l.loanDate = :day GROUP BY b.id, b.category")
+    List<LoanCountRow> countCreatedOn(@Param("day") LocalDate day);
+
+    @Query("SELECT new com.example.restarter_backend.dto.LoanCountRow(b.id, b.category, COUNT(l)) " +
+           "FROM LoanRecord l JOIN l.book b WHERE l.returnDate = :day GROUP BY b.id, b.category")
+    List<LoanCountRow> countReturnedOn(@Param("day") LocalDate day);
+
+    @Query("SELECT new com.example.restarter_backend.dto.LoanCountRow(b.id, b.category, COUNT(l)) " +
+           "FROM LoanRecord l JOIN l.book b WHERE l.returnDate = :day AND l.returnDate > l.dueDate GROUP BY b.id, b.category")
+    List<LoanCountRow> countReturnedLateOn(@Param("day") LocalDate day);
+
+    // Co-borrowing batch (RecommendationService): every (user, book) pair, archived loans included,
+    // grouped by user and read through a server cursor (fetch size + useCursorFetch) so the result
+    // is never buffered whole
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT new com.example.restarter_backend.dto.UserBookPair(l.user.id, l.book.id) FROM LoanRecord l ORDER BY l.user.id, l.id")
+    Stream<UserBookPair> streamUserBookPairs();
+
+    // For LoanArchivalService: returned loans old enough to move (only returned loans have a returnDate)
+    @Query("SELECT l.id FROM Loan l WHERE l.status = :status AND l.returnDate < :before ORDER BY l.id")
+    List<Long> findIdsReturnedBefore(@Param("status") Loan.Status status, @Param("before") LocalDate before, Pageable pageable);
+
+    // For DueDateIndex start-up load: only (id, dueDate) of active loans, keyset-paged by id
+    List<LoanDueDate> findByStatusAndIdGreaterThanOrderByIdAsc(Loan.Status status, Long afterId, Pageable pageable);
+
+    interface LoanDueDate {
+        Long getId();
+        LocalDate getDueDate();
+    }
+
+    // For ReminderService: one due date at a time, keyset-paged by id, so the
+    // (status, dueDate) index returns rows already in id order
+    @Query("SELECT l FROM Loan l JOIN FETCH l.user JOIN FETCH l.book " +
+           "WHERE l.status = :status AND l.dueDate = :dueDate AND l.id > :afterId ORDER BY l.id")
+    List<Loan> findDueOn(@Param("status") Loan.Status status,
+                         @Param("dueDate") LocalDate dueDate,
+                         @Param("afterId") Long afterId,
+                         Pageable pageable);
    
 
 
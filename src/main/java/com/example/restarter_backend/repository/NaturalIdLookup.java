@@ -0,0 +1,38 @@
+package com.example.restarter_backend.repository;
+
+import com.example.restarter_backend.entity.Book;
+import com.example.restarter_backend.entity.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+
+/**
+ * Books by ISBN and users by username through Hibernate's natural-id API: the id comes from the
+ * natural-id cache and the entity from the second-level cache, so a warm lookup runs no query.
+ * The derived finders (BookRepository.findByIsbn, UserRepository.findByUsername) always query.
+ * Callers must be in a transaction.
+ */
+@Component
+public class NaturalIdLookup {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public Optional<Book> findBookByIsbn(String isbn) {
+        return load(Book.class, isbn);
+    }
+
+    public Optional<User> findUserByUsername(String username) {
+        return load(User.class, username);
+    }
+
+    private <T> Optional<T> load(Class<T> type, String naturalId) {
+        if (naturalId == null) {
+            return Optional.empty();
+        }
+        return entityManager.unwrap(Session.class).bySimpleNaturalId(type).loadOptional(naturalId);
+    }
+}
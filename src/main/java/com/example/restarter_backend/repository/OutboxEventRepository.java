@@ -0,0 +1,58 @@
+package com.example.restarter_backend.repository;
+
+import com.example.restarter_backend.entity.OutboxEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+    // For the outbox poller: rows missed by the after-commit dispatch (queue full, crash) and
+    // failed deliveries whose retry is due, until they run out of attempts
+    @Query("SELECT e FROM OutboxEvent e WHERE e.dispatchedAt IS NULL AND e.occurredAt < :before " +
+           "AND (e.claimedUntil IS NULL OR e.claimedUntil <= :now) AND e.attempts < :maxAttempts ORDER BY e.id")
+    List<OutboxEvent> findPending(@Param("before") LocalDateTime before, @Param("now") LocalDateTime now,
+                                  @Param("maxAttempts") int maxAttempts, Pageable pageable);
+
+    long countByDispatchedAtIsNull();
+
+    // Rows the poller has given up on (listener kept failing): see lastError
+    long countByDispatchedAtIsNullAndAttemptsGreaterThanEqual(int attempts);
+
+    // Claims a row for one delivery attempt; 0 means another thread is delivering it, or it is done
+    @Transactional
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.claimedUntil = :until WHERE e.id = :id AND e.dispatchedAt IS NULL " +
+           "AND (e.claimedUntil IS NULL OR e.claimedUntil <= :now)")
+    int claim(@Param("id") Long id, @Param("now") LocalDateTime now, @Param("until") LocalDateTime until);
+
+    // After every listener has returned
+    @Transactional
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.dispatchedAt = :now, e.claimedUntil = NULL WHERE e.id = :id AND e.dispatchedAt IS NULL")
+    int markDispatched(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    // Leaves the row pending; the poller retries it from retryAt
+    @Transactional
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.attempts = e.attempts + 1, e.lastError = :error, e.claimedUntil = :retryAt " +
+           "WHERE e.id = :id AND e.dispatchedAt IS NULL")
+    int recordFailure(@Param("id") Long id, @Param("error") String error, @Param("retryAt") LocalDateTime retryAt);
+
+    // Runs in the caller's transaction (AnalyticsService); 0 means the rollups already have this event
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.analyticsApplied = true WHERE e.id = :id AND e.analyticsApplied = false")
+    int markAnalyticsApplied(@Param("id") Long id);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM OutboxEvent e WHERE e.dispatchedAt IS NOT NULL AND e.dispatchedAt < :before")
+    int deleteDispatchedBefore(@Param("before") LocalDateTime before);
+}
@@ -0,0 +1,36 @@
+package com.example.restarter_backend.repository;
+
+import com.example.restarter_backend.entity.SchedulerLock;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+// Callers run these in their own transaction (LeaseLockService), never inside the job's transaction
+@Repository
+public interface SchedulerLockRepository extends JpaRepository<SchedulerLock, String> {
+    // Takes over an expired lease; 0 means it is held by another node or the row does not exist yet
+    @Modifying
+    @Query("UPDATE SchedulerLock l SET l.lockedBy = :owner, l.lockedAt = :now, l.lockedUntil = :until " +
+           "WHERE l.name = :name AND l.lockedUntil <= :now")
+    int takeOverExpired(@Param("name") String name, @Param("owner") String owner,
+                        @Param("now") LocalDateTime now, @Param("until") LocalDateTime until);
+
+    // First use of a lock name; a duplicate key means another node created it first
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "scheduler_lock")) // See IdempotencyRecordRepository
+    @Query(value = "INSERT INTO scheduler_lock (name, locked_by, locked_at, locked_until) VALUES (:name, :owner, :now, :until)",
+           nativeQuery = true)
+    int insertLock(@Param("name") String name, @Param("owner") String owner,
+                   @Param("now") LocalDateTime now, @Param("until") LocalDateTime until);
+
+    @Modifying
+    @Query("UPDATE SchedulerLock l SET l.lockedUntil = :until WHERE l.name = :name AND l.lockedBy = :owner")
+    int release(@Param("name") String name, @Param("owner") String owner, @Param("until") LocalDateTime until);
+}
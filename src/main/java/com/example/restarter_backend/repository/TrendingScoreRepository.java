@@ -0,0 +1,9 @@
+package com.example.restarter_backend.repository;
+
+import com.example.restarter_backend.entity.TrendingScore;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface TrendingScoreRepository extends JpaRepository<TrendingScore, Long> {
+}
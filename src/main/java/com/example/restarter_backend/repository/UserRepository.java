@@ -1,9 +1,13 @@
 package com.example.restarter_backend.repository;
 
 import com.example.restarter_backend.entity.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
 
@@ -15,4 +19,14 @@ public interface UserRepository extends JpaRepository<User, Long> {
 
     // Add these search methods:
     List<User> findByUsernameContainingIgnoreCase(String username);
+
+    // For MembershipExpiryService: one expiry date at a time, keyset-paged by id, so each page is a
+    // range scan of idx_user_membership_expiry (which ends in the id) and never a scan of all users
+    @Query("SELECT u FROM User u WHERE u.membershipExpiryDate = :expiry AND u.id > :afterId " +
+           "AND (u.expiryNoticeSentFor IS NULL OR u.expiryNoticeSentFor <> u.membershipExpiryDate) ORDER BY u.id")
+    List<User> findNotNotifiedExpiringOn(@Param("expiry") LocalDate expiry, @Param("afterId") Long afterId, Pageable pageable);
+
+    @Query("SELECT u FROM User u WHERE u.membershipExpiryDate = :expiry AND u.id > :afterId " +
+           "AND u.borrowingSuspended = false ORDER BY u.id")
+    List<User> findNotSuspendedExpiredOn(@Param("expiry") LocalDate expiry, @Param("afterId") Long afterId, Pageable pageable);
 }
@@ -0,0 +1,236 @@
+package com.example.restarter_backend.service;
+
+import com.example.restarter_backend.dto.BookLoanCount;
+import com.example.restarter_backend.dto.CategoryOverdueRate;
+import com.example.restarter_backend.dto.DailyLoanCount;
+import com.example.restarter_backend.dto.LoanCountRow;
+import com.example.restarter_backend.entity.DailyBookLoanStat;
+import com.example.restarter_backend.entity.DailyCategoryStat;
+import com.example.restarter_backend.event.LoanEvent;
+import com.example.restarter_backend.repository.DailyBookLoanStatRepository;
+import com.example.restarter_backend.repository.DailyCategoryStatRepository;
+import com.example.restarter_backend.repository.LoanRepository;
+import com.example.restarter_backend.repository.OutboxEventRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Circulation analytics over daily rollup tables (per book and per category).
+ *
+ * Rollups are incremented from loan events as they are delivered, and the previous day is
+ * rebuilt from the loans table each night so missed or failed increments do not accumulate.
+ * Dashboard queries read only the rollups.
+ *
+ * Events count on the day compaction counts them on (loan date, return date) under the category
+ * they carry. Each event's increments commit together with a mark on its outbox row, so a
+ * redelivered event adds nothing; events for a day that is already compacted only add to
+ * becameOverdue, since the loans table already has the rest.
+ */
+@Slf4j
+@Service
+public class AnalyticsService {
+
+    static final String UNCATEGORIZED = "Uncategorized";
+
+    @Autowired
+    private DailyBookLoanStatRepository dailyBookLoanStatRepository;
+
+    @Autowired
+    private DailyCategoryStatRepository dailyCategoryStatRepository;
+
+    @Autowired
+    private LoanRepository loanRepository;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private LeaseLockService leaseLockService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${app.analytics.book-retention-days:400}")
+    private int bookRetentionDays;
+
+    private TransactionTemplate requiresNew;
+
+    @PostConstruct
+    void init() {
+        requiresNew = new TransactionTemplate(transactionManager);
+        requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @EventListener
+    public void onLoanEvent(LoanEvent event) {
+        if (event.getType() != LoanEvent.Type.LOAN_CREATED && event.getType() != LoanEvent.Type.LOAN_RETURNED
+                && event.getType() != LoanEvent.Type.LOAN_OVERDUE) {
+            return;
+        }
+        try {
+            requiresNew.executeWithoutResult(status -> apply(event));
+        } catch (DataIntegrityViolationException e) {
+            // Another event inserted the same day's row first; the update path finds it now
+            requiresNew.executeWithoutResult(status -> apply(event));
+        }
+    }
+
+    private void apply(LoanEvent event) {
+        if (event.getOutboxId() != null && outboxEventRepository.markAnalyticsApplied(event.getOutboxId()) == 0) {
+            return; // already counted, or the outbox row is gone
+        }
+        String category = event.getCategory() != null ? event.getCategory() : UNCATEGORIZED;
+        switch (event.getType()) {
+            case LOAN_CREATED -> {
+                LocalDate day = dayOf(event.getLoanDate(), event);
+                if (!dailyCategoryStatRepository.existsByStatDateAndCompactedTrue(day)) {
+                    incrementBook(day, event.getBookId(), 1, 0);
+                    incrementCategory(day, category, 1, 0, 0, 0);
+                }
+            }
+            case LOAN_RETURNED -> {
+                LocalDate day = dayOf(event.getReturnDate(), event);
+                if (!dailyCategoryStatRepository.existsByStatDateAndCompactedTrue(day)) {
+                    int late = event.getDueDate() != null && day.isAfter(event.getDueDate()) ? 1 : 0;
+                    incrementBook(day, event.getBookId(), 0, 1);
+                    incrementCategory(day, category, 0, 1, late, 0);
+                }
+            }
+            case LOAN_OVERDUE -> incrementCategory(event.getOccurredAt().toLocalDate(), category, 0, 0, 0, 1);
+            default -> { }
+        }
+    }
+
+    // Events written before the loan dates were recorded fall back to when they happened (and to
+    // UNCATEGORIZED); the nightly compaction corrects their created and returned counts
+    private static LocalDate dayOf(LocalDate date, LoanEvent event) {
+        return date != null ? date : event.getOccurredAt().toLocalDate();
+    }
+
+    // Rebuilds yesterday once the day is closed; only one node does it
+    @Scheduled(cron = "${app.analytics.compaction-cron:0 15 2 * * ?}") // Runs every day at 2:15 AM by default
+    public void compactYesterday() {
+        leaseLockService.runLocked("analytics-compaction", Duration.ofMinutes(30), Duration.ofMinutes(10), () -> {
+            compactDay(LocalDate.now().minusDays(1));
+            int purged = requiresNew.execute(status ->
+                    dailyBookLoanStatRepository.deleteBefore(LocalDate.now().minusDays(bookRetentionDays)));
+            if (purged > 0) {
+                log.info("Purged {} per-book rollup rows older than {} days", purged, bookRetentionDays);
+            }
+        });
+    }
+
+    /**
+     * Replaces the created/returned counts of one day with counts from the loans table.
+     * becameOverdue is kept: the loans table does not record when a loan went overdue.
+     */
+    public void compactDay(LocalDate day) {
+        requiresNew.executeWithoutResult(status -> {
+            List<LoanCountRow> created = loanRepository.countCreatedOn(day);
+            List<LoanCountRow> returned = loanRepository.countReturnedOn(day);
+            List<LoanCountRow> returnedLate = loanRepository.countReturnedLateOn(day);
+
+            dailyBookLoanStatRepository.deleteByDay(day);
+            Map<Long, DailyBookLoanStat> books = new HashMap<>();
+            for (LoanCountRow row : created) {
+                books.computeIfAbsent(row.getBookId(), id -> new DailyBookLoanStat(day, id, 0, 0))
+                        .setLoansCreated(row.getCount().intValue());
+            }
+            for (LoanCountRow row : returned) {
+                books.computeIfAbsent(row.getBookId(), id -> new DailyBookLoanStat(day, id, 0, 0))
+                        .setLoansReturned(row.getCount().intValue());
+            }
+            dailyBookLoanStatRepository.saveAll(books.values());
+
+            Map<String, DailyCategoryStat> categories = new HashMap<>();
+            for (DailyCategoryStat stat : dailyCategoryStatRepository.findByStatDate(day)) {
+                stat.setLoansCreated(0);
+                stat.setLoansReturned(0);
+                stat.setReturnedLate(0);
+                categories.put(stat.getCategory(), stat);
+            }
+            for (LoanCountRow row : created) {
+                DailyCategoryStat stat = categoryRow(categories, day, row.getCategory());
+                stat.setLoansCreated(stat.getLoansCreated() + row.getCount().intValue());
+            }
+            for (LoanCountRow row : returned) {
+                DailyCategoryStat stat = categoryRow(categories, day, row.getCategory());
+                stat.setLoansReturned(stat.getLoansReturned() + row.getCount().intValue());
+            }
+            for (LoanCountRow row : returnedLate) {
+                DailyCategoryStat stat = categoryRow(categories, day, row.getCategory());
+                stat.setReturnedLate(stat.getReturnedLate() + row.getCount().intValue());
+            }
+            categories.values().forEach(stat -> stat.setCompacted(true));
+            dailyCategoryStatRepository.saveAll(categories.values());
+            log.info("Analytics rollups for {} rebuilt: {} books, {} categories", day, books.size(), categories.size());
+        });
+    }
+
+    @Transactional(readOnly = true)
+    public List<BookLoanCount> getTopBooks(LocalDate from, LocalDate to, int limit) {
+        return dailyBookLoanStatRepository.findTopBooks(from, to, PageRequest.of(0, limit));
+    }
+
+    @Transactional(readOnly = true)
+    public List<DailyLoanCount> getLoansPerDay(LocalDate from, LocalDate to) {
+        return dailyCategoryStatRepository.findLoansPerDay(from, to);
+    }
+
+    @Transactional(readOnly = true)
+    public List<CategoryOverdueRate> getOverdueRates(LocalDate from, LocalDate to) {
+        return dailyCategoryStatRepository.findOverdueRates(from, to);
+    }
+
+    // Both increments run in the caller's transaction (apply)
+    private void incrementBook(LocalDate day, Long bookId, int created, int returned) {
+        if (bookId == null) {
+            return;
+        }
+        upsert(() -> dailyBookLoanStatRepository.increment(day, bookId, created, returned),
+                () -> dailyBookLoanStatRepository.save(new DailyBookLoanStat(day, bookId, created, returned)));
+    }
+
+    private void incrementCategory(LocalDate day, String category, int created, int returned, int returnedLate,
+                                   int becameOverdue) {
+        upsert(() -> dailyCategoryStatRepository.increment(day, category, created, returned, returnedLate, becameOverdue),
+                () -> {
+                    DailyCategoryStat stat = new DailyCategoryStat(day, category);
+                    stat.setLoansCreated(created);
+                    stat.setLoansReturned(returned);
+                    stat.setReturnedLate(returnedLate);
+                    stat.setBecameOverdue(becameOverdue);
+                    dailyCategoryStatRepository.save(stat);
+                });
+    }
+
+    // Update first (the common case), else insert the first row of the day. If another thread inserted
+    // it meanwhile, the insert fails and onLoanEvent reruns the whole event
+    private void upsert(Supplier<Integer> update, Runnable insert) {
+        if (update.get() == 0) {
+            insert.run();
+        }
+    }
+
+    private static DailyCategoryStat categoryRow(Map<String, DailyCategoryStat> categories, LocalDate day, String category) {
+        return categories.computeIfAbsent(category == null ? UNCATEGORIZED : category, c -> new DailyCategoryStat(day, c));
+    }
+}
@@ -0,0 +1,294 @@
+package com.example.restarter_backend.service;
+
+import com.example.restarter_backend.entity.Book;
+import com.example.restarter_backend.entity.BookCopy;
+import com.example.restarter_backend.entity.Loan;
+import com.example.restarter_backend.repository.BookCopyRepository;
+import com.example.restarter_backend.repository.BookRepository;
+import com.example.restarter_backend.repository.LoanRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Hibernate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Per-copy inventory. A title's Book.copiesAvailable counts its AVAILABLE copies and
+ * Book.status follows from it (AVAILABLE while the count is above zero, BORROWED otherwise;
+ * RESERVED is set by librarians and left alone). Every method runs in the caller's transaction
+ * and changes the copy rows and the counter together, under a row lock on the book.
+ *
+ * Lock order is always copies first, book row last: checkouts lock one free copy (skipping
+ * copies other checkouts hold) and take the book row for the tail of the transaction only.
+ */
+@Slf4j
+@Service
+public class BookCopyService {
+
+    private static final int BACKFILL_BATCH_SIZE = 500;
+
+    @Autowired
+    private BookCopyRepository bookCopyRepository;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private LoanRepository loanRepository;
+
+    @Autowired
+    private CatalogVersion catalogVersion;
+
+    @Autowired
+    private LeaseLockService leaseLockService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${app.copies.backfill-on-startup:true}")
+    private boolean backfillOnStartup;
+
+    private TransactionTemplate requiresNew;
+
+    @PostConstruct
+    void init() {
+        requiresNew = new TransactionTemplate(transactionManager);
+        requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Takes a free copy of the book for a new loan and decrements the counter.
+     * Empty when every copy is out (or held by a checkout that has not committed yet).
+     */
+    @Transactional
+    public Optional<BookCopy> allocate(Book book) {
+        List<BookCopy> free = bookCopyRepository.findFreeForUpdate(book.getId(), BookCopy.Status.AVAILABLE, PageRequest.of(0, 1));
+        if (free.isEmpty() && ensureCopies(book)) {
+            // Title from before copies were tracked: its copies exist now
+            free = bookCopyRepository.findFreeForUpdate(book.getId(), BookCopy.Status.AVAILABLE, PageRequest.of(0, 1));
+        }
+        if (free.isEmpty()) {
+            return Optional.empty();
+        }
+        BookCopy copy = free.get(0);
+        copy.setStatus(BookCopy.Status.ON_LOAN);
+        adjustAvailable(book, -1);
+        return Optional.of(copy);
+    }
+
+    /**
+     * Puts the loan's copy back on the shelf and increments the counter.
+     */
+    @Transactional
+    public void release(Loan loan) {
+        // Loan.book is lazy, and refresh() skips an uninitialized proxy (and with it the row lock)
+        Book book = Hibernate.unproxy(loan.getBook(), Book.class);
+        if (loan.getCopy() == null) {
+            // Loan from before copies were tracked: backfill the title (attaches the loan if it is still outstanding)
+            ensureCopies(book);
+        }
+        BookCopy copy = loan.getCopy();
+        if (copy == null) {
+            recount(book);
+            return;
+        }
+        if (copy.getStatus() == BookCopy.Status.ON_LOAN) {
+            copy.setStatus(BookCopy.Status.AVAILABLE);
+            adjustAvailable(book, 1);
+        }
+    }
+
+    /**
+     * Creates the copies of a newly catalogued title: one per copiesAvailable, or a single
+     * copy when the count is not given.
+     */
+    @Transactional
+    public void createInitialCopies(Book book) {
+        int copies = book.getCopiesAvailable() != null ? Math.max(0, book.getCopiesAvailable()) : 1;
+        addCopies(book, copies, 0);
+        book.setCopiesAvailable(copies);
+        applyDerivedStatus(book);
+    }
+
+    /**
+     * Brings the number of available copies to the requested count: adds copies, or withdraws
+     * copies that are on the shelf. Copies out on loan are never withdrawn, so the result
+     * can stay above the request.
+     *
+     * @return the available count after the change
+     */
+    @Transactional
+    public int setAvailableCopies(Book book, int requested) {
+        ensureCopies(book);
+        int available = countAvailable(book);
+        entityManager.refresh(book, LockModeType.PESSIMISTIC_WRITE);
+        if (requested > available) {
+            addCopies(book, requested - available, (int) bookCopyRepository.countByBookId(book.getId()));
+            available = requested;
+        } else if (requested < available) {
+            List<BookCopy> shelf = bookCopyRepository.findFreeForUpdate(book.getId(), BookCopy.Status.AVAILABLE,
+                    PageRequest.of(0, available - requested));
+            shelf.forEach(copy -> copy.setStatus(BookCopy.Status.WITHDRAWN));
+            available -= shelf.size();
+        }
+        book.setCopiesAvailable(available);
+        applyDerivedStatus(book);
+        catalogVersion.bumpAfterCommit();
+        return available;
+    }
+
+    /**
+     * Resets the counter and status from the copy rows. While it runs, checkouts of the title
+     * skip the copies it has read-locked.
+     *
+     * @return true if the book was changed
+     */
+    @Transactional
+    public boolean recount(Book book) {
+        if (!bookCopyRepository.existsByBookId(book.getId())) {
+            return false; // Not backfilled yet: counter still means "copies owned"
+        }
+        int available = countAvailable(book);
+        entityManager.refresh(book, LockModeType.PESSIMISTIC_WRITE);
+        Book.Status status = book.getStatus();
+        Integer previous = book.getCopiesAvailable();
+        book.setCopiesAvailable(available);
+        applyDerivedStatus(book);
+        boolean changed = previous == null || previous != available || status != book.getStatus();
+        if (changed) {
+            catalogVersion.bumpAfterCommit();
+        }
+        return changed;
+    }
+
+    @Transactional
+    public void deleteCopies(Long bookId) {
+        bookCopyRepository.deleteByBookId(bookId);
+    }
+
+    /**
+     * Creates copies for titles catalogued before copies were tracked. Batches run in their own
+     * transactions under a lease, so only one node does the work; checkouts of titles not reached
+     * yet backfill their title on demand (see allocate).
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillOnStartup() {
+        if (!backfillOnStartup) {
+            return;
+        }
+        leaseLockService.runLocked("book-copy-backfill", Duration.ofHours(1), Duration.ZERO, () -> {
+            long afterId = 0L;
+            int batches = 0;
+            while (true) {
+                long from = afterId;
+                Long last = requiresNew.execute(status -> backfillBatch(from));
+                if (last == null) {
+                    break;
+                }
+                batches++;
+                afterId = last;
+            }
+            if (batches > 0) {
+                log.info("Book copy backfill finished: {} batch(es) of up to {} titles", batches, BACKFILL_BATCH_SIZE);
+            }
+        });
+    }
+
+    // Returns the last book id of the batch, or null when no title is left without copies
+    private Long backfillBatch(long afterId) {
+        List<Book> books = bookRepository.findWithoutCopies(afterId, PageRequest.of(0, BACKFILL_BATCH_SIZE));
+        for (Book book : books) {
+            ensureCopies(book);
+        }
+        return books.isEmpty() ? null : books.get(books.size() - 1).getId();
+    }
+
+    /**
+     * Creates the copies of a title that has none. Before copies were tracked copiesAvailable held
+     * the number of copies owned and was not decremented by loans, so the title gets that many
+     * copies (at least one per outstanding loan), and outstanding loans are attached to them.
+     *
+     * @return true if copies were created
+     */
+    private boolean ensureCopies(Book book) {
+        if (bookCopyRepository.existsByBookId(book.getId())) {
+            return false;
+        }
+        entityManager.refresh(book, LockModeType.PESSIMISTIC_WRITE);
+        if (bookCopyRepository.existsByBookId(book.getId())) {
+            return false; // Backfilled by a concurrent transaction
+        }
+        List<Loan> outstanding = loanRepository.findByBookIdAndStatusInAndCopyIsNull(
+                book.getId(), List.of(Loan.Status.ACTIVE, Loan.Status.OVERDUE));
+        int owned = book.getCopiesAvailable() != null ? Math.max(0, book.getCopiesAvailable()) : 1;
+        int total = Math.max(owned, outstanding.size());
+        List<BookCopy> copies = addCopies(book, total, 0);
+        for (int i = 0; i < outstanding.size(); i++) {
+            BookCopy copy = copies.get(i);
+            copy.setStatus(BookCopy.Status.ON_LOAN);
+            outstanding.get(i).setCopy(copy);
+        }
+        book.setCopiesAvailable(total - outstanding.size());
+        applyDerivedStatus(book);
+        catalogVersion.bumpAfterCommit();
+        return true;
+    }
+
+    private List<BookCopy> addCopies(Book book, int count, int existing) {
+        List<BookCopy> copies = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            copies.add(new BookCopy(book, barcode(book, existing + i), BookCopy.Status.AVAILABLE));
+        }
+        return bookCopyRepository.saveAll(copies);
+    }
+
+    private void adjustAvailable(Book book, int delta) {
+        entityManager.flush(); // refresh would drop pending changes (e.g. a backfill of this title)
+        // Locking refresh: reads the committed counter and holds the row until commit
+        entityManager.refresh(book, LockModeType.PESSIMISTIC_WRITE);
+        int current = book.getCopiesAvailable() != null ? book.getCopiesAvailable() : 0;
+        book.setCopiesAvailable(Math.max(0, current + delta));
+        applyDerivedStatus(book);
+        catalogVersion.bumpAfterCommit(); // Availability is part of the public catalog responses
+    }
+
+    // Locking read: waits for checkouts in flight and sees their committed result, not this
+    // transaction's snapshot. Taken before the book row lock, in the same order as checkouts
+    private int countAvailable(Book book) {
+        return (int) bookCopyRepository.findByBookIdForShare(book.getId(), BookCopy.Status.WITHDRAWN).stream()
+                .filter(copy -> copy.getStatus() == BookCopy.Status.AVAILABLE)
+                .count();
+    }
+
+    // AVAILABLE while a copy is on the shelf, BORROWED otherwise; RESERVED is kept
+    static void applyDerivedStatus(Book book) {
+        if (book.getStatus() == Book.Status.RESERVED) {
+            return;
+        }
+        book.setStatus(book.getCopiesAvailable() != null && book.getCopiesAvailable() > 0
+                ? Book.Status.AVAILABLE : Book.Status.BORROWED);
+    }
+
+    private static String barcode(Book book, int sequence) {
+        return String.format("%d-%04d", book.getId(), sequence);
+    }
+}
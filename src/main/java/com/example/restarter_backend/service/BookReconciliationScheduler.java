@@ -0,0 +1,33 @@
+package com.example.restarter_backend.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+
+/**
+ * Nightly repair of Book.copiesAvailable and Book.status against the BookCopy rows, in parallel
+ * id ranges. Catches counters left wrong by a manual data fix.
+ */
+@Service
+public class BookReconciliationScheduler {
+
+    static final String JOB_NAME = "book-status-reconciliation";
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private PartitionedJobRunner partitionedJobRunner;
+
+    @Value("${app.jobs.book-reconciliation.partition-size:20000}")
+    private long partitionSize;
+
+    @Scheduled(cron = "${app.jobs.book-reconciliation.cron:0 30 2 * * ?}") // Runs every day at 2:30 AM by default
+    public void reconcileBookStatus() {
+        partitionedJobRunner.run(JOB_NAME, LocalDate.now().toString(), bookService.getMaxBookId(), partitionSize,
+                bookService::reconcileStatusInIdRange);
+    }
+}
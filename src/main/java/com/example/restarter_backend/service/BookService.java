@@ -1,53 +1,223 @@
 package com.example.restarter_backend.service;
 
+import com.example.restarter_backend.dto.BookCopyCount;
+import com.example.restarter_backend.dto.BookFacetCount;
 import com.example.restarter_backend.entity.Book;
+import com.example.restarter_backend.entity.BookCopy;
+import com.example.restarter_backend.repository.BookCopyRepository;
 import com.example.restarter_backend.repository.BookRepository;
+import com.example.restarter_backend.repository.LoanHistoryRepository;
+import com.example.restarter_backend.util.SingleFlight;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.TreeMap;
 
 @Service
 public class BookService {
     @Autowired
     private BookRepository bookRepository;
 
+    @Autowired
+    private CatalogVersion catalogVersion;
+
+    @Autowired
+    private BookCopyRepository bookCopyRepository;
+
+    @Autowired
+    private BookCopyService bookCopyService;
+
+    @Autowired
+    private LoanHistoryRepository loanHistoryRepository;
+
+    // Request coalescing for the public catalog reads (searchBooks, getBookById)
+    @Value("${app.catalog.coalesce.memoize-ms:250}")
+    private long memoizeMillis;
+
+    @Value("${app.catalog.coalesce.max-entries:10000}")
+    private int maxCoalescedEntries;
+
+    private SingleFlight<String, List<Book>> searchFlights;
+    private SingleFlight<String, Optional<Book>> bookFlights;
+
+    @PostConstruct
+    void init() {
+        searchFlights = new SingleFlight<>(memoizeMillis, maxCoalescedEntries);
+        bookFlights = new SingleFlight<>(memoizeMillis, maxCoalescedEntries);
+    }
+
+    @Transactional(readOnly = true)
     public List<Book> getAllBooks() {
         return bookRepository.findAll();
     }
 
+    // Coalesced: see searchBooks
     public Optional<Book> getBookById(Long id) {
-        return bookRepository.findById(id);
+        return bookFlights.execute(catalogVersion.current() + ":" + id, () -> bookRepository.findById(id));
     }
 
+    @Transactional
     public Book addBook(Book book) {
-        return bookRepository.save(book);
+        Book saved = bookRepository.save(book);
+        bookCopyService.createInitialCopies(saved); // copiesAvailable is the number of copies to create
+        catalogVersion.bumpAfterCommit();
+        return saved;
     }
 
+    @Transactional // Read-modify-write: the read must not go to the replica
     public Book updateBook(Long id, Book bookDetails) {
         Book book = bookRepository.findById(id).orElseThrow();
+        // Copies first: it reloads the book under a row lock
+        if (bookDetails.getCopiesAvailable() != null) {
+            bookCopyService.setAvailableCopies(book, Math.max(0, bookDetails.getCopiesAvailable()));
+        }
         book.setIsbn(bookDetails.getIsbn());
         book.setTitle(bookDetails.getTitle());
         book.setAuthor(bookDetails.getAuthor());
         book.setCategory(bookDetails.getCategory());
         book.setPublicationYear(bookDetails.getPublicationYear());
-        book.setCopiesAvailable(bookDetails.getCopiesAvailable());
-        book.setStatus(bookDetails.getStatus());
-        return bookRepository.save(book);
+        // Only RESERVED is set by hand; AVAILABLE / BORROWED follow the copies on the shelf
+        if (bookDetails.getStatus() == Book.Status.RESERVED) {
+            book.setStatus(Book.Status.RESERVED);
+        } else if (bookDetails.getStatus() != null && book.getStatus() == Book.Status.RESERVED) {
+            book.setStatus(null);
+            BookCopyService.applyDerivedStatus(book);
+        }
+        Book saved = bookRepository.save(book);
+        catalogVersion.bumpAfterCommit();
+        return saved;
     }
 
+    @Transactional
     public void deleteBook(Long id) {
+        // Archived loans keep pointing at the book and its copies (loan_history has no foreign keys)
+        if (loanHistoryRepository.existsByBookId(id)) {
+            throw new RuntimeException("Cannot delete book: it has archived loans.");
+        }
+        bookCopyService.deleteCopies(id);
         bookRepository.deleteById(id);
+        catalogVersion.bumpAfterCommit();
     }
 
+    /**
+     * Identical concurrent searches share one LIKE query (SingleFlight). The key carries the
+     * catalog version, read before the query as for the ETags, so a write is never hidden by the
+     * memoization window. Not @Transactional: callers that join a query never take a connection,
+     * the repository call opens its own read-only transaction.
+     */
     public List<Book> searchBooks(String keyword) {
-        return bookRepository.findByTitleContainingIgnoreCaseOrAuthorContainingIgnoreCaseOrIsbnContainingIgnoreCaseOrCategoryContainingIgnoreCase(
-            keyword, keyword, keyword, keyword
-        );
+        // The search is case-insensitive, so differently cased keywords can share a query
+        String key = catalogVersion.current() + ":" + String.valueOf(keyword).toLowerCase(Locale.ROOT);
+        return searchFlights.execute(key, () ->
+            bookRepository.findByTitleContainingIgnoreCaseOrAuthorContainingIgnoreCaseOrIsbnContainingIgnoreCaseOrCategoryContainingIgnoreCase(
+                keyword, keyword, keyword, keyword
+            ));
     }
 
+    public Map<String, Object> getCoalescingStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("memoizeMillis", memoizeMillis);
+        stats.put("search", searchFlights.stats());
+        stats.put("byId", bookFlights.stats());
+        return stats;
+    }
+
+    @Transactional(readOnly = true)
     public List<Book> getAvailableBooks(Book.Status status) {
     return bookRepository.findByStatus(status); 
 }
+
+    /**
+     * Paged status filter, optionally narrowed by category and publication-year range.
+     */
+    @Transactional(readOnly = true)
+    public Page<Book> getBooksByStatus(Book.Status status, String category, Integer fromYear, Integer toYear, Pageable pageable) {
+        return bookRepository.findByStatusFiltered(status, category, fromYear, toYear, pageable);
+    }
+
+    /**
+     * Facet counts per status, per category and per (status, category) pair,
+     * all built from a single grouped query.
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Object> getStatusFacets() {
+        Map<String, Long> byStatus = new LinkedHashMap<>();
+        for (Book.Status status : Book.Status.values()) {
+            byStatus.put(status.name(), 0L);
+        }
+        Map<String, Long> byCategory = new TreeMap<>();
+        List<Map<String, Object>> byStatusAndCategory = new ArrayList<>();
+        long total = 0;
+
+        for (BookFacetCount facet : bookRepository.findStatusCategoryFacets()) {
+            String category = facet.getCategory() != null ? facet.getCategory() : "Uncategorized";
+            String status = facet.getStatus() != null ? facet.getStatus().name() : "UNKNOWN";
+            byStatus.merge(status, facet.getCount(), Long::sum);
+            byCategory.merge(category, facet.getCount(), Long::sum);
+
+            Map<String, Object> pair = new LinkedHashMap<>();
+            pair.put("status", status);
+            pair.put("category", category);
+            pair.put("count", facet.getCount());
+            byStatusAndCategory.add(pair);
+            total += facet.getCount();
+        }
+
+        Map<String, Object> facets = new LinkedHashMap<>();
+        facets.put("total", total);
+        facets.put("byStatus", byStatus);
+        facets.put("byCategory", byCategory);
+        facets.put("byStatusAndCategory", byStatusAndCategory);
+        return facets;
+    }
+
+    /**
+     * Repairs Book.copiesAvailable and Book.status for one id range from the BookCopy rows.
+     * Candidates come from one grouped count; each mismatch is recounted under the book lock,
+     * so checkouts committed in the meantime are not overwritten. Titles without copies are skipped.
+     *
+     * @return the number of books corrected
+     */
+    @Transactional
+    public int reconcileStatusInIdRange(long fromId, long toId) {
+        Map<Long, BookCopyCount> counts = new HashMap<>();
+        for (BookCopyCount count : bookCopyRepository.countByBookInIdRange(
+                BookCopy.Status.AVAILABLE, BookCopy.Status.WITHDRAWN, fromId, toId)) {
+            counts.put(count.getBookId(), count);
+        }
+        int corrected = 0;
+        for (Book book : bookRepository.findByIdBetween(fromId, toId)) {
+            BookCopyCount count = counts.get(book.getId());
+            if (count == null) {
+                continue;
+            }
+            int available = count.getAvailable().intValue();
+            Book.Status expected = book.getStatus() == Book.Status.RESERVED ? Book.Status.RESERVED
+                    : available > 0 ? Book.Status.AVAILABLE : Book.Status.BORROWED;
+            boolean matches = book.getCopiesAvailable() != null && book.getCopiesAvailable() == available
+                    && book.getStatus() == expected;
+            if (!matches && bookCopyService.recount(book)) {
+                corrected++;
+            }
+        }
+        return corrected;
+    }
+
+    @Transactional(readOnly = true)
+    public long getMaxBookId() {
+        Long maxId = bookRepository.findMaxId();
+        return maxId == null ? 0L : maxId;
+    }
 }
\ No newline at end of file
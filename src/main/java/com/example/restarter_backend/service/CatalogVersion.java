@@ -0,0 +1,142 @@
+package com.example.restarter_backend.service;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Modification counter for the public catalog. Every write that can change a
+ * catalog response bumps it, and the catalog endpoints derive their ETags from it,
+ * so a conditional GET can be answered without touching the repository.
+ *
+ * The counter is a row in the database (catalog_version), bumped inside the writing
+ * transaction, so every instance sees every write. Each instance reads it at most once
+ * per ttl-ms: another instance's write can take that long to change the ETags here.
+ */
+@Component
+public class CatalogVersion {
+
+    private static final Object BUMP_REGISTERED = new Object();
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${app.catalog.version-ttl-ms:1000}")
+    private long ttlMillis;
+
+    private TransactionTemplate primaryRead;
+    private volatile long version = -1;
+    private volatile long readAtNanos;
+
+    @PostConstruct
+    void init() {
+        // Own read-write transaction: inside a read-only one the read would go to the replica, which may lag
+        primaryRead = new TransactionTemplate(transactionManager);
+        primaryRead.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    public long current() {
+        if (version < 0 || System.nanoTime() - readAtNanos > TimeUnit.MILLISECONDS.toNanos(ttlMillis)) {
+            refresh();
+        }
+        return version;
+    }
+
+    public String eTag() {
+        return "\"catalog-" + current() + "\"";
+    }
+
+    /**
+     * Bumps the version as the last statement of the current transaction (once, however many
+     * writes it made), or right away when there is no transaction. The row lock is held only
+     * for the commit, and the bump becomes visible together with the rows it stands for.
+     */
+    public void bumpAfterCommit() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            bump();
+            return;
+        }
+        if (TransactionSynchronizationManager.hasResource(BUMP_REGISTERED)) {
+            return;
+        }
+        TransactionSynchronizationManager.bindResource(BUMP_REGISTERED, Boolean.TRUE);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                bump();
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(BUMP_REGISTERED);
+                if (status == STATUS_COMMITTED) {
+                    readAtNanos = 0; // this instance sees its own write at once
+                    version = -1;
+                }
+            }
+        });
+    }
+
+    /**
+     * Checks an If-None-Match header against the current ETag. Weak validators are
+     * accepted, since response compression weakens the ETag on the way out. "*" is not:
+     * the check runs before it is known whether the requested resource exists.
+     */
+    public boolean matches(String ifNoneMatch, String eTag) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals(eTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void bump() {
+        if (jdbcTemplate.update("UPDATE catalog_version SET version = version + 1 WHERE id = 1") == 0) {
+            insertRow(1);
+        }
+    }
+
+    private void refresh() {
+        Long read = primaryRead.execute(status -> {
+            List<Long> rows = jdbcTemplate.queryForList("SELECT version FROM catalog_version WHERE id = 1", Long.class);
+            return rows.isEmpty() ? insertRow(0) : rows.get(0);
+        });
+        version = read != null ? read : 0;
+        readAtNanos = System.nanoTime();
+    }
+
+    // First use against a new database; another instance may create the row at the same time
+    private long insertRow(long initial) {
+        try {
+            jdbcTemplate.update("INSERT INTO catalog_version (id, version) VALUES (1, ?)", initial);
+            return initial;
+        } catch (DuplicateKeyException e) {
+            if (initial > 0) {
+                jdbcTemplate.update("UPDATE catalog_version SET version = version + 1 WHERE id = 1");
+            }
+            return jdbcTemplate.queryForObject("SELECT version FROM catalog_version WHERE id = 1", Long.class);
+        }
+    }
+}
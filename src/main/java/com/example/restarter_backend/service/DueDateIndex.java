@@ -0,0 +1,138 @@
+package com.example.restarter_backend.service;
+
+import com.example.restarter_backend.entity.Loan;
+import com.example.restarter_backend.event.LoanEvent;
+import com.example.restarter_backend.repository.LoanRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * In-memory buckets of ACTIVE loan ids by due date (day -> loan ids). The nightly overdue
+ * sweep reads only the buckets that have expired, so its cost follows the number of loans
+ * that change state, not the size of the active set.
+ *
+ * Filled from the database at startup and kept current by loan events. It may hold
+ * stale ids (returned or renewed since), so callers re-check the loan row before acting.
+ * The index only sees events published on this node, so it serves the single-node sweep
+ * (LoanService.updateAllOverdueLoans); cluster mode sweeps the database in id ranges instead.
+ */
+@Slf4j
+@Component
+public class DueDateIndex {
+
+    private static final int LOAD_BATCH_SIZE = 10_000;
+
+    @Autowired
+    private LoanRepository loanRepository;
+
+    private final TreeMap<LocalDate, Set<Long>> buckets = new TreeMap<>();
+    private final Map<Long, LocalDate> dueDateByLoan = new HashMap<>();
+    private volatile boolean loaded;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        long afterId = 0L;
+        int count = 0;
+        while (true) {
+            List<LoanRepository.LoanDueDate> batch = loanRepository.findByStatusAndIdGreaterThanOrderByIdAsc(
+                    Loan.Status.ACTIVE, afterId, PageRequest.of(0, LOAD_BATCH_SIZE));
+            for (LoanRepository.LoanDueDate row : batch) {
+                if (row.getDueDate() != null) {
+                    add(row.getId(), row.getDueDate());
+                }
+            }
+            count += batch.size();
+            if (batch.size() < LOAD_BATCH_SIZE) {
+                break;
+            }
+            afterId = batch.get(batch.size() - 1).getId();
+        }
+        loaded = true;
+        log.info("Due-date index loaded: {} active loans in {} buckets", count, bucketCount());
+    }
+
+    // Redelivered events are harmless: add and remove set the loan's state rather than count
+    @EventListener
+    public void onLoanEvent(LoanEvent event) {
+        switch (event.getType()) {
+            case LOAN_CREATED, LOAN_RENEWED -> add(event.getLoanId(), event.getDueDate());
+            case LOAN_RETURNED, LOAN_OVERDUE -> remove(event.getLoanId());
+            default -> { }
+        }
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    public synchronized void add(Long loanId, LocalDate dueDate) {
+        if (loanId == null || dueDate == null) {
+            return;
+        }
+        LocalDate previous = dueDateByLoan.put(loanId, dueDate);
+        if (previous != null && !previous.equals(dueDate)) {
+            removeFromBucket(previous, loanId);
+        }
+        buckets.computeIfAbsent(dueDate, day -> new HashSet<>()).add(loanId);
+    }
+
+    public synchronized void remove(Long loanId) {
+        LocalDate previous = dueDateByLoan.remove(loanId);
+        if (previous != null) {
+            removeFromBucket(previous, loanId);
+        }
+    }
+
+    /**
+     * Ids of loans whose due date is before the given day.
+     */
+    public synchronized List<Long> expiredLoanIds(LocalDate today) {
+        List<Long> ids = new ArrayList<>();
+        for (Set<Long> bucket : buckets.headMap(today, false).values()) {
+            ids.addAll(bucket);
+        }
+        return ids;
+    }
+
+    /**
+     * Drops every bucket before the given day, once the sweep has handled them.
+     */
+    public synchronized void evictBefore(LocalDate today) {
+        Map<LocalDate, Set<Long>> expired = buckets.headMap(today, false);
+        for (Set<Long> bucket : expired.values()) {
+            bucket.forEach(dueDateByLoan::remove);
+        }
+        expired.clear();
+    }
+
+    public synchronized int size() {
+        return dueDateByLoan.size();
+    }
+
+    public synchronized int bucketCount() {
+        return buckets.size();
+    }
+
+    private void removeFromBucket(LocalDate day, Long loanId) {
+        Set<Long> bucket = buckets.get(day);
+        if (bucket != null) {
+            bucket.remove(loanId);
+            if (bucket.isEmpty()) {
+                buckets.remove(day);
+            }
+        }
+    }
+}
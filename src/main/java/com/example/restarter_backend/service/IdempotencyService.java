@@ -0,0 +1,301 @@
+package com.example.restarter_backend.service;
+
+import com.example.restarter_backend.entity.IdempotencyRecord;
+import com.example.restarter_backend.repository.IdempotencyRecordRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Idempotency-Key handling for the loan endpoints. The first request with a key claims it in
+ * idempotency_record and runs; its response (2xx or 4xx) is stored for app.idempotency.ttl-hours.
+ * Repeats with the same key get the stored response back without running the request again,
+ * from a bounded in-memory cache on the node that has seen it, or from the table on any other node.
+ *
+ * A repeat that arrives while the first request is still running gets 409. Keys are scoped by
+ * user, method and path, so two users (or a create and a return) never share one.
+ *
+ * A claim only expires when its node stops renewing it (renew-ms), so a slow request keeps its
+ * key. Once the action has run, its key is never freed for a rerun: if the response cannot be
+ * stored, the claim is held for ttl-hours and repeats get 409 instead of running it again.
+ */
+@Slf4j
+@Service
+public class IdempotencyService {
+
+    public static final String HEADER = "Idempotency-Key";
+    private static final int MAX_KEY_LENGTH = 255;
+
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${app.idempotency.ttl-hours:24}")
+    private long ttlHours;
+
+    // A claim not renewed for this long is treated as abandoned (the node died mid-request)
+    @Value("${app.idempotency.in-progress-timeout-seconds:60}")
+    private long inProgressTimeoutSeconds;
+
+    @Value("${app.idempotency.cache-size:10000}")
+    private int cacheSize;
+
+    private TransactionTemplate requiresNew;
+    private Map<String, StoredResponse> cache;
+    // Claims held by requests running on this node, renewed by renewClaims
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+
+    private final AtomicLong executed = new AtomicLong();
+    private final AtomicLong replayedFromCache = new AtomicLong();
+    private final AtomicLong replayedFromDatabase = new AtomicLong();
+    private final AtomicLong conflicts = new AtomicLong();
+
+    @PostConstruct
+    void init() {
+        requiresNew = new TransactionTemplate(transactionManager);
+        requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        // Access-ordered LRU: a retry storm keeps its key at the young end
+        cache = Collections.synchronizedMap(new LinkedHashMap<String, StoredResponse>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, StoredResponse> eldest) {
+                return size() > cacheSize;
+            }
+        });
+    }
+
+    /**
+     * Runs the action once per key, or replays its stored response. Without a key the action
+     * simply runs.
+     *
+     * @param request the request body, hashed so a key reused for a different request is refused (422)
+     */
+    public ResponseEntity<?> execute(String key, String username, String method, String path, Object request,
+                                     Supplier<ResponseEntity<?>> action) {
+        if (key == null || key.isBlank()) {
+            return action.get();
+        }
+        if (key.length() > MAX_KEY_LENGTH) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("message", HEADER + " must be at most " + MAX_KEY_LENGTH + " characters."));
+        }
+        String id = sha256(username + '\n' + method + '\n' + path + '\n' + key);
+        String requestHash = sha256(toJson(request));
+
+        StoredResponse cached = cache.get(id);
+        if (cached != null && cached.expiresAt().isAfter(LocalDateTime.now())) {
+            replayedFromCache.incrementAndGet();
+            return replay(cached, requestHash);
+        }
+
+        IdempotencyRecord existing = claim(id, requestHash);
+        if (existing != null) {
+            if (existing.getStatus() == IdempotencyRecord.Status.COMPLETED) {
+                StoredResponse stored = new StoredResponse(existing.getRequestHash(), existing.getResponseStatus(),
+                        existing.getResponseBody(), existing.getExpiresAt());
+                cache.put(id, stored);
+                replayedFromDatabase.incrementAndGet();
+                return replay(stored, requestHash);
+            }
+            conflicts.incrementAndGet();
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(Map.of("message", "A request with this " + HEADER + " is still being processed."));
+        }
+
+        executed.incrementAndGet();
+        inFlight.add(id);
+        try {
+            ResponseEntity<?> response;
+            try {
+                response = action.get();
+            } catch (RuntimeException | Error ex) {
+                release(id);
+                throw ex;
+            }
+            if (response.getStatusCode().is5xxServerError()) {
+                release(id); // Not an outcome worth replaying: let the retry run
+                return response;
+            }
+            store(id, requestHash, response);
+            return response;
+        } finally {
+            inFlight.remove(id);
+        }
+    }
+
+    // Keeps the claims of requests still running here from expiring
+    @Scheduled(fixedDelayString = "${app.idempotency.renew-ms:20000}")
+    public void renewClaims() {
+        if (inFlight.isEmpty()) {
+            return;
+        }
+        List<String> ids = List.copyOf(inFlight);
+        try {
+            requiresNew.executeWithoutResult(status -> idempotencyRecordRepository.extendClaims(
+                    ids, IdempotencyRecord.Status.IN_PROGRESS, LocalDateTime.now().plusSeconds(inProgressTimeoutSeconds)));
+        } catch (DataAccessException ex) {
+            log.warn("Cannot renew {} idempotency claims: {}", ids.size(), ex.getMessage());
+        }
+    }
+
+    // Hourly: expired records and cache entries
+    @Scheduled(cron = "${app.idempotency.purge-cron:0 5 * * * ?}")
+    public void purgeExpired() {
+        LocalDateTime now = LocalDateTime.now();
+        cache.values().removeIf(stored -> !stored.expiresAt().isAfter(now));
+        int deleted = idempotencyRecordRepository.purgeExpired(now);
+        if (deleted > 0) {
+            log.info("Purged {} expired idempotency records", deleted);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("cached", cache.size());
+        stats.put("cacheSize", cacheSize);
+        stats.put("executed", executed.get());
+        stats.put("replayedFromCache", replayedFromCache.get());
+        stats.put("replayedFromDatabase", replayedFromDatabase.get());
+        stats.put("conflicts", conflicts.get());
+        return stats;
+    }
+
+    /**
+     * Inserts the IN_PROGRESS record for the key.
+     * @return null if this request owns the key now, otherwise the record that holds it
+     */
+    private IdempotencyRecord claim(String id, String requestHash) {
+        IdempotencyRecord existing = null;
+        for (int attempt = 0; attempt < 2; attempt++) {
+            LocalDateTime now = LocalDateTime.now();
+            try {
+                requiresNew.executeWithoutResult(status -> idempotencyRecordRepository.insertClaim(
+                        id, requestHash, now, now.plusSeconds(inProgressTimeoutSeconds)));
+                return null;
+            } catch (DataIntegrityViolationException duplicate) {
+                existing = requiresNew.execute(status -> idempotencyRecordRepository.findById(id).orElse(null));
+                if (existing != null && existing.getExpiresAt().isAfter(now)) {
+                    return existing;
+                }
+                // Expired (or deleted meanwhile): free it and try once more
+                requiresNew.executeWithoutResult(status -> idempotencyRecordRepository.deleteExpired(id, now));
+            }
+        }
+        if (existing == null) {
+            // Lost the race twice to requests with the same key
+            existing = new IdempotencyRecord();
+            existing.setStatus(IdempotencyRecord.Status.IN_PROGRESS);
+        }
+        return existing;
+    }
+
+    // The action has run: whatever happens here, the client gets its response and the key stays taken
+    private void store(String id, String requestHash, ResponseEntity<?> response) {
+        LocalDateTime until = LocalDateTime.now().plus(Duration.ofHours(ttlHours));
+        String body;
+        try {
+            body = response.getBody() != null ? objectMapper.writeValueAsString(response.getBody()) : null;
+        } catch (JsonProcessingException ex) {
+            log.warn("Cannot store response for idempotency record {}: {}", id, ex.getMessage());
+            hold(id, until);
+            return;
+        }
+        int status = response.getStatusCode().value();
+        try {
+            requiresNew.executeWithoutResult(tx -> idempotencyRecordRepository.complete(
+                    id, IdempotencyRecord.Status.COMPLETED, status, body, until));
+        } catch (RuntimeException ex) {
+            log.warn("Cannot store response for idempotency record {}: {}", id, ex.getMessage());
+            hold(id, until);
+            return;
+        }
+        cache.put(id, new StoredResponse(requestHash, status, body, until));
+    }
+
+    // Keeps the claim until the given time, so repeats get 409 rather than running the action again
+    private void hold(String id, LocalDateTime until) {
+        try {
+            requiresNew.executeWithoutResult(status -> idempotencyRecordRepository.extendClaims(
+                    List.of(id), IdempotencyRecord.Status.IN_PROGRESS, until));
+        } catch (RuntimeException ex) {
+            log.error("Cannot hold idempotency record {}; a repeat after the claim times out will run again: {}",
+                    id, ex.getMessage());
+        }
+    }
+
+    private void release(String id) {
+        try {
+            requiresNew.executeWithoutResult(status -> idempotencyRecordRepository.deleteById(id));
+        } catch (RuntimeException ex) {
+            // The claim then simply times out
+            log.warn("Cannot release idempotency record {}: {}", id, ex.getMessage());
+        }
+    }
+
+    private static ResponseEntity<?> replay(StoredResponse stored, String requestHash) {
+        if (!stored.requestHash().equals(requestHash)) {
+            return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY)
+                    .body(Map.of("message", HEADER + " was already used for a different request."));
+        }
+        ResponseEntity.BodyBuilder builder = ResponseEntity.status(stored.status()).header("Idempotent-Replayed", "true");
+        if (stored.body() == null) {
+            return builder.build();
+        }
+        // Stored as JSON text: written through as is
+        return builder.contentType(MediaType.APPLICATION_JSON).body(stored.body());
+    }
+
+    private String toJson(Object request) {
+        if (request == null) {
+            return "";
+        }
+        try {
+            return objectMapper.writeValueAsString(request);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Cannot hash request body", ex);
+        }
+    }
+
+    private static String sha256(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private record StoredResponse(String requestHash, int status, String body, LocalDateTime expiresAt) {}
+}
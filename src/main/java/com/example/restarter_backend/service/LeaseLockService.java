@@ -0,0 +1,109 @@
+package com.example.restarter_backend.service;
+
+import com.example.restarter_backend.repository.SchedulerLockRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Database-backed leases so a scheduled job runs on one node at a time when several
+ * instances share the database.
+ *
+ * A lease is held until lockedUntil. lockAtMostFor bounds how long a crashed node can
+ * keep a job blocked; lockAtLeastFor keeps the lease after a quick run so nodes whose
+ * cron fires a little later (clock skew) do not run the job a second time.
+ */
+@Slf4j
+@Service
+public class LeaseLockService {
+
+    private final SchedulerLockRepository schedulerLockRepository;
+    private final TransactionTemplate requiresNew;
+    private final String nodeId;
+
+    public LeaseLockService(SchedulerLockRepository schedulerLockRepository,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${app.scheduling.node-id:}") String nodeId) {
+        this.schedulerLockRepository = schedulerLockRepository;
+        this.requiresNew = new TransactionTemplate(transactionManager);
+        this.requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.nodeId = nodeId == null || nodeId.isBlank() ? defaultNodeId() : nodeId;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * Runs the task if this node gets the lease.
+     * @return false if another node holds it
+     */
+    public boolean runLocked(String name, Duration lockAtMostFor, Duration lockAtLeastFor, Runnable task) {
+        LocalDateTime acquiredAt = tryAcquire(name, lockAtMostFor);
+        if (acquiredAt == null) {
+            log.debug("Lease {} is held by another node, skipping", name);
+            return false;
+        }
+        boolean completed = false;
+        try {
+            task.run();
+            completed = true;
+        } finally {
+            // A failed run gives the lease up at once so another node can retry it
+            LocalDateTime now = LocalDateTime.now();
+            LocalDateTime holdUntil = acquiredAt.plus(lockAtLeastFor);
+            release(name, completed && holdUntil.isAfter(now) ? holdUntil : now);
+        }
+        return true;
+    }
+
+    // Returns the acquisition time, or null if another node holds the lease
+    private LocalDateTime tryAcquire(String name, Duration lockAtMostFor) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime until = now.plus(lockAtMostFor);
+        try {
+            Integer updated = requiresNew.execute(status ->
+                    schedulerLockRepository.takeOverExpired(name, nodeId, now, until));
+            if (updated != null && updated == 1) {
+                return now;
+            }
+            requiresNew.executeWithoutResult(status -> schedulerLockRepository.insertLock(name, nodeId, now, until));
+            return now;
+        } catch (DataIntegrityViolationException e) {
+            // Row exists and is held, or another node inserted it first
+            return null;
+        } catch (DataAccessException e) {
+            log.warn("Could not acquire lease {}: {}", name, e.getMessage());
+            return null;
+        }
+    }
+
+    private void release(String name, LocalDateTime until) {
+        try {
+            requiresNew.executeWithoutResult(status -> schedulerLockRepository.release(name, nodeId, until));
+        } catch (DataAccessException e) {
+            // The lease still runs out at lockAtMostFor
+            log.warn("Could not release lease {}: {}", name, e.getMessage());
+        }
+    }
+
+    private static String defaultNodeId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            host = "unknown-host";
+        }
+        return host + ":" + ProcessHandle.current().pid();
+    }
+}
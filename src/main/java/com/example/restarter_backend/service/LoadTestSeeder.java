@@ -0,0 +1,137 @@
+package com.example.restarter_backend.service;
+
+import com.example.restarter_backend.entity.Book;
+import com.example.restarter_backend.entity.Role;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Bulk test data for the load generator in loadtest/ (loadtest profile only): members
+ * loadtest-00001.. and titles with ISBNs LT-0000001.., inserted in JDBC batches on startup.
+ * Numbering continues after the highest number already there, so restarting against the same
+ * database only tops it up, and a deleted row leaves a gap instead of a clash on the unique key.
+ * The formats must match LoadConfig in the load generator.
+ *
+ * Copies are not inserted here: the BookCopyService backfill that runs right after creates
+ * copies-per-book copies of every seeded title.
+ */
+@Slf4j
+@Component
+@Profile("loadtest")
+public class LoadTestSeeder {
+
+    private static final String USERNAME_FORMAT = "loadtest-%05d";
+    private static final String ISBN_FORMAT = "LT-%07d";
+    private static final int BATCH_SIZE = 1000;
+
+    // Enough variety for autocomplete and search to return short, realistic result lists
+    private static final String[] ADJECTIVES = {"Silent", "Hidden", "Broken", "Golden", "Distant", "Burning", "Frozen",
+            "Forgotten", "Restless", "Crimson", "Hollow", "Endless", "Quiet", "Wild", "Last", "Northern"};
+    private static final String[] NOUNS = {"River", "Garden", "Empire", "Winter", "Harbor", "Mirror", "Orchard",
+            "Kingdom", "Machine", "Lantern", "Voyage", "Archive", "Meadow", "Tide", "Citadel", "Signal", "Forest",
+            "Letter", "Bridge", "Island"};
+    private static final String[] FIRST_NAMES = {"Ada", "Bruno", "Clara", "Dmitri", "Elena", "Farid", "Grace", "Hiro",
+            "Ines", "Jonas", "Keiko", "Luis", "Maya", "Nils", "Olga", "Pavel"};
+    private static final String[] LAST_NAMES = {"Abbott", "Brennan", "Castillo", "Dorsey", "Eriksen", "Fontaine",
+            "Gallo", "Hartmann", "Ivanova", "Jensen", "Kowalski", "Lindqvist", "Moreau", "Novak", "Okafor", "Petrov",
+            "Quinn", "Rossi", "Sato", "Tanaka"};
+    private static final String[] CATEGORIES = {"Fiction", "Science Fiction", "Fantasy", "Mystery", "History",
+            "Biography", "Science", "Poetry", "Travel", "Philosophy", "Children", "Cooking"};
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private CatalogVersion catalogVersion;
+
+    @Value("${app.loadtest.users:1000}")
+    private int users;
+
+    @Value("${app.loadtest.books:5000}")
+    private int books;
+
+    @Value("${app.loadtest.copies-per-book:3}")
+    private int copiesPerBook;
+
+    @Value("${app.loadtest.password:loadtest}")
+    private String password;
+
+    // Before the copy backfill (also on ApplicationReadyEvent), so the seeded titles get their copies
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @EventListener(ApplicationReadyEvent.class)
+    public void seed() {
+        long started = System.nanoTime();
+        int newUsers = seedUsers();
+        int newBooks = seedBooks();
+        if (newBooks > 0) {
+            catalogVersion.bumpAfterCommit();
+        }
+        log.info("Load test data: {} members and {} titles added in {} ms (numbered up to {} and {})",
+                newUsers, newBooks, (System.nanoTime() - started) / 1_000_000, users, books);
+    }
+
+    private int seedUsers() {
+        int from = highestNumber("SELECT username FROM user WHERE REGEXP_LIKE(username, '^loadtest-[0-9]+$') " +
+                "ORDER BY LENGTH(username) DESC, username DESC LIMIT 1", "loadtest-".length()) + 1;
+        // One hash for everyone: BCrypt is deliberately slow, and logins still verify it per request
+        String hash = passwordEncoder.encode(password);
+        Date today = Date.valueOf(LocalDate.now());
+        Date expiry = Date.valueOf(LocalDate.now().plusYears(5));
+        List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = from; i <= users; i++) {
+            String username = String.format(USERNAME_FORMAT, i);
+            batch.add(new Object[]{username, username + "@loadtest.invalid", hash, Role.MEMBER.name(),
+                    today, expiry, "Load Test Member " + i});
+            if (batch.size() == BATCH_SIZE || i == users) {
+                jdbcTemplate.batchUpdate("INSERT INTO user (username, email, password, role, registration_date, " +
+                        "membership_expiry_date, name) VALUES (?, ?, ?, ?, ?, ?, ?)", batch);
+                batch.clear();
+            }
+        }
+        return Math.max(0, users - from + 1);
+    }
+
+    private int seedBooks() {
+        int from = highestNumber("SELECT isbn FROM book WHERE REGEXP_LIKE(isbn, '^LT-[0-9]+$') " +
+                "ORDER BY LENGTH(isbn) DESC, isbn DESC LIMIT 1", "LT-".length()) + 1;
+        List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = from; i <= books; i++) {
+            String title = ADJECTIVES[i % ADJECTIVES.length] + " " + NOUNS[(i / ADJECTIVES.length) % NOUNS.length]
+                    + (i > ADJECTIVES.length * NOUNS.length ? " " + (i / (ADJECTIVES.length * NOUNS.length) + 1) : "");
+            // About ten titles per author
+            int author = i / 10;
+            batch.add(new Object[]{String.format(ISBN_FORMAT, i), title,
+                    FIRST_NAMES[author % FIRST_NAMES.length] + " " + LAST_NAMES[(author / FIRST_NAMES.length) % LAST_NAMES.length],
+                    CATEGORIES[i % CATEGORIES.length], 1900 + i % 125, copiesPerBook, Book.Status.AVAILABLE.name()});
+            if (batch.size() == BATCH_SIZE || i == books) {
+                jdbcTemplate.batchUpdate("INSERT INTO book (isbn, title, author, category, publication_year, " +
+                        "copies_available, status) VALUES (?, ?, ?, ?, ?, ?, ?)", batch);
+                batch.clear();
+            }
+        }
+        return Math.max(0, books - from + 1);
+    }
+
+    // Number of the highest seeded row (longest, then greatest), or 0 when there is none
+    private int highestNumber(String sql, int prefixLength) {
+        List<String> highest = jdbcTemplate.queryForList(sql, String.class);
+        return highest.isEmpty() ? 0 : Integer.parseInt(highest.get(0).substring(prefixLength));
+    }
+}
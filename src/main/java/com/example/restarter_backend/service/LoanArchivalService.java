@@ -0,0 +1,153 @@
+package com.example.restarter_backend.service;
+
+import com.example.restarter_backend.entity.Loan;
+import com.example.restarter_backend.repository.LoanHistoryRepository;
+import com.example.restarter_backend.repository.LoanRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Moves RETURNED loans older than app.archival.after-days from loan to loan_history in small
+ * batches, so the hot table (and its indexes) only hold current loans and recent returns.
+ * Each batch copies and deletes the same ids in one short transaction.
+ */
+@Slf4j
+@Service
+public class LoanArchivalService {
+
+    private static final DateTimeFormatter PARTITION_NAME = DateTimeFormatter.ofPattern("'p'yyyy_MM");
+
+    @Autowired
+    private LoanRepository loanRepository;
+
+    @Autowired
+    private LoanHistoryRepository loanHistoryRepository;
+
+    @Autowired
+    private LeaseLockService leaseLockService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${app.archival.after-days:90}")
+    private int afterDays;
+
+    @Value("${app.archival.batch-size:1000}")
+    private int batchSize;
+
+    // MySQL only: split upcoming months off the pmax partition of loan_history
+    @Value("${app.archival.manage-partitions:false}")
+    private boolean managePartitions;
+
+    @Value("${app.archival.months-ahead:3}")
+    private int monthsAhead;
+
+    private TransactionTemplate requiresNew;
+
+    @PostConstruct
+    void init() {
+        requiresNew = new TransactionTemplate(transactionManager);
+        requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @Scheduled(cron = "${app.archival.cron:0 30 4 * * ?}") // Runs every day at 4:30 AM by default
+    public void archiveReturnedLoans() {
+        leaseLockService.runLocked("loan-archival", Duration.ofHours(2), Duration.ofMinutes(10), () -> {
+            if (managePartitions) {
+                ensurePartitions();
+            }
+            LocalDate before = LocalDate.now().minusDays(afterDays);
+            long started = System.nanoTime();
+            int moved = 0;
+            int batch;
+            do {
+                batch = archiveBatch(before);
+                moved += batch;
+            } while (batch == batchSize);
+            log.info("Archived {} loans returned before {} in {} ms", moved, before, (System.nanoTime() - started) / 1_000_000);
+        });
+    }
+
+    /**
+     * Moves up to batch-size loans returned before the given day.
+     * @return the number of loans moved
+     */
+    public int archiveBatch(LocalDate before) {
+        return requiresNew.execute(status -> {
+            List<Long> ids = loanRepository.findIdsReturnedBefore(Loan.Status.RETURNED, before, PageRequest.of(0, batchSize));
+            if (ids.isEmpty()) {
+                return 0;
+            }
+            int copied = loanHistoryRepository.copyFromLoans(ids);
+            int deleted = loanHistoryRepository.deleteLoans(ids);
+            if (copied != deleted) {
+                // Something else touched these rows meanwhile; roll the batch back rather than lose or duplicate a loan
+                throw new IllegalStateException("Archival copied " + copied + " loans but deleted " + deleted);
+            }
+            return copied;
+        });
+    }
+
+    /**
+     * Splits one partition per month off pmax, up to months-ahead past the current month. pmax
+     * holds everything after the last monthly partition, so the split starts at the month after
+     * it, or at the oldest month still in pmax (or the archival horizon) if that is later: each
+     * archived month gets its own partition and can be dropped on its own. All months go in one
+     * REORGANIZE, so pmax is rewritten once.
+     */
+    private void ensurePartitions() {
+        List<String> existing = jdbcTemplate.queryForList(
+                "SELECT partition_name FROM information_schema.partitions " +
+                "WHERE table_schema = DATABASE() AND table_name = 'loan_history' AND partition_name IS NOT NULL",
+                String.class);
+        if (!existing.contains("pmax")) {
+            log.warn("loan_history is not partitioned (see db/mysql/loan_history.sql); skipping partition maintenance");
+            return;
+        }
+        YearMonth lastSplit = existing.stream()
+                .filter(name -> name.matches("p\\d{4}_\\d{2}"))
+                .map(name -> YearMonth.parse(name, PARTITION_NAME))
+                .max(YearMonth::compareTo)
+                .orElse(null);
+        LocalDate oldestInPmax = lastSplit == null
+                ? jdbcTemplate.queryForObject("SELECT MIN(return_date) FROM loan_history", LocalDate.class)
+                : jdbcTemplate.queryForObject("SELECT MIN(return_date) FROM loan_history WHERE return_date >= ?",
+                        LocalDate.class, lastSplit.plusMonths(1).atDay(1));
+        YearMonth from = YearMonth.from(oldestInPmax != null ? oldestInPmax : LocalDate.now().minusDays(afterDays));
+        if (lastSplit != null && !from.isAfter(lastSplit)) {
+            from = lastSplit.plusMonths(1);
+        }
+        YearMonth to = YearMonth.now().plusMonths(monthsAhead);
+
+        List<String> partitions = new ArrayList<>();
+        for (YearMonth month = from; !month.isAfter(to); month = month.plusMonths(1)) {
+            partitions.add("PARTITION " + month.format(PARTITION_NAME) +
+                    " VALUES LESS THAN ('" + month.plusMonths(1).atDay(1) + "')");
+        }
+        if (partitions.isEmpty()) {
+            return;
+        }
+        partitions.add("PARTITION pmax VALUES LESS THAN (MAXVALUE)");
+        jdbcTemplate.execute("ALTER TABLE loan_history REORGANIZE PARTITION pmax INTO (" + String.join(", ", partitions) + ")");
+        log.info("Added loan_history partitions {} to {}", from.format(PARTITION_NAME), to.format(PARTITION_NAME));
+    }
+}
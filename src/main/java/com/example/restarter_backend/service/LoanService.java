@@ -1,23 +1,31 @@
 package com.example.restarter_backend.service;
 
 import com.example.restarter_backend.entity.Book;
+import com.example.restarter_backend.entity.BookCopy;
 import com.example.restarter_backend.entity.Loan;
+import com.example.restarter_backend.entity.LoanRecord;
 import com.example.restarter_backend.entity.User;
+import com.example.restarter_backend.event.LoanEvent;
+import com.example.restarter_backend.event.LoanEventPublisher;
 import com.example.restarter_backend.exception.LoanLimitExceededException; 
-import com.example.restarter_backend.repository.BookRepository;
+import com.example.restarter_backend.repository.LoanRecordRepository;
 import com.example.restarter_backend.repository.LoanRepository;
-import com.example.restarter_backend.repository.UserRepository;
+import com.example.restarter_backend.repository.NaturalIdLookup;
 import com.example.restarter_backend.dto.LoanCreationRequest;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.LocalDate;
 import java.time.temporal.ChronoUnit;
 import java.util.List;
 import java.util.Optional;
 
+@Slf4j
 @Service
 public class LoanService {
 
@@ -25,54 +33,76 @@ public class LoanService {
     private LoanRepository loanRepository;
 
     @Autowired
-    private BookRepository bookRepository;
+    private LoanRecordRepository loanRecordRepository;
 
     @Autowired
-    private UserRepository userRepository;
+    private NaturalIdLookup naturalIdLookup;
 
-    public List<Loan> getAllLoans() {
-        return loanRepository.findAll();
+    @Autowired
+    private CatalogVersion catalogVersion;
+
+    @Autowired
+    private LoanEventPublisher loanEventPublisher;
+
+    @Autowired
+    private DueDateIndex dueDateIndex;
+
+    @Autowired
+    private BookCopyService bookCopyService;
+
+    // Ids per findAllById call in the overdue sweep (keeps the IN list bounded)
+    private static final int OVERDUE_SWEEP_CHUNK = 1000;
+
+    // Current and archived loans
+    @Transactional(readOnly = true)
+    public List<LoanRecord> getAllLoans() {
+        return loanRecordRepository.findAll();
     }
 
+    @Transactional(readOnly = true)
     public Optional<Loan> getLoanById(Long id) {
         return loanRepository.findById(id);
     }
 
     /**
-     * Get loans by username - useful for getting current user's loans
+     * Get loans by username - useful for getting current user's loans, archived ones included
      */
-    public List<Loan> getLoansByUsername(String username) {
-        User user = userRepository.findByUsername(username)
+    @Transactional(readOnly = true)
+    public List<LoanRecord> getLoansByUsername(String username) {
+        User user = naturalIdLookup.findUserByUsername(username)
                 .orElseThrow(() -> new RuntimeException("User with username " + username + " not found."));
-        return loanRepository.findByUserId(user.getId());
+        return loanRecordRepository.findByUserId(user.getId());
     }
 
     /**
-     * Get loans by user ID
+     * Get loans by user ID, archived ones included
      */
-    public List<Loan> getLoansByUserId(Long userId) {
-        return loanRepository.findByUserId(userId);
+    @Transactional(readOnly = true)
+    public List<LoanRecord> getLoansByUserId(Long userId) {
+        return loanRecordRepository.findByUserId(userId);
     }
 
     /**
      * Check if a specific loan belongs to a specific user (for authorization)
      */
+    @Transactional(readOnly = true)
     public boolean isLoanOwner(Long loanId, String username) {
-        Optional<Loan> loan = loanRepository.findById(loanId);
-        if (loan.isPresent()) {
-            // It's safer to use Optional.map().orElse(false) pattern here
-            return loan.map(l -> l.getUser().getUsername().equals(username)).orElse(false);
-        }
-        return false;
+        return loanRepository.existsByIdAndUserUsername(loanId, username);
     }
 
     @Transactional
     public Loan createLoan(LoanCreationRequest loanRequest) {
-        // 1.find user by username,bookId
-        User user = userRepository.findByUsername(loanRequest.getUsername())
+        // 1.find user by username,bookId (both usually from the second-level cache)
+        User user = naturalIdLookup.findUserByUsername(loanRequest.getUsername())
                 .orElseThrow(() -> new RuntimeException("Cannot create loan: User with username '" + loanRequest.getUsername() + "' not found."));
 
-        Book book = bookRepository.findByIsbn(loanRequest.getIsbn())
+        // Membership, checked on the (second-level cached) user record: no query of its own
+        LocalDate expiry = user.getMembershipExpiryDate();
+        if (user.isBorrowingSuspended() || (expiry != null && expiry.isBefore(LocalDate.now()))) {
+            throw new RuntimeException("Cannot borrow: Membership expired" + (expiry != null ? " on " + expiry : "") + ". Please renew it.");
+        }
+
+        Book book = naturalIdLookup.findBookByIsbn(loanRequest.getIsbn())
                 .orElseThrow(() -> new RuntimeException("Cannot create loan: Book with ISBN " + loanRequest.getIsbn() + " not found.")); // Changed ID to ISBN for clarity based on LoanForm
 
         // Set user and book from DB to ensure they are properly managed entities
@@ -113,15 +143,19 @@ public class LoanService {
         loan.setStatus(Loan.Status.ACTIVE);
         loan.setRenewalCount(0); // No renewals yet
 
-        // 6. Update book status to unavailable
-        updateBookAvailability(book, false); // false means 'BORROWED'
+        // 6. Take a free copy; the title's counter and status follow in the same transaction
+        BookCopy copy = bookCopyService.allocate(book)
+                .orElseThrow(() -> new RuntimeException("Cannot create loan: Book '" + book.getTitle() + "' is currently unavailable."));
+        loan.setCopy(copy);
 
-        return loanRepository.save(loan);
+        Loan savedLoan = loanRepository.save(loan);
+        loanEventPublisher.publish(LoanEvent.Type.LOAN_CREATED, savedLoan);
+        return savedLoan;
     }
 
     @Transactional
     public Optional<Loan> renewLoan(Long id) {
-        Loan loan = loanRepository.findById(id)
+        Loan loan = loanRepository.findWithDetailsById(id)
                 .orElseThrow(() -> new RuntimeException("Loan with ID " + id + " not found for renewal."));
 
         // First, explicitly check and update overdue status if applicable
@@ -144,12 +178,14 @@ public class LoanService {
 
         loan.setDueDate(loan.getDueDate().plusDays(14)); // Extend due date
         loan.setRenewalCount(loan.getRenewalCount() + 1);
-        return Optional.of(loanRepository.save(loan));
+        Loan savedLoan = loanRepository.save(loan);
+        loanEventPublisher.publish(LoanEvent.Type.LOAN_RENEWED, savedLoan);
+        return Optional.of(savedLoan);
     }
 
     @Transactional
     public Optional<Loan> returnLoan(Long loanId) {
-        Loan loan = loanRepository.findById(loanId)
+        Loan loan = loanRepository.findWithDetailsById(loanId)
                 .orElseThrow(() -> new RuntimeException("Loan with ID " + loanId + " not found."));
 
         if (loan.getStatus() != Loan.Status.ACTIVE && loan.getStatus() != Loan.Status.OVERDUE) {
@@ -160,45 +196,26 @@ public class LoanService {
         loan.setStatus(Loan.Status.RETURNED);
         loan.setReturnDate(LocalDate.now());
 
-        // Make book available again
-        updateBookAvailability(loan.getBook(), true); // true means 'AVAILABLE'
+        // Put the copy back on the shelf
+        bookCopyService.release(loan);
 
         Loan savedLoan = loanRepository.save(loan); // Save the updated loan
+        loanEventPublisher.publish(LoanEvent.Type.LOAN_RETURNED, savedLoan);
+        loanEventPublisher.publish(LoanEvent.Type.BOOK_AVAILABLE, savedLoan);
         return Optional.of(savedLoan); // Return the updated loan wrapped in an Optional
     }
     
     /**
-     * Check if a book is available for loan
-     * This method assumes your Book entity has a 'status' field with an enum (e.g., Book.Status.AVAILABLE)
+     * Quick check before the loan rules run. Book.status is derived from the copies on the
+     * shelf; the copy allocation in createLoan is what actually decides.
      */
     private boolean isBookAvailable(Book book) {
-        // If your Book entity has a status field, check that.
         if (book.getStatus() != null) {
             return book.getStatus() == Book.Status.AVAILABLE;
         }
-        // Fallback: Check if there are any active loans for this book if no explicit status field or if status isn't set.
-        // This is less reliable if a book is conceptually "unavailable" for other reasons.
-        long activeLoansForBook = loanRepository.countByBookIdAndStatus(book.getId(), Loan.Status.ACTIVE);
-        return activeLoansForBook == 0;
+        return book.getCopiesAvailable() == null || book.getCopiesAvailable() > 0;
     }
 
-    /**
-     * Updates the book's availability status.
-     * This method assumes your Book entity has a 'status' field that accepts Book.Status.AVAILABLE or Book.Status.BORROWED.
-     * It ensures the book is saved after status update.
-     */
-    private void updateBookAvailability(Book book, boolean available) {
-        if (book != null) {
-            if (available) {
-                book.setStatus(Book.Status.AVAILABLE);
-            } else {
-                book.setStatus(Book.Status.BORROWED);
-            }
-            bookRepository.save(book); // Save the updated book entity
-        }
-    }
-
-
     /**
      * Calculates the fine for a single loan.
      */
@@ -216,6 +233,7 @@ public class LoanService {
     /**
      * Calculates the total outstanding fines for a given user.
      */
+    @Transactional(readOnly = true)
     public double calculateTotalFinesForUser(Long userId) {
         // Only consider active or overdue loans for calculating fines
         List<Loan> loans = loanRepository.findByUserIdAndStatusIn(userId, List.of(Loan.Status.ACTIVE, Loan.Status.OVERDUE)); 
@@ -228,12 +246,13 @@ public class LoanService {
 
     @Transactional
     public void deleteLoan(Long id) {
-        Loan loan = loanRepository.findById(id)
+        Loan loan = loanRepository.findWithDetailsById(id)
                 .orElseThrow(() -> new RuntimeException("Loan with ID " + id + " not found for deletion."));
 
         // If deleting an active loan, make the book available again
         if (loan.getStatus() == Loan.Status.ACTIVE || loan.getStatus() == Loan.Status.OVERDUE) { // Also return if overdue
-            updateBookAvailability(loan.getBook(), true);
+            bookCopyService.release(loan);
+            loanEventPublisher.publish(LoanEvent.Type.BOOK_AVAILABLE, loan);
         }
 
         loanRepository.deleteById(id);
@@ -241,34 +260,94 @@ public class LoanService {
 
     @Transactional
     private void updateOverdueLoansForUser(Long userId) {
-        List<Loan> loans = loanRepository.findByUserId(userId);
+        // Only active loans can become overdue; returned history is not loaded
+        List<Loan> loans = loanRepository.findByUserIdAndStatusIn(userId, List.of(Loan.Status.ACTIVE));
         LocalDate today = LocalDate.now();
         for (Loan loan : loans) {
             // Only update active loans to overdue
             if (loan.getStatus() == Loan.Status.ACTIVE && loan.getDueDate().isBefore(today)) {
-                System.out.println("DEBUG: Loan " + loan.getId() + " for user " + userId + " is now OVERDUE.");
+                log.debug("Loan {} for user {} is now OVERDUE", loan.getId(), userId);
                 loan.setStatus(Loan.Status.OVERDUE);
                 loanRepository.save(loan);
+                loanEventPublisher.publish(LoanEvent.Type.LOAN_OVERDUE, loan);
             }
         }
     }
 
-    @Scheduled(cron = "0 0 1 * * ?") // Runs every day at 1 AM
+    /**
+     * Single-node overdue sweep; run nightly by OverdueSweepScheduler. Reads only the expired
+     * buckets of the due-date index, which on a single node sees every loan event. Until the index
+     * has loaded, a range query on (status, dueDate) stands in for it. Several instances use the
+     * database range sweep instead (cluster mode), as their indexes miss each other's loans.
+     */
     @Transactional
     public void updateAllOverdueLoans() {
-        System.out.println("INFO: Starting daily scheduled overdue loan update.");
-        List<Loan> activeLoans = loanRepository.findByStatus(Loan.Status.ACTIVE);
+        log.info("Starting daily scheduled overdue loan update");
         LocalDate today = LocalDate.now();
+        if (!dueDateIndex.isLoaded()) {
+            log.warn("Due-date index not loaded; overdue sweep reads from the database");
+            // Flipped loans leave the range (the query flushes them first), so the first page is
+            // read until it comes back empty
+            int flipped = 0;
+            while (true) {
+                List<Loan> batch = loanRepository.findDueBefore(Loan.Status.ACTIVE, today, PageRequest.of(0, OVERDUE_SWEEP_CHUNK));
+                int flippedInBatch = flipOverdue(batch, today);
+                flipped += flippedInBatch;
+                if (batch.size() < OVERDUE_SWEEP_CHUNK || flippedInBatch == 0) {
+                    break;
+                }
+            }
+            log.info("Scheduled overdue loan update completed: {} loans updated from the database", flipped);
+            return;
+        }
+
+        // Loans in the expired due-date buckets, by id
+        List<Long> expiredIds = dueDateIndex.expiredLoanIds(today);
+        int flipped = 0;
+        for (int from = 0; from < expiredIds.size(); from += OVERDUE_SWEEP_CHUNK) {
+            List<Long> chunk = expiredIds.subList(from, Math.min(from + OVERDUE_SWEEP_CHUNK, expiredIds.size()));
+            flipped += flipOverdue(loanRepository.findAllById(chunk), today);
+        }
+        // Buckets are dropped only once the flips are committed
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                dueDateIndex.evictBefore(today);
+            }
+        });
+        log.info("Scheduled overdue loan update completed: {} loans updated from {} expired index entries",
+                flipped, expiredIds.size());
+    }
+
+    /**
+     * Overdue sweep of one id range, read from the database rather than the local index so it
+     * also sees loans created on other nodes. Used for the partitioned sweep in cluster mode.
+     * @return the number of loans flipped to OVERDUE
+     */
+    @Transactional
+    public int updateOverdueLoansInIdRange(LocalDate today, long fromId, long toId) {
+        return flipOverdue(loanRepository.findDueBeforeInIdRange(Loan.Status.ACTIVE, today, fromId, toId), today);
+    }
+
+    @Transactional(readOnly = true)
+    public long getMaxLoanId() {
+        Long maxId = loanRepository.findMaxId();
+        return maxId == null ? 0L : maxId;
+    }
+
+    // Flips ACTIVE loans past their due date to OVERDUE; the loan row is re-checked since the index may be stale
+    private int flipOverdue(List<Loan> loans, LocalDate today) {
         int updatedCount = 0;
-        for (Loan loan : activeLoans) {
-            if (loan.getDueDate().isBefore(today)) {
+        for (Loan loan : loans) {
+            if (loan.getStatus() == Loan.Status.ACTIVE && loan.getDueDate().isBefore(today)) {
                 loan.setStatus(Loan.Status.OVERDUE);
                 loanRepository.save(loan);
+                loanEventPublisher.publish(LoanEvent.Type.LOAN_OVERDUE, loan);
                 updatedCount++;
-                System.out.println("DEBUG: Scheduled update - Loan " + loan.getId() + " is now OVERDUE.");
+                log.debug("Scheduled update: loan {} is now OVERDUE", loan.getId());
             }
         }
-        System.out.println("INFO: Scheduled overdue loan update completed. " + updatedCount + " loans updated.");
+        return updatedCount;
     }
 }
 
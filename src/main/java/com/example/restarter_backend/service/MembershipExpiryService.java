@@ -0,0 +1,171 @@
+package com.example.restarter_backend.service;
+
+import com.example.restarter_backend.entity.User;
+import com.example.restarter_backend.notification.ReminderSender;
+import com.example.restarter_backend.repository.UserRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Nightly membership expiry run. Members whose membership ends within notice-days-ahead get one
+ * advance notice per membership term; members whose membership ended in the last
+ * expired-lookback-days are suspended from borrowing and told so. createLoan checks the expiry
+ * date as well, so a missed run never lets an expired member borrow.
+ *
+ * Members are read one expiry date at a time in keyset-paged chunks (idx_user_membership_expiry),
+ * notices go out with no transaction open, and each chunk's flags are written in a short
+ * transaction of its own, through the entities so the second-level cache stays current.
+ */
+@Slf4j
+@Service
+public class MembershipExpiryService {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ReminderSender reminderSender;
+
+    @Autowired
+    private LeaseLockService leaseLockService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${app.membership.notice-days-ahead:14}")
+    private int noticeDaysAhead;
+
+    @Value("${app.membership.expired-lookback-days:7}")
+    private int expiredLookbackDays;
+
+    @Value("${app.membership.batch-size:500}")
+    private int batchSize;
+
+    private TransactionTemplate requiresNew;
+
+    @PostConstruct
+    void init() {
+        requiresNew = new TransactionTemplate(transactionManager);
+        requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @Scheduled(cron = "${app.membership.cron:0 0 6 * * ?}") // Runs every day at 6 AM by default
+    public void processExpiringMemberships() {
+        leaseLockService.runLocked("membership-expiry", Duration.ofHours(1), Duration.ofMinutes(10), () -> {
+            LocalDate today = LocalDate.now();
+            long started = System.nanoTime();
+            int notified = 0;
+            int suspended = 0;
+            // A membership is valid through its expiry date: today's expiries still get the advance notice
+            for (int day = 0; day <= noticeDaysAhead; day++) {
+                notified += notifyExpiringOn(today.plusDays(day));
+            }
+            for (int day = 1; day <= expiredLookbackDays; day++) {
+                suspended += suspendExpiredOn(today.minusDays(day));
+            }
+            log.info("Membership expiry run: {} advance notices, {} members suspended in {} ms",
+                    notified, suspended, (System.nanoTime() - started) / 1_000_000);
+        });
+    }
+
+    /**
+     * Sends the advance notice to every member whose membership expires on the given date and
+     * who has not had it for this date yet.
+     * @return the number of notices sent
+     */
+    public int notifyExpiringOn(LocalDate expiry) {
+        int notified = 0;
+        long afterId = 0L;
+        while (true) {
+            List<User> batch = userRepository.findNotNotifiedExpiringOn(expiry, afterId, PageRequest.of(0, batchSize));
+            if (batch.isEmpty()) {
+                break;
+            }
+            afterId = batch.get(batch.size() - 1).getId();
+
+            List<Long> sent = new ArrayList<>();
+            for (User user : batch) {
+                try {
+                    reminderSender.sendMembershipNotice(user, ReminderSender.MembershipNotice.EXPIRING_SOON, expiry);
+                    sent.add(user.getId());
+                } catch (RuntimeException ex) {
+                    // Not recorded, so the next run retries this member
+                    log.warn("Membership notice to user {} failed: {}", user.getId(), ex.getMessage());
+                }
+            }
+            notified += update(sent, user -> true, user -> user.setExpiryNoticeSentFor(expiry)).size();
+
+            if (batch.size() < batchSize) {
+                break;
+            }
+        }
+        return notified;
+    }
+
+    /**
+     * Suspends borrowing for every member whose membership expired on the given date, then tells them.
+     * Suspension does not wait for the notice: a failed notice is logged and not retried.
+     * @return the number of members suspended
+     */
+    public int suspendExpiredOn(LocalDate expiry) {
+        int suspended = 0;
+        long afterId = 0L;
+        while (true) {
+            List<User> batch = userRepository.findNotSuspendedExpiredOn(expiry, afterId, PageRequest.of(0, batchSize));
+            if (batch.isEmpty()) {
+                break;
+            }
+            afterId = batch.get(batch.size() - 1).getId();
+
+            // Skips members renewed since the chunk was read
+            List<User> changed = update(batch.stream().map(User::getId).toList(),
+                    user -> expiry.equals(user.getMembershipExpiryDate()),
+                    user -> user.setBorrowingSuspended(true));
+            for (User user : changed) {
+                try {
+                    reminderSender.sendMembershipNotice(user, ReminderSender.MembershipNotice.EXPIRED, expiry);
+                } catch (RuntimeException ex) {
+                    log.warn("Membership notice to user {} failed: {}", user.getId(), ex.getMessage());
+                }
+            }
+            suspended += changed.size();
+
+            if (batch.size() < batchSize) {
+                break;
+            }
+        }
+        return suspended;
+    }
+
+    // Applies the change to the current row of each user it still applies to, in one short transaction
+    private List<User> update(List<Long> ids, Predicate<User> applies, Consumer<User> change) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        return requiresNew.execute(status -> {
+            List<User> changed = new ArrayList<>();
+            for (User user : userRepository.findAllById(ids)) {
+                if (applies.test(user)) {
+                    change.accept(user);
+                    changed.add(user);
+                }
+            }
+            return changed;
+        });
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.restarter_backend.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+
+/**
+ * Nightly overdue sweep, guarded by a database lease so only one node runs it.
+ *
+ * Single node (default): one lease around the index-based sweep in LoanService.
+ * Cluster mode: the sweep reads from the database in fixed-width id ranges through
+ * PartitionedJobRunner, so ranges run in parallel on this node and nodes split them by lease.
+ * Ranges are fixed-width rather than "max id / n" so every node agrees on them even if it
+ * reads a different max id.
+ */
+@Slf4j
+@Service
+public class OverdueSweepScheduler {
+
+    static final String JOB_NAME = "overdue-sweep";
+
+    @Autowired
+    private LoanService loanService;
+
+    @Autowired
+    private LeaseLockService leaseLockService;
+
+    @Autowired
+    private PartitionedJobRunner partitionedJobRunner;
+
+    @Value("${app.scheduling.cluster-mode:false}")
+    private boolean clusterMode;
+
+    @Value("${app.scheduling.overdue.partition-size:50000}")
+    private long partitionSize;
+
+    @Value("${app.scheduling.overdue.lock-at-most-for-minutes:30}")
+    private long lockAtMostForMinutes;
+
+    @Value("${app.scheduling.overdue.lock-at-least-for-minutes:10}")
+    private long lockAtLeastForMinutes;
+
+    @Scheduled(cron = "${app.scheduling.overdue.cron:0 0 1 * * ?}") // Runs every day at 1 AM by default
+    public void sweepOverdueLoans() {
+        if (!clusterMode) {
+            if (!leaseLockService.runLocked(JOB_NAME, Duration.ofMinutes(lockAtMostForMinutes),
+                    Duration.ofMinutes(lockAtLeastForMinutes), loanService::updateAllOverdueLoans)) {
+                log.info("Overdue sweep skipped: lease held by another node");
+            }
+            return;
+        }
+
+        LocalDate today = LocalDate.now();
+        partitionedJobRunner.run(JOB_NAME, today.toString(), loanService.getMaxLoanId(), partitionSize,
+                (fromId, toId) -> loanService.updateOverdueLoansInIdRange(today, fromId, toId));
+    }
+}
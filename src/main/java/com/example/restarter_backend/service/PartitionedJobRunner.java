@@ -0,0 +1,224 @@
+package com.example.restarter_backend.service;
+
+import com.example.restarter_backend.entity.JobCheckpoint;
+import com.example.restarter_backend.repository.JobCheckpointRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs maintenance jobs over an id space cut into fixed-width ranges, several ranges at a time.
+ *
+ * Each partition runs in its own transaction (and so on its own pooled connection), under a
+ * lease so other nodes skip it, and records a checkpoint. Partitions already DONE for the
+ * same run key are skipped, so rerunning a job resumes after a failure or restart.
+ * Parallelism is capped below the Hikari pool size so request threads still get connections.
+ */
+@Slf4j
+@Service
+public class PartitionedJobRunner {
+
+    @Autowired
+    private JobCheckpointRepository jobCheckpointRepository;
+
+    @Autowired
+    private LeaseLockService leaseLockService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${app.jobs.parallelism:0}")
+    private int configuredParallelism;
+
+    @Value("${spring.datasource.hikari.maximum-pool-size:10}")
+    private int poolSize;
+
+    @Value("${app.jobs.lock-at-most-for-minutes:30}")
+    private long lockAtMostForMinutes;
+
+    @Value("${app.jobs.checkpoint-retention-days:14}")
+    private int checkpointRetentionDays;
+
+    private ThreadPoolExecutor executor;
+    private TransactionTemplate requiresNew;
+    private final Map<String, JobReport> lastReports = new ConcurrentHashMap<>();
+
+    /**
+     * Work for one id range, run inside the partition's transaction.
+     */
+    @FunctionalInterface
+    public interface RangeTask {
+        /** @return the number of rows changed */
+        int process(long fromId, long toId);
+    }
+
+    public enum Outcome {
+        DONE,
+        SKIPPED_DONE,
+        HELD_ELSEWHERE,
+        FAILED
+    }
+
+    public record PartitionResult(int partition, long fromId, long toId, Outcome outcome, int rows, long millis, String error) {}
+
+    public record JobReport(String jobName, String runKey, LocalDateTime startedAt, long millis, int parallelism,
+                            List<PartitionResult> partitions) {}
+
+    @PostConstruct
+    void start() {
+        int parallelism = getParallelism();
+        executor = new ThreadPoolExecutor(parallelism, parallelism, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), new CustomizableThreadFactory("partition-jobs-"));
+        requiresNew = new TransactionTemplate(transactionManager);
+        requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(30, TimeUnit.SECONDS);
+    }
+
+    // Configured value, or half the pool; never the whole pool
+    public int getParallelism() {
+        int cap = Math.max(1, poolSize - 1);
+        int wanted = configuredParallelism > 0 ? configuredParallelism : poolSize / 2;
+        return Math.max(1, Math.min(wanted, cap));
+    }
+
+    public Map<String, JobReport> getLastReports() {
+        return Map.copyOf(lastReports);
+    }
+
+    /**
+     * Runs the task over [1, maxId] in ranges of partitionSize ids and waits for all of them.
+     * @param runKey identifies the run for checkpoints, e.g. the business date
+     */
+    public JobReport run(String jobName, String runKey, long maxId, long partitionSize, RangeTask task) {
+        LocalDateTime startedAt = LocalDateTime.now();
+        long started = System.nanoTime();
+        int partitions = (int) (maxId / partitionSize) + 1;
+
+        List<Future<PartitionResult>> futures = new ArrayList<>(partitions);
+        for (int p = 0; p < partitions; p++) {
+            int partition = p;
+            long fromId = partition * partitionSize + 1;
+            long toId = (partition + 1) * partitionSize;
+            Callable<PartitionResult> work = () -> runPartition(jobName, runKey, partition, fromId, toId, task);
+            futures.add(executor.submit(work));
+        }
+
+        List<PartitionResult> results = new ArrayList<>(partitions);
+        for (int p = 0; p < partitions; p++) {
+            try {
+                results.add(futures.get(p).get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                futures.forEach(f -> f.cancel(true));
+                throw new RuntimeException("Interrupted while waiting for " + jobName, e);
+            } catch (ExecutionException e) {
+                // runPartition records its own failures; this is a bug in the runner itself
+                results.add(new PartitionResult(p, p * partitionSize + 1, (p + 1) * partitionSize,
+                        Outcome.FAILED, 0, 0, String.valueOf(e.getCause())));
+            }
+        }
+
+        JobReport report = new JobReport(jobName, runKey, startedAt, (System.nanoTime() - started) / 1_000_000,
+                getParallelism(), results);
+        lastReports.put(jobName, report);
+        log.info("{} [{}]: {} partitions in {} ms, {} rows changed, outcomes {}", jobName, runKey, partitions,
+                report.millis(), results.stream().mapToInt(PartitionResult::rows).sum(), countOutcomes(results));
+        return report;
+    }
+
+    private PartitionResult runPartition(String jobName, String runKey, int partition, long fromId, long toId,
+                                         RangeTask task) {
+        PartitionResult[] result = new PartitionResult[1];
+        Duration lockAtMostFor = Duration.ofMinutes(lockAtMostForMinutes);
+        // The checkpoint decides whether the partition still has to run, so the lease need not outlive it
+        boolean leased;
+        try {
+            leased = leaseLockService.runLocked(jobName + "#" + partition, lockAtMostFor, Duration.ZERO,
+                    () -> result[0] = runCheckpointed(jobName, runKey, partition, fromId, toId, task));
+        } catch (RuntimeException e) {
+            // runCheckpointed already recorded the failure on the checkpoint
+            return new PartitionResult(partition, fromId, toId, Outcome.FAILED, 0, 0, e.getMessage());
+        }
+        return leased ? result[0] : new PartitionResult(partition, fromId, toId, Outcome.HELD_ELSEWHERE, 0, 0, null);
+    }
+
+    private PartitionResult runCheckpointed(String jobName, String runKey, int partition, long fromId, long toId,
+                                            RangeTask task) {
+        JobCheckpoint checkpoint = jobCheckpointRepository.findByJobNameAndRunKeyAndPartitionNo(jobName, runKey, partition)
+                .orElseGet(() -> new JobCheckpoint(jobName, runKey, partition, fromId, toId));
+        if (checkpoint.getStatus() == JobCheckpoint.Status.DONE) {
+            return new PartitionResult(partition, fromId, toId, Outcome.SKIPPED_DONE,
+                    0, checkpoint.getElapsedMillis() == null ? 0 : checkpoint.getElapsedMillis(), null);
+        }
+        checkpoint.setStatus(JobCheckpoint.Status.RUNNING);
+        checkpoint.setError(null);
+        checkpoint.setUpdatedAt(LocalDateTime.now());
+        checkpoint = jobCheckpointRepository.save(checkpoint);
+
+        long started = System.nanoTime();
+        try {
+            Integer rows = requiresNew.execute(status -> task.process(fromId, toId));
+            long millis = (System.nanoTime() - started) / 1_000_000;
+            checkpoint.setStatus(JobCheckpoint.Status.DONE);
+            checkpoint.setRowsProcessed(rows);
+            checkpoint.setElapsedMillis(millis);
+            checkpoint.setUpdatedAt(LocalDateTime.now());
+            jobCheckpointRepository.save(checkpoint);
+            log.debug("{} [{}] partition {} (ids {}..{}): {} rows in {} ms", jobName, runKey, partition, fromId, toId, rows, millis);
+            return new PartitionResult(partition, fromId, toId, Outcome.DONE, rows == null ? 0 : rows, millis, null);
+        } catch (RuntimeException e) {
+            long millis = (System.nanoTime() - started) / 1_000_000;
+            String error = String.valueOf(e.getMessage());
+            checkpoint.setStatus(JobCheckpoint.Status.FAILED);
+            checkpoint.setElapsedMillis(millis);
+            checkpoint.setError(error.length() > 500 ? error.substring(0, 500) : error);
+            checkpoint.setUpdatedAt(LocalDateTime.now());
+            jobCheckpointRepository.save(checkpoint);
+            log.error("{} [{}] partition {} (ids {}..{}) failed after {} ms", jobName, runKey, partition, fromId, toId, millis, e);
+            throw e;
+        }
+    }
+
+    private static Map<Outcome, Long> countOutcomes(List<PartitionResult> results) {
+        Map<Outcome, Long> counts = new EnumMap<>(Outcome.class);
+        for (PartitionResult result : results) {
+            counts.merge(result.outcome(), 1L, Long::sum);
+        }
+        return counts;
+    }
+
+    @Scheduled(cron = "0 45 3 * * ?") // Runs every day at 3:45 AM
+    public void purgeCheckpoints() {
+        int deleted = jobCheckpointRepository.deleteUpdatedBefore(LocalDateTime.now().minusDays(checkpointRetentionDays));
+        if (deleted > 0) {
+            log.info("Purged {} job checkpoints", deleted);
+        }
+    }
+}
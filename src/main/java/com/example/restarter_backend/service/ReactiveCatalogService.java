@@ -0,0 +1,125 @@
+package com.example.restarter_backend.service;
+
+import com.example.restarter_backend.entity.Book;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.pool.PoolMetrics;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import io.r2dbc.spi.Readable;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Non-blocking reads of the public catalog over R2DBC, for /api/reactive/books. Rows are
+ * emitted as the driver reads them and only as fast as the subscriber requests them, so a
+ * long listing neither buffers in memory nor holds a request thread while it waits on the database.
+ *
+ * The pool is private to this service on purpose: a ConnectionFactory bean would bring in
+ * Spring Boot's R2DBC auto-configuration and a reactive transaction manager next to the JPA one
+ * (both are excluded in RestarterBackendApplication). Writes stay on JPA.
+ */
+@Service
+@ConditionalOnProperty(name = "app.reactive.enabled", havingValue = "true")
+public class ReactiveCatalogService {
+
+    private static final String COLUMNS = "id, isbn, title, author, category, publication_year, copies_available, status";
+    private static final int FETCH_SIZE = 256;
+
+    private final ConnectionPool pool;
+    private final DatabaseClient databaseClient;
+
+    public ReactiveCatalogService(@Value("${app.reactive.r2dbc.url}") String url,
+                                  @Value("${app.reactive.r2dbc.username:}") String username,
+                                  @Value("${app.reactive.r2dbc.password:}") String password,
+                                  @Value("${app.reactive.r2dbc.max-pool-size:10}") int maxPoolSize) {
+        ConnectionFactoryOptions.Builder options = ConnectionFactoryOptions.parse(url).mutate();
+        if (!username.isEmpty()) {
+            options.option(ConnectionFactoryOptions.USER, username);
+            options.option(ConnectionFactoryOptions.PASSWORD, password);
+        }
+        this.pool = new ConnectionPool(ConnectionPoolConfiguration.builder(ConnectionFactories.get(options.build()))
+                .name("reactive-catalog")
+                .initialSize(1)
+                .maxSize(maxPoolSize)
+                .maxIdleTime(Duration.ofMinutes(5))
+                .maxAcquireTime(Duration.ofSeconds(5))
+                .build());
+        this.databaseClient = DatabaseClient.create(pool);
+    }
+
+    public Flux<Book> streamAll() {
+        return databaseClient.sql("SELECT " + COLUMNS + " FROM book ORDER BY id")
+                .filter(statement -> statement.fetchSize(FETCH_SIZE))
+                .map(ReactiveCatalogService::toBook)
+                .all();
+    }
+
+    /**
+     * Same matching as BookService.searchBooks: case-insensitive substring of title, author,
+     * ISBN or category.
+     */
+    public Flux<Book> search(String keyword) {
+        String pattern = "%" + escapeLike(keyword.toLowerCase(Locale.ROOT)) + "%";
+        return databaseClient.sql("SELECT " + COLUMNS + " FROM book WHERE LOWER(title) LIKE :pattern " +
+                        "OR LOWER(author) LIKE :pattern OR LOWER(isbn) LIKE :pattern OR LOWER(category) LIKE :pattern " +
+                        "ORDER BY id")
+                .bind("pattern", pattern)
+                .filter(statement -> statement.fetchSize(FETCH_SIZE))
+                .map(ReactiveCatalogService::toBook)
+                .all();
+    }
+
+    public Mono<Book> findById(long id) {
+        return databaseClient.sql("SELECT " + COLUMNS + " FROM book WHERE id = :id")
+                .bind("id", id)
+                .map(ReactiveCatalogService::toBook)
+                .one();
+    }
+
+    public Map<String, Object> getPoolStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("maxPoolSize", pool.getMetrics().map(PoolMetrics::getMaxAllocatedSize).orElse(-1));
+        pool.getMetrics().ifPresent(metrics -> {
+            stats.put("acquired", metrics.acquiredSize());
+            stats.put("allocated", metrics.allocatedSize());
+            stats.put("idle", metrics.idleSize());
+            stats.put("pendingAcquire", metrics.pendingAcquireSize());
+        });
+        return stats;
+    }
+
+    @PreDestroy
+    public void close() {
+        pool.dispose();
+    }
+
+    private static Book toBook(Readable row) {
+        Book book = new Book();
+        book.setId(row.get("id", Long.class));
+        book.setIsbn(row.get("isbn", String.class));
+        book.setTitle(row.get("title", String.class));
+        book.setAuthor(row.get("author", String.class));
+        book.setCategory(row.get("category", String.class));
+        book.setPublicationYear(row.get("publication_year", Integer.class));
+        book.setCopiesAvailable(row.get("copies_available", Integer.class));
+        String status = row.get("status", String.class);
+        book.setStatus(status != null ? Book.Status.valueOf(status) : null);
+        return book;
+    }
+
+    // Backslash is the default LIKE escape in both MySQL and H2
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
@@ -0,0 +1,166 @@
+package com.example.restarter_backend.service;
+
+import com.example.restarter_backend.dto.RelatedBook;
+import com.example.restarter_backend.dto.UserBookPair;
+import com.example.restarter_backend.entity.Book;
+import com.example.restarter_backend.repository.BookRepository;
+import com.example.restarter_backend.repository.LoanRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * "Borrowed together" recommendations computed offline from the loan history.
+ *
+ * The nightly build streams (user, book) pairs grouped by user, counts how many members
+ * borrowed each pair of books in primitive maps, and keeps the top neighbours per book in a
+ * compact RelatedBooksIndex. Requests read the index from memory; only the titles of the
+ * few returned books come from the database.
+ */
+@Slf4j
+@Service
+public class RecommendationService {
+
+    @Autowired
+    private LoanRepository loanRepository;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${app.recommendations.neighbours:20}")
+    private int neighbours;
+
+    @Value("${app.recommendations.min-co-borrowers:2}")
+    private int minCoBorrowers;
+
+    @Value("${app.recommendations.max-books-per-user:200}")
+    private int maxBooksPerUser;
+
+    @Value("${app.recommendations.max-pairs:2000000}")
+    private int maxPairs;
+
+    @Value("${app.recommendations.build-on-startup:true}")
+    private boolean buildOnStartup;
+
+    private volatile RelatedBooksIndex index = RelatedBooksIndex.EMPTY;
+    private final AtomicBoolean building = new AtomicBoolean();
+
+    // Built off the startup path so the application is ready before the history is read
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        if (buildOnStartup) {
+            Thread.ofVirtual().name("related-books-build").start(this::rebuild);
+        }
+    }
+
+    @Scheduled(cron = "${app.recommendations.cron:0 0 4 * * ?}") // Runs every day at 4 AM by default
+    public void rebuild() {
+        if (!building.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            long started = System.nanoTime();
+            RelatedBooksIndex.Builder builder = new RelatedBooksIndex.Builder(maxPairs);
+            TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+            readOnly.setReadOnly(true); // streams from the replica when one is configured
+            long rows = readOnly.execute(status -> {
+                try (Stream<UserBookPair> pairs = loanRepository.streamUserBookPairs()) {
+                    return accumulate(pairs, builder);
+                }
+            });
+            RelatedBooksIndex built = builder.build(neighbours, minCoBorrowers);
+            index = built;
+            log.info("Related-books index rebuilt from {} loans in {} ms: {} books, {} neighbours (pairs below {} co-borrowers pruned)",
+                    rows, (System.nanoTime() - started) / 1_000_000, built.bookCount(), built.neighbourCount(),
+                    builder.prunedBelow());
+        } catch (RuntimeException e) {
+            log.error("Related-books build failed, keeping the previous index", e);
+        } finally {
+            building.set(false);
+        }
+    }
+
+    // Feeds one user's distinct books at a time; memory is one user's books plus the pair counts
+    private long accumulate(Stream<UserBookPair> pairs, RelatedBooksIndex.Builder builder) {
+        long[][] buffer = {new long[64]};
+        int[] count = {0};
+        long[] currentUser = {Long.MIN_VALUE};
+        long[] rows = {0};
+        pairs.forEach(pair -> {
+            rows[0]++;
+            if (pair.getUserId() != currentUser[0]) {
+                flushUser(buffer[0], count[0], builder);
+                currentUser[0] = pair.getUserId();
+                count[0] = 0;
+            }
+            if (count[0] == buffer[0].length) {
+                buffer[0] = Arrays.copyOf(buffer[0], buffer[0].length * 2);
+            }
+            buffer[0][count[0]++] = pair.getBookId();
+        });
+        flushUser(buffer[0], count[0], builder);
+        return rows[0];
+    }
+
+    private void flushUser(long[] books, int count, RelatedBooksIndex.Builder builder) {
+        if (count < 2) {
+            return;
+        }
+        // Keep the user's most recent books (rows come in loan id order), then sort and dedupe
+        int from = Math.max(0, count - maxBooksPerUser);
+        long[] recent = Arrays.copyOfRange(books, from, count);
+        Arrays.sort(recent);
+        int distinct = 0;
+        for (int i = 0; i < recent.length; i++) {
+            if (i == 0 || recent[i] != recent[i - 1]) {
+                recent[distinct++] = recent[i];
+            }
+        }
+        builder.addUser(recent, distinct);
+    }
+
+    /**
+     * Books most often borrowed by members who borrowed the given book, best first.
+     */
+    public List<RelatedBook> getRelated(Long bookId, int limit) {
+        RelatedBooksIndex current = index;
+        long[] ids = current.neighbours(bookId, limit);
+        float[] scores = current.scores(bookId, limit);
+        if (ids.length == 0) {
+            return List.of();
+        }
+        List<Long> idList = Arrays.stream(ids).boxed().toList();
+        Map<Long, Book> books = bookRepository.findAllById(idList).stream()
+                .collect(Collectors.toMap(Book::getId, Function.identity()));
+        List<RelatedBook> result = new ArrayList<>(ids.length);
+        for (int i = 0; i < ids.length; i++) {
+            Book book = books.get(ids[i]);
+            if (book != null) { // deleted since the last build
+                result.add(new RelatedBook(ids[i], book.getTitle(), book.getAuthor(), scores[i]));
+            }
+        }
+        return result;
+    }
+
+    public int getMaxNeighbours() {
+        return neighbours;
+    }
+}
@@ -0,0 +1,203 @@
+package com.example.restarter_backend.service;
+
+import com.example.restarter_backend.util.LongIntHashMap;
+
+import java.util.Arrays;
+
+/**
+ * Immutable top-K "borrowed together" neighbours per book, in compressed sparse rows:
+ * row r's neighbours are neighbourIds[offsets[r] .. offsets[r + 1]), best first.
+ * About 12 bytes per neighbour plus one map slot per book.
+ */
+public final class RelatedBooksIndex {
+
+    static final RelatedBooksIndex EMPTY = new RelatedBooksIndex(new LongIntHashMap(0), new int[1], new long[0], new float[0]);
+
+    private final LongIntHashMap rowByBook;
+    private final int[] offsets;
+    private final long[] neighbourIds;
+    private final float[] scores;
+
+    private RelatedBooksIndex(LongIntHashMap rowByBook, int[] offsets, long[] neighbourIds, float[] scores) {
+        this.rowByBook = rowByBook;
+        this.offsets = offsets;
+        this.neighbourIds = neighbourIds;
+        this.scores = scores;
+    }
+
+    public int bookCount() {
+        return offsets.length - 1;
+    }
+
+    public int neighbourCount() {
+        return neighbourIds.length;
+    }
+
+    /** Neighbour ids of the book, best first, at most limit. */
+    public long[] neighbours(long bookId, int limit) {
+        int row = rowByBook.get(bookId, -1);
+        if (row < 0) {
+            return new long[0];
+        }
+        int from = offsets[row];
+        return Arrays.copyOfRange(neighbourIds, from, Math.min(offsets[row + 1], from + limit));
+    }
+
+    /** Scores matching neighbours(bookId, limit). */
+    public float[] scores(long bookId, int limit) {
+        int row = rowByBook.get(bookId, -1);
+        if (row < 0) {
+            return new float[0];
+        }
+        int from = offsets[row];
+        return Arrays.copyOfRange(scores, from, Math.min(offsets[row + 1], from + limit));
+    }
+
+    /**
+     * Accumulates co-borrowing counts one user at a time, then keeps the top K neighbours per book
+     * by cosine similarity: co-borrowers / sqrt(borrowers(a) * borrowers(b)).
+     * Pairs are packed into one long key (smaller id in the high half), so book ids must be
+     * between 1 and Integer.MAX_VALUE: addUser refuses any other id, which fails the build.
+     */
+    static final class Builder {
+
+        private final int maxPairs;
+        private LongIntHashMap pairCounts = new LongIntHashMap(1 << 16);
+        private final LongIntHashMap borrowers = new LongIntHashMap(1 << 12);
+        private int prunedBelow = 1;
+
+        Builder(int maxPairs) {
+            this.maxPairs = maxPairs;
+        }
+
+        /**
+         * Adds one user's distinct books (sorted ascending, no duplicates).
+         */
+        void addUser(long[] books, int count) {
+            if (count > 0 && (books[0] < 1 || books[count - 1] > Integer.MAX_VALUE)) {
+                throw new IllegalArgumentException("Book ids must be between 1 and " + Integer.MAX_VALUE
+                        + " to be packed into a pair key, got " + books[0] + ".." + books[count - 1]);
+            }
+            for (int i = 0; i < count; i++) {
+                borrowers.addTo(books[i], 1);
+                for (int j = i + 1; j < count; j++) {
+                    pairCounts.addTo((books[i] << 32) | books[j], 1);
+                }
+            }
+            if (pairCounts.size() > maxPairs) {
+                prune();
+            }
+        }
+
+        // Drops the rarest pairs until the map is back to three quarters of the limit
+        private void prune() {
+            while (pairCounts.size() > maxPairs * 3L / 4) {
+                prunedBelow++;
+                pairCounts = pairCounts.retainAtLeast(prunedBelow);
+            }
+        }
+
+        int prunedBelow() {
+            return prunedBelow;
+        }
+
+        RelatedBooksIndex build(int k, int minCoBorrowers) {
+            // Rows for every book with at least one borrower
+            LongIntHashMap rowByBook = new LongIntHashMap(borrowers.size());
+            long[] bookByRow = new long[borrowers.size()];
+            int[] rows = {0};
+            borrowers.forEach((bookId, count) -> {
+                rowByBook.put(bookId, rows[0]);
+                bookByRow[rows[0]++] = bookId;
+            });
+            int n = rows[0];
+
+            // A bounded min-heap of K slots per row, in flat arrays
+            long[] heapIds = new long[n * k];
+            float[] heapScores = new float[n * k];
+            int[] heapSizes = new int[n];
+            pairCounts.forEach((key, coBorrowers) -> {
+                if (coBorrowers < minCoBorrowers) {
+                    return;
+                }
+                long a = key >>> 32;
+                long b = key & 0xFFFFFFFFL;
+                float score = (float) (coBorrowers / Math.sqrt((double) borrowers.get(a, 1) * borrowers.get(b, 1)));
+                offer(heapIds, heapScores, heapSizes, rowByBook.get(a, -1), k, b, score);
+                offer(heapIds, heapScores, heapSizes, rowByBook.get(b, -1), k, a, score);
+            });
+
+            // Compress to CSR, each row sorted best first; books without neighbours get an empty row
+            int[] offsets = new int[n + 1];
+            for (int row = 0; row < n; row++) {
+                offsets[row + 1] = offsets[row] + heapSizes[row];
+            }
+            long[] neighbourIds = new long[offsets[n]];
+            float[] scores = new float[offsets[n]];
+            for (int row = 0; row < n; row++) {
+                int size = heapSizes[row];
+                int base = row * k;
+                // Pop the min-heap from the back: the smallest goes last
+                for (int out = offsets[row] + size - 1; size > 0; out--) {
+                    neighbourIds[out] = heapIds[base];
+                    scores[out] = heapScores[base];
+                    size--;
+                    heapIds[base] = heapIds[base + size];
+                    heapScores[base] = heapScores[base + size];
+                    siftDown(heapIds, heapScores, base, size, 0);
+                }
+            }
+            return new RelatedBooksIndex(rowByBook, offsets, neighbourIds, scores);
+        }
+
+        private static void offer(long[] ids, float[] scores, int[] sizes, int row, int k, long neighbour, float score) {
+            if (row < 0) {
+                return;
+            }
+            int base = row * k;
+            int size = sizes[row];
+            if (size < k) {
+                // Sift up
+                int i = size;
+                while (i > 0) {
+                    int parent = (i - 1) >>> 1;
+                    if (scores[base + parent] <= score) {
+                        break;
+                    }
+                    ids[base + i] = ids[base + parent];
+                    scores[base + i] = scores[base + parent];
+                    i = parent;
+                }
+                ids[base + i] = neighbour;
+                scores[base + i] = score;
+                sizes[row] = size + 1;
+            } else if (score > scores[base]) {
+                ids[base] = neighbour;
+                scores[base] = score;
+                siftDown(ids, scores, base, k, 0);
+            }
+        }
+
+        private static void siftDown(long[] ids, float[] scores, int base, int size, int i) {
+            long id = ids[base + i];
+            float score = scores[base + i];
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && scores[base + child + 1] < scores[base + child]) {
+                    child++;
+                }
+                if (scores[base + child] >= score) {
+                    break;
+                }
+                ids[base + i] = ids[base + child];
+                scores[base + i] = scores[base + child];
+                i = child;
+            }
+            ids[base + i] = id;
+            scores[base + i] = score;
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.example.restarter_backend.service;
+
+import com.example.restarter_backend.entity.Loan;
+import com.example.restarter_backend.entity.LoanReminder;
+import com.example.restarter_backend.notification.ReminderSender;
+import com.example.restarter_backend.repository.LoanReminderRepository;
+import com.example.restarter_backend.repository.LoanRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Nightly due-date reminders and overdue notices.
+ *
+ * Loans are read one due date at a time in keyset-paged batches, so each batch is an
+ * index range scan and no transaction or connection is held while messages go out.
+ * Each member gets one message per due date, sends are paced to the configured rate,
+ * and every sent reminder is recorded so reruns skip it. The run holds a lease, so with
+ * several instances only one of them sends.
+ */
+@Slf4j
+@Service
+public class ReminderService {
+
+    @Autowired
+    private LoanRepository loanRepository;
+
+    @Autowired
+    private LoanReminderRepository loanReminderRepository;
+
+    @Autowired
+    private ReminderSender reminderSender;
+
+    @Autowired
+    private LeaseLockService leaseLockService;
+
+    @Value("${app.reminders.days-ahead:3}")
+    private int daysAhead;
+
+    @Value("${app.reminders.overdue-lookback-days:7}")
+    private int overdueLookbackDays;
+
+    @Value("${app.reminders.batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.reminders.max-per-second:50}")
+    private int maxPerSecond;
+
+    @Scheduled(cron = "${app.reminders.cron:0 0 7 * * ?}") // Runs every day at 7 AM by default
+    public void sendReminders() {
+        leaseLockService.runLocked("loan-reminders", Duration.ofHours(2), Duration.ofMinutes(10), () -> {
+            LocalDate today = LocalDate.now();
+            int sent = 0;
+            // Due soon: active loans due today .. today + daysAhead
+            for (int day = 0; day <= daysAhead; day++) {
+                sent += remindForDueDate(LoanReminder.Kind.DUE_SOON, Loan.Status.ACTIVE, today.plusDays(day));
+            }
+            // Overdue: loans that became overdue in the lookback window and were not notified yet
+            for (int day = 1; day <= overdueLookbackDays; day++) {
+                sent += remindForDueDate(LoanReminder.Kind.OVERDUE, Loan.Status.OVERDUE, today.minusDays(day));
+            }
+            log.info("Reminder run completed: {} messages sent", sent);
+        });
+    }
+
+    /**
+     * Sends reminders for every loan in the given status due on the given date.
+     * @return the number of messages sent
+     */
+    public int remindForDueDate(LoanReminder.Kind kind, Loan.Status status, LocalDate dueDate) {
+        long nanosPerSend = maxPerSecond > 0 ? TimeUnit.SECONDS.toNanos(1) / maxPerSecond : 0;
+        long nextSendAt = System.nanoTime();
+        int messages = 0;
+        long afterId = 0L;
+
+        while (true) {
+            List<Loan> batch = loanRepository.findDueOn(status, dueDate, afterId, PageRequest.of(0, batchSize));
+            if (batch.isEmpty()) {
+                break;
+            }
+            afterId = batch.get(batch.size() - 1).getId();
+
+            List<Long> loanIds = batch.stream().map(Loan::getId).toList();
+            Set<Long> alreadySent = new HashSet<>(loanReminderRepository.findSentLoanIds(kind, dueDate, loanIds));
+
+            Map<Long, List<Loan>> byUser = new LinkedHashMap<>();
+            for (Loan loan : batch) {
+                if (!alreadySent.contains(loan.getId())) {
+                    byUser.computeIfAbsent(loan.getUser().getId(), id -> new ArrayList<>()).add(loan);
+                }
+            }
+
+            List<LoanReminder> sentReminders = new ArrayList<>();
+            for (List<Loan> userLoans : byUser.values()) {
+                nextSendAt = pace(nextSendAt, nanosPerSend);
+                try {
+                    reminderSender.send(userLoans.get(0).getUser(), kind, dueDate, userLoans);
+                    messages++;
+                    LocalDateTime sentAt = LocalDateTime.now();
+                    for (Loan loan : userLoans) {
+                        sentReminders.add(new LoanReminder(loan.getId(), kind, dueDate, sentAt));
+                    }
+                } catch (RuntimeException ex) {
+                    // Not recorded, so the next run retries this member
+                    log.warn("Reminder to user {} failed: {}", userLoans.get(0).getUser().getId(), ex.getMessage());
+                }
+            }
+            record(sentReminders);
+
+            if (batch.size() < batchSize) {
+                break;
+            }
+        }
+        return messages;
+    }
+
+    // One insert for the batch; if a row already exists (recorded by a run that overlapped this one),
+    // the batch is rolled back and the rows are inserted one at a time, skipping the duplicates
+    private void record(List<LoanReminder> reminders) {
+        try {
+            loanReminderRepository.saveAll(reminders);
+        } catch (DataIntegrityViolationException batchFailed) {
+            for (LoanReminder reminder : reminders) {
+                reminder.setId(null);
+                try {
+                    loanReminderRepository.save(reminder);
+                } catch (DataIntegrityViolationException duplicate) {
+                    log.debug("Reminder for loan {} ({}, due {}) already recorded", reminder.getLoanId(),
+                            reminder.getKind(), reminder.getDueDate());
+                }
+            }
+        }
+    }
+
+    // Simple fixed-rate pacing: waits until the next send slot
+    private long pace(long nextSendAt, long nanosPerSend) {
+        long wait = nextSendAt - System.nanoTime();
+        if (wait > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return Math.max(nextSendAt, System.nanoTime()) + nanosPerSend;
+    }
+}
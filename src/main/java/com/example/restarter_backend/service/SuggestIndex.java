@@ -0,0 +1,300 @@
+package com.example.restarter_backend.service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Immutable prefix index for search-as-you-type: a radix trie (single-child chains merged into
+ * one edge) over normalized keys, where every node stores the ids of the best completions below it.
+ * A lookup walks at most one edge per prefix character and copies out a precomputed list,
+ * so its cost does not depend on how many keys share the prefix.
+ *
+ * Completion ids are ranks: the builder is given completions best first, so "best" is simply the
+ * smallest id. Nodes are flattened into parallel arrays (about 20 bytes per node plus the edge
+ * characters), and a node without completions of its own and a single child shares the child's list.
+ */
+public final class SuggestIndex {
+
+    static final SuggestIndex EMPTY = new Builder(1, 1).build();
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private final char[] labels;
+    private final int[] labelStart;
+    private final int[] labelLength;
+    private final int[] firstChild;
+    private final int[] nextSibling;
+    private final int[] topStart;
+    private final int[] topCount;
+    private final int[] top;
+    private final int root;
+    private final int maxKeyLength;
+
+    private SuggestIndex(char[] labels, int[] labelStart, int[] labelLength, int[] firstChild, int[] nextSibling,
+                         int[] topStart, int[] topCount, int[] top, int root, int maxKeyLength) {
+        this.labels = labels;
+        this.labelStart = labelStart;
+        this.labelLength = labelLength;
+        this.firstChild = firstChild;
+        this.nextSibling = nextSibling;
+        this.topStart = topStart;
+        this.topCount = topCount;
+        this.top = top;
+        this.root = root;
+        this.maxKeyLength = maxKeyLength;
+    }
+
+    public int nodeCount() {
+        return labelStart.length;
+    }
+
+    /** Rough heap footprint of the arrays, for diagnostics. */
+    public long sizeInBytes() {
+        return labels.length * 2L + (labelStart.length * 6L + top.length) * 4L;
+    }
+
+    /**
+     * Completion ids for the prefix, best first, at most limit. The prefix must already be
+     * normalized (see normalize).
+     */
+    public int[] complete(String prefix, int limit) {
+        if (prefix.length() > maxKeyLength) {
+            prefix = prefix.substring(0, maxKeyLength);
+        }
+        int node = root;
+        int pos = 0;
+        while (pos < prefix.length()) {
+            int child = firstChild[node];
+            char next = prefix.charAt(pos);
+            while (child >= 0 && labels[labelStart[child]] != next) {
+                child = nextSibling[child];
+            }
+            if (child < 0) {
+                return new int[0];
+            }
+            int start = labelStart[child];
+            int length = labelLength[child];
+            for (int i = 1; i < length && pos + i < prefix.length(); i++) {
+                if (labels[start + i] != prefix.charAt(pos + i)) {
+                    return new int[0];
+                }
+            }
+            node = child; // The prefix may end inside the edge: everything below the child matches
+            pos += length;
+        }
+        int from = topStart[node];
+        return Arrays.copyOfRange(top, from, from + Math.min(topCount[node], limit));
+    }
+
+    /**
+     * Lower case, accents and punctuation removed, runs of whitespace collapsed: "The Hobbit, Vol. 2"
+     * becomes "the hobbit vol 2". Applied to both keys and prefixes.
+     */
+    public static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String folded = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        return SEPARATORS.matcher(folded.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+    }
+
+    /**
+     * Collects (key, completion id) pairs, then builds the trie keeping at most topK completions
+     * per node. Keys longer than maxKeyLength are cut, so prefixes longer than that match on their
+     * first maxKeyLength characters only.
+     */
+    static final class Builder {
+
+        private final int topK;
+        private final int maxKeyLength;
+        private final Node root = new Node("");
+
+        Builder(int topK, int maxKeyLength) {
+            this.topK = Math.max(1, topK);
+            this.maxKeyLength = Math.max(1, maxKeyLength);
+        }
+
+        void add(String normalizedKey, int completion) {
+            if (normalizedKey.isEmpty()) {
+                return;
+            }
+            if (normalizedKey.length() > maxKeyLength) {
+                normalizedKey = normalizedKey.substring(0, maxKeyLength);
+            }
+            Node node = root;
+            int pos = 0;
+            while (true) {
+                if (pos == normalizedKey.length()) {
+                    node.addCompletion(completion);
+                    return;
+                }
+                Node child = node.child(normalizedKey.charAt(pos));
+                if (child == null) {
+                    Node leaf = new Node(normalizedKey.substring(pos));
+                    leaf.addCompletion(completion);
+                    node.children.add(leaf);
+                    return;
+                }
+                int common = 1;
+                while (common < child.label.length() && pos + common < normalizedKey.length()
+                        && child.label.charAt(common) == normalizedKey.charAt(pos + common)) {
+                    common++;
+                }
+                if (common < child.label.length()) {
+                    // Split the edge at the first difference
+                    Node middle = new Node(child.label.substring(0, common));
+                    child.label = child.label.substring(common);
+                    middle.children.add(child);
+                    node.children.set(node.children.indexOf(child), middle);
+                    child = middle;
+                }
+                node = child;
+                pos += common;
+            }
+        }
+
+        SuggestIndex build() {
+            Flattener out = new Flattener(topK);
+            int rootId = out.flatten(root);
+            return out.finish(rootId, maxKeyLength);
+        }
+    }
+
+    private static final class Node {
+        String label;
+        final List<Node> children = new ArrayList<>(2);
+        int[] completions = new int[0];
+
+        Node(String label) {
+            this.label = label;
+        }
+
+        Node child(char first) {
+            for (Node child : children) {
+                if (child.label.charAt(0) == first) {
+                    return child;
+                }
+            }
+            return null;
+        }
+
+        void addCompletion(int completion) {
+            completions = Arrays.copyOf(completions, completions.length + 1);
+            completions[completions.length - 1] = completion;
+        }
+    }
+
+    // Writes nodes children first, so each node's top list can be merged from its children's
+    private static final class Flattener {
+        private final int topK;
+        private char[] labels = new char[1024];
+        private int labelsSize;
+        private int[] labelStart = new int[256];
+        private int[] labelLength = new int[256];
+        private int[] firstChild = new int[256];
+        private int[] nextSibling = new int[256];
+        private int[] topStart = new int[256];
+        private int[] topCount = new int[256];
+        private int nodes;
+        private int[] top = new int[1024];
+        private int topSize;
+
+        Flattener(int topK) {
+            this.topK = topK;
+        }
+
+        // Recursion depth is bounded by the key length
+        int flatten(Node node) {
+            int[] childIds = new int[node.children.size()];
+            for (int i = 0; i < childIds.length; i++) {
+                childIds[i] = flatten(node.children.get(i));
+            }
+            int id = newNode();
+            ensureLabels(node.label.length());
+            node.label.getChars(0, node.label.length(), labels, labelsSize);
+            labelStart[id] = labelsSize;
+            labelLength[id] = node.label.length();
+            labelsSize += node.label.length();
+
+            firstChild[id] = childIds.length > 0 ? childIds[0] : -1;
+            nextSibling[id] = -1;
+            for (int i = 0; i + 1 < childIds.length; i++) {
+                nextSibling[childIds[i]] = childIds[i + 1];
+            }
+
+            if (node.completions.length == 0 && childIds.length == 1) {
+                topStart[id] = topStart[childIds[0]];
+                topCount[id] = topCount[childIds[0]];
+            } else {
+                int[] merged = mergeTop(node.completions, childIds);
+                ensureTop(merged.length);
+                System.arraycopy(merged, 0, top, topSize, merged.length);
+                topStart[id] = topSize;
+                topCount[id] = merged.length;
+                topSize += merged.length;
+            }
+            node.children.clear(); // Free the builder tree as we go
+            return id;
+        }
+
+        // Smallest topK distinct ids among the node's own completions and its children's lists
+        private int[] mergeTop(int[] own, int[] childIds) {
+            int total = own.length;
+            for (int child : childIds) {
+                total += topCount[child];
+            }
+            int[] candidates = Arrays.copyOf(own, total);
+            int size = own.length;
+            for (int child : childIds) {
+                System.arraycopy(top, topStart[child], candidates, size, topCount[child]);
+                size += topCount[child];
+            }
+            Arrays.sort(candidates);
+            int distinct = 0;
+            for (int i = 0; i < candidates.length && distinct < topK; i++) {
+                if (i == 0 || candidates[i] != candidates[i - 1]) {
+                    candidates[distinct++] = candidates[i];
+                }
+            }
+            return Arrays.copyOf(candidates, distinct);
+        }
+
+        private int newNode() {
+            if (nodes == labelStart.length) {
+                int capacity = nodes * 2;
+                labelStart = Arrays.copyOf(labelStart, capacity);
+                labelLength = Arrays.copyOf(labelLength, capacity);
+                firstChild = Arrays.copyOf(firstChild, capacity);
+                nextSibling = Arrays.copyOf(nextSibling, capacity);
+                topStart = Arrays.copyOf(topStart, capacity);
+                topCount = Arrays.copyOf(topCount, capacity);
+            }
+            return nodes++;
+        }
+
+        private void ensureLabels(int extra) {
+            if (labelsSize + extra > labels.length) {
+                labels = Arrays.copyOf(labels, Math.max(labels.length * 2, labelsSize + extra));
+            }
+        }
+
+        private void ensureTop(int extra) {
+            if (topSize + extra > top.length) {
+                top = Arrays.copyOf(top, Math.max(top.length * 2, topSize + extra));
+            }
+        }
+
+        SuggestIndex finish(int rootId, int maxKeyLength) {
+            return new SuggestIndex(Arrays.copyOf(labels, labelsSize),
+                    Arrays.copyOf(labelStart, nodes), Arrays.copyOf(labelLength, nodes),
+                    Arrays.copyOf(firstChild, nodes), Arrays.copyOf(nextSibling, nodes),
+                    Arrays.copyOf(topStart, nodes), Arrays.copyOf(topCount, nodes),
+                    Arrays.copyOf(top, topSize), rootId, maxKeyLength);
+        }
+    }
+}
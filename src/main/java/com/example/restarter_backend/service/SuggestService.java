@@ -0,0 +1,221 @@
+package com.example.restarter_backend.service;
+
+import com.example.restarter_backend.dto.BookSuggestion;
+import com.example.restarter_backend.repository.BookRepository;
+import com.example.restarter_backend.repository.DailyBookLoanStatRepository;
+import com.example.restarter_backend.util.LongIntHashMap;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Search-as-you-type completions for /api/books/suggest, answered from an in-memory SuggestIndex
+ * over titles, authors and categories. Every word of a title or name starts a key too, so
+ * "rings" completes to "The Lord of the Rings".
+ *
+ * Completions are ranked by loans over the last popularity-days (from the daily analytics rollup);
+ * an author or category counts the loans of all its titles. The index is rebuilt off the request
+ * path when the catalog version moves (at most once per min-rebuild-interval) and swapped in with
+ * one volatile write, so lookups never lock and never wait for a build.
+ */
+@Slf4j
+@Service
+public class SuggestService {
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private DailyBookLoanStatRepository dailyBookLoanStatRepository;
+
+    @Autowired
+    private CatalogVersion catalogVersion;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${app.suggest.top-k:10}")
+    private int topK;
+
+    @Value("${app.suggest.max-key-length:32}")
+    private int maxKeyLength;
+
+    @Value("${app.suggest.popularity-days:90}")
+    private int popularityDays;
+
+    @Value("${app.suggest.min-rebuild-interval-seconds:60}")
+    private long minRebuildIntervalSeconds;
+
+    // Rebuilt this often even without catalog changes, to pick up new loan counts
+    @Value("${app.suggest.max-age-minutes:60}")
+    private long maxAgeMinutes;
+
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+    private final AtomicBoolean building = new AtomicBoolean();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        Thread.ofVirtual().name("suggest-index-build").start(this::rebuild);
+    }
+
+    @Scheduled(fixedDelayString = "${app.suggest.refresh-check-ms:5000}",
+               initialDelayString = "${app.suggest.refresh-check-ms:5000}")
+    public void refreshIfStale() {
+        Snapshot current = snapshot;
+        long age = System.currentTimeMillis() - current.builtAtMillis();
+        boolean changed = catalogVersion.current() != current.catalogVersion();
+        if ((changed && age >= Duration.ofSeconds(minRebuildIntervalSeconds).toMillis())
+                || age >= Duration.ofMinutes(maxAgeMinutes).toMillis()) {
+            rebuild();
+        }
+    }
+
+    public void rebuild() {
+        if (!building.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            long started = System.nanoTime();
+            // Read before the query, like the catalog ETags: a write during the build leaves the
+            // snapshot older than the catalog, so the next check rebuilds it
+            long version = catalogVersion.current();
+            TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+            readOnly.setReadOnly(true); // reads from the replica when one is configured
+            Snapshot built = readOnly.execute(status -> build(version));
+            snapshot = built;
+            log.info("Suggest index rebuilt in {} ms: {} completions, {} nodes, ~{} KB",
+                    (System.nanoTime() - started) / 1_000_000, built.completions().length,
+                    built.index().nodeCount(), built.index().sizeInBytes() / 1024);
+        } catch (RuntimeException e) {
+            log.error("Suggest index build failed, keeping the previous index", e);
+        } finally {
+            building.set(false);
+        }
+    }
+
+    /**
+     * Best completions of the prefix, most borrowed first. Matching ignores case, accents and
+     * punctuation.
+     */
+    public List<BookSuggestion> suggest(String prefix, int limit) {
+        String normalized = SuggestIndex.normalize(prefix);
+        if (normalized.isEmpty()) {
+            return List.of();
+        }
+        Snapshot current = snapshot;
+        int[] ids = current.index().complete(normalized, limit);
+        List<BookSuggestion> result = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            result.add(current.completions()[id]);
+        }
+        return result;
+    }
+
+    public int getTopK() {
+        return topK;
+    }
+
+    public Map<String, Object> getStats() {
+        Snapshot current = snapshot;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("completions", current.completions().length);
+        stats.put("nodes", current.index().nodeCount());
+        stats.put("sizeBytes", current.index().sizeInBytes());
+        stats.put("catalogVersion", current.catalogVersion());
+        stats.put("builtAtMillis", current.builtAtMillis());
+        stats.put("building", building.get());
+        return stats;
+    }
+
+    private Snapshot build(long version) {
+        LongIntHashMap loans = new LongIntHashMap(1 << 12);
+        for (DailyBookLoanStatRepository.BookLoanTotal total
+                : dailyBookLoanStatRepository.sumLoansPerBookSince(LocalDate.now().minusDays(popularityDays))) {
+            loans.put(total.getBookId(), (int) Math.min(Integer.MAX_VALUE, total.getLoans()));
+        }
+
+        List<Candidate> candidates = new ArrayList<>();
+        Map<String, Candidate> authors = new HashMap<>();
+        Map<String, Candidate> categories = new HashMap<>();
+        for (BookRepository.SuggestSource book : bookRepository.findSuggestSources()) {
+            long score = loans.get(book.getId(), 0);
+            String title = SuggestIndex.normalize(book.getTitle());
+            if (!title.isEmpty()) {
+                candidates.add(new Candidate(new BookSuggestion(book.getTitle(), BookSuggestion.Type.TITLE, book.getId()),
+                        title, score));
+            }
+            accumulate(authors, candidates, book.getAuthor(), BookSuggestion.Type.AUTHOR, score);
+            accumulate(categories, candidates, book.getCategory(), BookSuggestion.Type.CATEGORY, score);
+        }
+
+        // Completion ids are ranks: best first, ties by type (titles first) then text
+        candidates.sort(Comparator.comparingLong((Candidate c) -> c.score).reversed()
+                .thenComparing(c -> c.suggestion.getType())
+                .thenComparing(c -> c.key));
+        SuggestIndex.Builder builder = new SuggestIndex.Builder(topK, maxKeyLength);
+        BookSuggestion[] completions = new BookSuggestion[candidates.size()];
+        for (int id = 0; id < completions.length; id++) {
+            Candidate candidate = candidates.get(id);
+            completions[id] = candidate.suggestion;
+            addKeys(builder, candidate.key, id);
+        }
+        return new Snapshot(builder.build(), completions, version, System.currentTimeMillis());
+    }
+
+    // One completion per distinct (normalized) name, scored with the loans of all its titles
+    private static void accumulate(Map<String, Candidate> byKey, List<Candidate> candidates, String text,
+                                   BookSuggestion.Type type, long score) {
+        String key = SuggestIndex.normalize(text);
+        if (key.isEmpty()) {
+            return;
+        }
+        Candidate existing = byKey.get(key);
+        if (existing == null) {
+            Candidate candidate = new Candidate(new BookSuggestion(text, type, null), key, score);
+            byKey.put(key, candidate);
+            candidates.add(candidate);
+        } else {
+            existing.score += score;
+        }
+    }
+
+    // The whole text plus the rest of it from every later word
+    private static void addKeys(SuggestIndex.Builder builder, String key, int id) {
+        builder.add(key, id);
+        for (int i = key.indexOf(' '); i >= 0; i = key.indexOf(' ', i + 1)) {
+            builder.add(key.substring(i + 1), id);
+        }
+    }
+
+    private static final class Candidate {
+        final BookSuggestion suggestion;
+        final String key;
+        long score;
+
+        Candidate(BookSuggestion suggestion, String key, long score) {
+            this.suggestion = suggestion;
+            this.key = key;
+            this.score = score;
+        }
+    }
+
+    private record Snapshot(SuggestIndex index, BookSuggestion[] completions, long catalogVersion, long builtAtMillis) {
+        static final Snapshot EMPTY = new Snapshot(SuggestIndex.EMPTY, new BookSuggestion[0], -1, 0);
+    }
+}
@@ -0,0 +1,238 @@
+package com.example.restarter_backend.service;
+
+import com.example.restarter_backend.dto.TrendingBook;
+import com.example.restarter_backend.entity.Book;
+import com.example.restarter_backend.entity.TrendingScore;
+import com.example.restarter_backend.event.HandledEvents;
+import com.example.restarter_backend.event.LoanEvent;
+import com.example.restarter_backend.repository.BookRepository;
+import com.example.restarter_backend.repository.TrendingScoreRepository;
+import com.example.restarter_backend.util.CountMinSketch;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * "Trending now": books borrowed most recently, counted approximately in memory.
+ *
+ * Every new loan adds to a Count-Min Sketch (lock-free) and, if its estimate is high enough,
+ * to a bounded candidate set. Counts are halved every decay interval, so the leaderboard
+ * follows recent loans. The leaderboard is rebuilt from the candidates on a timer and served
+ * from memory; the scores are persisted periodically and reloaded at startup.
+ *
+ * Each instance counts the loans it sees. trending_score holds the merged view: persist runs
+ * under a lease and keeps, per book, the higher of the local score and the stored one (decayed
+ * for the time since it was saved), so instances never overwrite each other's counts.
+ */
+@Slf4j
+@Service
+public class TrendingService {
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private TrendingScoreRepository trendingScoreRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private LeaseLockService leaseLockService;
+
+    @Value("${app.trending.sketch-depth:4}")
+    private int sketchDepth;
+
+    @Value("${app.trending.sketch-width:4096}")
+    private int sketchWidth;
+
+    // Candidates kept for the leaderboard; also the largest limit served
+    @Value("${app.trending.capacity:50}")
+    private int capacity;
+
+    @Value("${app.trending.decay-interval-ms:3600000}")
+    private long decayIntervalMillis;
+
+    private CountMinSketch sketch;
+    private final Map<Long, Long> candidates = new ConcurrentHashMap<>();
+    private final HandledEvents handled = new HandledEvents();
+    private final AtomicBoolean trimming = new AtomicBoolean();
+    private final AtomicLong updates = new AtomicLong();
+    private final AtomicLong admissionThreshold = new AtomicLong();
+    private volatile long updatesAtLastRefresh = -1;
+    private volatile List<TrendingBook> leaderboard = List.of();
+
+    @PostConstruct
+    void init() {
+        sketch = new CountMinSketch(sketchDepth, sketchWidth);
+    }
+
+    @EventListener
+    public void onLoanEvent(LoanEvent event) {
+        if (event.getType() == LoanEvent.Type.LOAN_CREATED && event.getBookId() != null && handled.markHandled(event)) {
+            record(event.getBookId(), 1);
+        }
+    }
+
+    public void record(long bookId, long amount) {
+        long estimate = sketch.add(bookId, amount);
+        updates.incrementAndGet();
+        if (estimate >= admissionThreshold.get() || candidates.containsKey(bookId)) {
+            candidates.put(bookId, estimate);
+            if (candidates.size() > capacity * 2) {
+                trim();
+            }
+        }
+    }
+
+    /**
+     * The current leaderboard, best first. Never touches the database.
+     */
+    public List<TrendingBook> getTrending(int limit) {
+        List<TrendingBook> current = leaderboard;
+        return current.size() <= limit ? current : current.subList(0, limit);
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    // Keeps the top candidates; one thread trims while the others carry on recording
+    private void trim() {
+        if (!trimming.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            List<Map.Entry<Long, Long>> ranked = new ArrayList<>(candidates.entrySet());
+            if (ranked.size() <= capacity) {
+                return;
+            }
+            ranked.sort(Map.Entry.<Long, Long>comparingByValue().reversed());
+            for (int i = capacity; i < ranked.size(); i++) {
+                candidates.remove(ranked.get(i).getKey());
+            }
+            admissionThreshold.set(ranked.get(capacity - 1).getValue());
+        } finally {
+            trimming.set(false);
+        }
+    }
+
+    @Scheduled(fixedRateString = "${app.trending.decay-interval-ms:3600000}",
+               initialDelayString = "${app.trending.decay-interval-ms:3600000}")
+    public void decay() {
+        sketch.halve();
+        candidates.replaceAll((bookId, score) -> score >>> 1);
+        candidates.values().removeIf(score -> score == 0);
+        admissionThreshold.updateAndGet(threshold -> threshold >>> 1);
+        updates.incrementAndGet();
+    }
+
+    // One bounded findAllById per interval, and only when something changed
+    @Scheduled(fixedDelayString = "${app.trending.refresh-ms:30000}")
+    public void refreshLeaderboard() {
+        long seen = updates.get();
+        if (seen == updatesAtLastRefresh) {
+            return;
+        }
+        List<Long> ranked = candidates.keySet().stream()
+                .map(bookId -> Map.entry(bookId, sketch.estimate(bookId)))
+                .filter(entry -> entry.getValue() > 0)
+                .sorted(Map.Entry.<Long, Long>comparingByValue().reversed())
+                .limit(capacity)
+                .map(Map.Entry::getKey)
+                .toList();
+        Map<Long, Book> books = bookRepository.findAllById(ranked).stream()
+                .collect(Collectors.toMap(Book::getId, Function.identity()));
+        List<TrendingBook> result = new ArrayList<>(ranked.size());
+        for (Long bookId : ranked) {
+            Book book = books.get(bookId);
+            if (book != null) { // deleted since it was borrowed
+                result.add(new TrendingBook(bookId, book.getTitle(), book.getAuthor(), sketch.estimate(bookId)));
+            }
+        }
+        leaderboard = List.copyOf(result);
+        updatesAtLastRefresh = seen;
+    }
+
+    @Scheduled(fixedDelayString = "${app.trending.persist-ms:300000}", initialDelayString = "${app.trending.persist-ms:300000}")
+    @PreDestroy
+    public void persist() {
+        try {
+            leaseLockService.runLocked("trending-persist", Duration.ofMinutes(1), Duration.ZERO, () ->
+                    new TransactionTemplate(transactionManager).executeWithoutResult(status -> merge(LocalDateTime.now())));
+        } catch (DataAccessException e) {
+            log.warn("Could not persist trending scores: {}", e.getMessage());
+        }
+    }
+
+    // Per book, the higher of the stored and the local score; only the top capacity rows are kept
+    private void merge(LocalDateTime now) {
+        Map<Long, TrendingScore> rows = new HashMap<>();
+        for (TrendingScore row : trendingScoreRepository.findAll()) {
+            rows.put(row.getBookId(), row);
+        }
+        Set<Long> stored = new HashSet<>(rows.keySet());
+        for (Long bookId : candidates.keySet()) {
+            long score = sketch.estimate(bookId);
+            TrendingScore row = rows.get(bookId);
+            // A stored score that is still higher keeps its savedAt, so it goes on decaying from there
+            if (score > 0 && (row == null || score > decayed(row, now))) {
+                rows.put(bookId, new TrendingScore(bookId, score, now));
+            }
+        }
+        List<TrendingScore> kept = rows.values().stream()
+                .filter(row -> decayed(row, now) > 0)
+                .sorted(Comparator.comparingLong((TrendingScore row) -> decayed(row, now)).reversed())
+                .limit(capacity)
+                .toList();
+        kept.forEach(row -> stored.remove(row.getBookId()));
+        trendingScoreRepository.deleteAllByIdInBatch(stored);
+        trendingScoreRepository.saveAll(kept);
+    }
+
+    // The stored score halved once per decay interval since it was saved, as the in-memory counts are
+    private long decayed(TrendingScore row, LocalDateTime now) {
+        long halvings = Duration.between(row.getSavedAt(), now).toMillis() / decayIntervalMillis;
+        return halvings >= Long.SIZE ? 0 : row.getScore() >>> halvings;
+    }
+
+    // Warm restart: seed the sketch and candidates from the merged scores, decayed to now
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        LocalDateTime now = LocalDateTime.now();
+        List<TrendingScore> rows = trendingScoreRepository.findAll();
+        rows.sort(Comparator.comparingLong((TrendingScore row) -> decayed(row, now)).reversed());
+        for (TrendingScore row : rows) {
+            long score = decayed(row, now);
+            if (score > 0) {
+                record(row.getBookId(), score);
+            }
+        }
+        refreshLeaderboard();
+        log.info("Trending scores restored for {} books", rows.size());
+    }
+}
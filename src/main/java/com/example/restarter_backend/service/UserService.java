@@ -3,6 +3,8 @@ package com.example.restarter_backend.service;
 import com.example.restarter_backend.entity.Role;
 import com.example.restarter_backend.entity.User;
 import com.example.restarter_backend.dto.RegisterRequest;
+import com.example.restarter_backend.repository.LoanHistoryRepository;
+import com.example.restarter_backend.repository.NaturalIdLookup;
 import com.example.restarter_backend.repository.UserRepository;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -23,14 +25,22 @@ public class UserService implements UserDetailsService {
 
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final NaturalIdLookup naturalIdLookup;
+    private final LoanHistoryRepository loanHistoryRepository;
 
-    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder) {
+    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder, NaturalIdLookup naturalIdLookup,
+                       LoanHistoryRepository loanHistoryRepository) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
+        this.naturalIdLookup = naturalIdLookup;
+        this.loanHistoryRepository = loanHistoryRepository;
     }
 
     @Override
+    @Transactional(readOnly = true)
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
+        // Always from the database, never the per-instance second-level cache: a password change,
+        // demotion or deletion on one instance must take effect on every instance at once
         User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
 
@@ -47,20 +57,24 @@ public class UserService implements UserDetailsService {
      * @param username The username to search for.
      * @return An Optional containing the User if found, empty otherwise.
      */
+    @Transactional(readOnly = true)
     public Optional<User> findByUsername(String username) {
-        return userRepository.findByUsername(username);
+        return naturalIdLookup.findUserByUsername(username);
     }
 
+    @Transactional(readOnly = true)
     public boolean isUserOwner(Long userId, String username) {
         return userRepository.findById(userId)
                 .map(user -> user.getUsername().equals(username))
                 .orElse(false);
     }
 
+    @Transactional(readOnly = true)
     public List<User> getAllUsers() {
         return userRepository.findAll();
     }
 
+    @Transactional(readOnly = true)
     public Optional<User> getUserById(Long id) {
         return userRepository.findById(id);
     }
@@ -99,13 +113,37 @@ public class UserService implements UserDetailsService {
         return userRepository.save(existing);
     }
 
+    /**
+     * Extends a membership to the given date, or by a year when no date is given: from the
+     * current expiry date while the membership runs, from today once it has ended. A membership
+     * that runs again lifts the expiry suspension (see User.setMembershipExpiryDate).
+     */
+    public User renewMembership(Long id, LocalDate until) {
+        User user = userRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+        LocalDate today = LocalDate.now();
+        if (until == null) {
+            LocalDate current = user.getMembershipExpiryDate();
+            until = (current == null || current.isBefore(today) ? today : current).plusYears(1);
+        } else if (until.isBefore(today)) {
+            throw new RuntimeException("Membership expiry date cannot be in the past.");
+        }
+        user.setMembershipExpiryDate(until);
+        return userRepository.save(user);
+    }
+
     public void deleteUser(Long id) {
         if (!userRepository.existsById(id)) {
             throw new RuntimeException("User not found");
         }
+        // Archived loans keep pointing at the user (loan_history has no foreign keys)
+        if (loanHistoryRepository.existsByUserId(id)) {
+            throw new RuntimeException("Cannot delete user: they have archived loans.");
+        }
         userRepository.deleteById(id);
     }
 
+    @Transactional(readOnly = true)
     public List<User> searchUsersByUsername(String name) {
         return userRepository.findAll().stream()
                 .filter(user -> user.getUsername() != null &&
@@ -0,0 +1,59 @@
+package com.example.restarter_backend.util;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Count-Min Sketch over long keys: fixed memory, lock-free increments, and estimates that
+ * never undercount. With width w the overcount is at most about 2N/w with high probability,
+ * N being the total of all increments.
+ */
+public class CountMinSketch {
+
+    private final int depth;
+    private final int width;
+    private final AtomicLongArray counts;
+    private final long[] seeds;
+
+    public CountMinSketch(int depth, int width) {
+        this.depth = depth;
+        this.width = Integer.highestOneBit(Math.max(width, 2) - 1) << 1; // next power of two
+        this.counts = new AtomicLongArray(depth * this.width);
+        this.seeds = new long[depth];
+        SplittableRandom random = new SplittableRandom(0x5DEECE66DL);
+        for (int row = 0; row < depth; row++) {
+            seeds[row] = random.nextLong();
+        }
+    }
+
+    /**
+     * Adds to the key's counters.
+     * @return the key's estimate after the increment
+     */
+    public long add(long key, long amount) {
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counts.addAndGet(slot(key, row), amount));
+        }
+        return estimate;
+    }
+
+    public long estimate(long key) {
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counts.get(slot(key, row)));
+        }
+        return estimate;
+    }
+
+    // Exponential decay: older increments count half as much after each call
+    public void halve() {
+        for (int i = 0; i < counts.length(); i++) {
+            counts.getAndUpdate(i, value -> value >>> 1);
+        }
+    }
+
+    private int slot(long key, int row) {
+        return row * width + (int) (Hashing.mix(key ^ seeds[row]) & (width - 1));
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.restarter_backend.util;
+
+public final class Hashing {
+
+    private Hashing() {
+    }
+
+    // SplitMix64 finalizer: spreads sequential ids over all bits
+    public static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
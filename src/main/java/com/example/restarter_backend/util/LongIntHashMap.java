@@ -0,0 +1,152 @@
+package com.example.restarter_backend.util;
+
+/**
+ * Open-addressing hash map from long to int with linear probing, stored in two primitive
+ * arrays: no boxing and no per-entry objects. Key 0 is reserved as the empty marker.
+ * Not thread-safe; meant for single-threaded batch builds.
+ */
+public class LongIntHashMap {
+
+    private static final double LOAD_FACTOR = 0.6;
+
+    private long[] keys;
+    private int[] values;
+    private int mask;
+    private int size;
+    private int resizeAt;
+
+    @FunctionalInterface
+    public interface EntryConsumer {
+        void accept(long key, int value);
+    }
+
+    public LongIntHashMap(int expectedSize) {
+        allocate(tableSizeFor((int) Math.min(1 << 30, Math.max(4, (long) (expectedSize / LOAD_FACTOR) + 1))));
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int get(long key, int missingValue) {
+        if (key == 0) {
+            return missingValue;
+        }
+        int slot = slot(key);
+        while (true) {
+            long current = keys[slot];
+            if (current == key) {
+                return values[slot];
+            }
+            if (current == 0) {
+                return missingValue;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    public void put(long key, int value) {
+        int slot = findOrInsert(key);
+        values[slot] = value;
+    }
+
+    /**
+     * Adds delta to the key's value (0 if absent).
+     * @return the new value
+     */
+    public int addTo(long key, int delta) {
+        int slot = findOrInsert(key);
+        values[slot] += delta;
+        return values[slot];
+    }
+
+    public void forEach(EntryConsumer consumer) {
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != 0) {
+                consumer.accept(keys[slot], values[slot]);
+            }
+        }
+    }
+
+    /**
+     * Copy holding only the entries whose value is at least minValue.
+     */
+    public LongIntHashMap retainAtLeast(int minValue) {
+        int kept = 0;
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != 0 && values[slot] >= minValue) {
+                kept++;
+            }
+        }
+        LongIntHashMap result = new LongIntHashMap(kept);
+        forEach((key, value) -> {
+            if (value >= minValue) {
+                result.put(key, value);
+            }
+        });
+        return result;
+    }
+
+    private int findOrInsert(long key) {
+        if (key == 0) {
+            throw new IllegalArgumentException("Key 0 is reserved");
+        }
+        int slot = slot(key);
+        while (true) {
+            long current = keys[slot];
+            if (current == key) {
+                return slot;
+            }
+            if (current == 0) {
+                if (size >= resizeAt) {
+                    grow();
+                    return findOrInsert(key);
+                }
+                keys[slot] = key;
+                size++;
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(keys.length << 1);
+        for (int slot = 0; slot < oldKeys.length; slot++) {
+            if (oldKeys[slot] != 0) {
+                int target = slot(oldKeys[slot]);
+                while (keys[target] != 0) {
+                    target = (target + 1) & mask;
+                }
+                keys[target] = oldKeys[slot];
+                values[target] = oldValues[slot];
+                size++;
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+        size = 0;
+        resizeAt = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private int slot(long key) {
+        return (int) Hashing.mix(key) & mask;
+    }
+
+    private static int tableSizeFor(int n) {
+        int capacity = Integer.highestOneBit(n - 1) << 1;
+        return Math.max(capacity, 4);
+    }
+
+    @Override
+    public String toString() {
+        return "LongIntHashMap{size=" + size + ", capacity=" + keys.length + "}";
+    }
+
+}
@@ -0,0 +1,113 @@
+package com.example.restarter_backend.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Request coalescing: concurrent calls with the same key share one execution of the loader.
+ * The first caller runs it on its own thread; the others wait on its CompletableFuture.
+ * A completed result is handed out for memoizeMillis more, which absorbs bursts that
+ * arrive just after the query finished. Failures are not memoized.
+ *
+ * Keys must change when the underlying data does (callers put a version in them),
+ * otherwise a result can be up to memoizeMillis stale.
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, Flight<V>> flights = new ConcurrentHashMap<>();
+    private final long memoizeNanos;
+    private final int maxEntries;
+
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder executions = new LongAdder();
+    private final LongAdder joinedInFlight = new LongAdder();
+    private final LongAdder memoHits = new LongAdder();
+
+    public SingleFlight(long memoizeMillis, int maxEntries) {
+        this.memoizeNanos = Math.max(0, memoizeMillis) * 1_000_000L;
+        this.maxEntries = maxEntries;
+    }
+
+    public V execute(K key, Supplier<V> loader) {
+        calls.increment();
+        while (true) {
+            Flight<V> flight = flights.get(key);
+            if (flight != null) {
+                if (!flight.isExpired(System.nanoTime(), memoizeNanos)) {
+                    (flight.future.isDone() ? memoHits : joinedInFlight).increment();
+                    return await(flight);
+                }
+                flights.remove(key, flight);
+            }
+            Flight<V> mine = new Flight<>();
+            if (flights.putIfAbsent(key, mine) != null) {
+                continue; // Another caller started it first: join that one
+            }
+            return lead(key, mine, loader);
+        }
+    }
+
+    public Map<String, Object> stats() {
+        long callCount = calls.sum();
+        long executionCount = executions.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("calls", callCount);
+        stats.put("executions", executionCount);
+        stats.put("joinedInFlight", joinedInFlight.sum());
+        stats.put("memoHits", memoHits.sum());
+        stats.put("saved", callCount - executionCount);
+        stats.put("entries", flights.size());
+        return stats;
+    }
+
+    private V lead(K key, Flight<V> mine, Supplier<V> loader) {
+        executions.increment();
+        try {
+            V value = loader.get();
+            mine.completedAt = System.nanoTime();
+            mine.future.complete(value);
+            if (memoizeNanos == 0) {
+                flights.remove(key, mine);
+            }
+            return value;
+        } catch (RuntimeException | Error ex) {
+            flights.remove(key, mine);
+            mine.future.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            if (flights.size() > maxEntries) {
+                long now = System.nanoTime();
+                flights.values().removeIf(flight -> flight.isExpired(now, memoizeNanos));
+            }
+        }
+    }
+
+    private static <V> V await(Flight<V> flight) {
+        try {
+            return flight.future.join();
+        } catch (CompletionException ex) {
+            // The leader's own exception, so followers see the same error the leader did
+            if (ex.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (ex.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw ex;
+        }
+    }
+
+    private static final class Flight<V> {
+        final CompletableFuture<V> future = new CompletableFuture<>();
+        volatile long completedAt;
+
+        boolean isExpired(long now, long memoizeNanos) {
+            return future.isDone() && (future.isCompletedExceptionally() || now - completedAt > memoizeNanos);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+-- Month-partitioned loan history for MySQL 8. Run once before the first archival run
+-- (Hibernate's ddl-auto would otherwise create loan_history unpartitioned).
+--
+-- The partition key has to be part of every unique key, hence PRIMARY KEY (id, return_date),
+-- and partitioned InnoDB tables cannot have foreign keys. Old months can be dropped with
+-- ALTER TABLE loan_history DROP PARTITION p2024_01; LoanArchivalService splits new months
+-- off pmax ahead of time when app.archival.manage-partitions=true.
+
+CREATE TABLE IF NOT EXISTS loan_history (
+    id            BIGINT       NOT NULL,
+    book_id       BIGINT       NOT NULL,
+    copy_id       BIGINT       NULL,
+    user_id       BIGINT       NOT NULL,
+    loan_date     DATE         NULL,
+    due_date      DATE         NULL,
+    return_date   DATE         NOT NULL,
+    status        ENUM('ACTIVE', 'OVERDUE', 'RETURNED') NULL,
+    renewal_count INT          NOT NULL,
+    PRIMARY KEY (id, return_date),
+    KEY idx_loan_history_user (user_id),
+    KEY idx_loan_history_book (book_id),
+    KEY idx_loan_history_return_date (return_date)
+) ENGINE = InnoDB
+PARTITION BY RANGE COLUMNS (return_date) (
+    PARTITION p2024_01 VALUES LESS THAN ('2024-02-01'),
+    PARTITION pmax VALUES LESS THAN (MAXVALUE)
+);
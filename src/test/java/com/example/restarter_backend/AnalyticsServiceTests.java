@@ -0,0 +1,171 @@
+package com.example.restarter_backend;
+
+import com.example.restarter_backend.entity.Book;
+import com.example.restarter_backend.entity.DailyBookLoanStat;
+import com.example.restarter_backend.entity.DailyCategoryStat;
+import com.example.restarter_backend.entity.Loan;
+import com.example.restarter_backend.entity.OutboxEvent;
+import com.example.restarter_backend.entity.Role;
+import com.example.restarter_backend.entity.User;
+import com.example.restarter_backend.event.LoanEvent;
+import com.example.restarter_backend.repository.BookRepository;
+import com.example.restarter_backend.repository.DailyBookLoanStatRepository;
+import com.example.restarter_backend.repository.DailyCategoryStatRepository;
+import com.example.restarter_backend.repository.LoanRepository;
+import com.example.restarter_backend.repository.OutboxEventRepository;
+import com.example.restarter_backend.repository.UserRepository;
+import com.example.restarter_backend.service.AnalyticsService;
+import com.example.restarter_backend.service.LeaseLockService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("h2")
+@Import({AnalyticsService.class, LeaseLockService.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // each event and each compaction commits itself
+class AnalyticsServiceTests {
+
+    private static final LocalDate DAY = LocalDate.now().minusDays(3);
+
+    @Autowired
+    private AnalyticsService analyticsService;
+
+    @Autowired
+    private DailyCategoryStatRepository dailyCategoryStatRepository;
+
+    @Autowired
+    private DailyBookLoanStatRepository dailyBookLoanStatRepository;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private LoanRepository loanRepository;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private Book book;
+    private User member;
+
+    @BeforeEach
+    void setUp() {
+        book = bookRepository.save(new Book(null, "AN-0001", "Analytics Title", "Analytics Author",
+                "Fiction", 2000, 3, Book.Status.AVAILABLE));
+        member = new User();
+        member.setUsername("analytics-member");
+        member.setRole(Role.MEMBER);
+        member = userRepository.save(member);
+    }
+
+    @AfterEach
+    void tearDown() {
+        dailyCategoryStatRepository.deleteAll();
+        dailyBookLoanStatRepository.deleteAll();
+        outboxEventRepository.deleteAll();
+        loanRepository.deleteAll();
+        bookRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void eventsCountOnTheirLoanDaysOnceEach() {
+        LoanEvent created = event(LoanEvent.Type.LOAN_CREATED, DAY, DAY.plusDays(14), null);
+        LoanEvent returnedLate = event(LoanEvent.Type.LOAN_RETURNED, DAY.minusDays(20), DAY.minusDays(1), DAY);
+
+        analyticsService.onLoanEvent(created);
+        analyticsService.onLoanEvent(returnedLate);
+        // Redelivered (a retry after another listener failed, or by the poller on another instance)
+        analyticsService.onLoanEvent(created);
+        analyticsService.onLoanEvent(returnedLate);
+
+        DailyCategoryStat fiction = categoryStat(DAY);
+        assertEquals(1, fiction.getLoansCreated());
+        assertEquals(1, fiction.getLoansReturned());
+        assertEquals(1, fiction.getReturnedLate());
+        DailyBookLoanStat perBook = bookStat(DAY);
+        assertEquals(1, perBook.getLoansCreated());
+        assertEquals(1, perBook.getLoansReturned());
+    }
+
+    @Test
+    void compactionRebuildsCreatedAndReturnedFromLoans() {
+        loanRepository.save(new Loan(null, book, member, null, DAY, DAY.plusDays(14), null, Loan.Status.ACTIVE, 0));
+        loanRepository.save(new Loan(null, book, member, null, DAY, DAY.plusDays(14), null, Loan.Status.ACTIVE, 0));
+        loanRepository.save(new Loan(null, book, member, null, DAY.minusDays(20), DAY.minusDays(6), DAY, Loan.Status.RETURNED, 0));
+        // Only one of the two loans reached the rollups as an event; one loan went overdue that day
+        analyticsService.onLoanEvent(event(LoanEvent.Type.LOAN_CREATED, DAY, DAY.plusDays(14), null));
+        analyticsService.onLoanEvent(event(LoanEvent.Type.LOAN_OVERDUE, DAY.minusDays(20), DAY.minusDays(1), null));
+
+        analyticsService.compactDay(DAY);
+
+        DailyCategoryStat fiction = categoryStat(DAY);
+        assertEquals(2, fiction.getLoansCreated());
+        assertEquals(1, fiction.getLoansReturned());
+        assertEquals(1, fiction.getReturnedLate());
+        assertEquals(1, fiction.getBecameOverdue()); // kept: the loans table does not record it
+        assertTrue(fiction.isCompacted());
+        assertEquals(2, bookStat(DAY).getLoansCreated());
+        assertEquals(1, bookStat(DAY).getLoansReturned());
+
+        // Delivered late, after the compaction: the loans table already counted it
+        analyticsService.onLoanEvent(event(LoanEvent.Type.LOAN_CREATED, DAY, DAY.plusDays(14), null));
+        analyticsService.onLoanEvent(event(LoanEvent.Type.LOAN_OVERDUE, DAY.minusDays(20), DAY.minusDays(1), null));
+
+        fiction = categoryStat(DAY);
+        assertEquals(2, fiction.getLoansCreated());
+        assertEquals(2, fiction.getBecameOverdue());
+        assertEquals(2, bookStat(DAY).getLoansCreated());
+
+        // Compacting again gives the same counts
+        analyticsService.compactDay(DAY);
+        assertEquals(2, categoryStat(DAY).getLoansCreated());
+        assertEquals(2, categoryStat(DAY).getBecameOverdue());
+    }
+
+    // An outbox row as LoanEventPublisher writes it, occurring on DAY
+    private LoanEvent event(LoanEvent.Type type, LocalDate loanDate, LocalDate dueDate, LocalDate returnDate) {
+        OutboxEvent row = new OutboxEvent();
+        row.setType(type);
+        row.setBookId(book.getId());
+        row.setUserId(member.getId());
+        row.setLoanDate(loanDate);
+        row.setDueDate(dueDate);
+        row.setReturnDate(returnDate);
+        row.setCategory(book.getCategory());
+        row.setOccurredAt(DAY.atTime(12, 0));
+        return LoanEvent.from(outboxEventRepository.save(row));
+    }
+
+    private DailyCategoryStat categoryStat(LocalDate day) {
+        List<DailyCategoryStat> stats = dailyCategoryStatRepository.findByStatDate(day);
+        assertEquals(1, stats.size());
+        assertEquals("Fiction", stats.get(0).getCategory());
+        return stats.get(0);
+    }
+
+    private DailyBookLoanStat bookStat(LocalDate day) {
+        return dailyBookLoanStatRepository.findAll().stream()
+                .filter(stat -> stat.getStatDate().equals(day) && stat.getBookId().equals(book.getId()))
+                .findFirst()
+                .orElseThrow();
+    }
+}
@@ -0,0 +1,213 @@
+package com.example.restarter_backend;
+
+import com.example.restarter_backend.entity.Book;
+import com.example.restarter_backend.entity.BookCopy;
+import com.example.restarter_backend.entity.Loan;
+import com.example.restarter_backend.entity.Role;
+import com.example.restarter_backend.entity.User;
+import com.example.restarter_backend.repository.BookCopyRepository;
+import com.example.restarter_backend.repository.BookRepository;
+import com.example.restarter_backend.repository.LoanRepository;
+import com.example.restarter_backend.repository.UserRepository;
+import com.example.restarter_backend.service.BookCopyService;
+import com.example.restarter_backend.service.CatalogVersion;
+import com.example.restarter_backend.service.LeaseLockService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Each call runs in its own committed transaction, as in LoanService. H2 has no SKIP LOCKED, so
+ * the checkouts here run one after the other; on MySQL concurrent checkouts skip each other's copy.
+ */
+@DataJpaTest(properties = "app.copies.backfill-on-startup=false")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("h2")
+@Import({BookCopyService.class, CatalogVersion.class, LeaseLockService.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class BookCopyServiceTests {
+
+    @Autowired
+    private BookCopyService bookCopyService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private BookCopyRepository bookCopyRepository;
+
+    @Autowired
+    private LoanRepository loanRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transaction;
+    private User member;
+    private int seeded;
+
+    @BeforeEach
+    void setUp() {
+        transaction = new TransactionTemplate(transactionManager);
+        member = new User();
+        member.setUsername("copies-member");
+        member.setRole(Role.MEMBER);
+        member = userRepository.save(member);
+    }
+
+    @AfterEach
+    void tearDown() {
+        loanRepository.deleteAll();
+        bookCopyRepository.deleteAll();
+        bookRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void checkoutsTakeDifferentCopiesUntilNoneIsLeft() {
+        Long bookId = catalogued(2);
+
+        BookCopy first = allocate(bookId).orElseThrow();
+        BookCopy second = allocate(bookId).orElseThrow();
+
+        assertNotEquals(first.getId(), second.getId());
+        assertTrue(allocate(bookId).isEmpty());
+        assertEquals(Map.of(BookCopy.Status.ON_LOAN, 2L), statuses(bookId));
+        Book book = bookRepository.findById(bookId).orElseThrow();
+        assertEquals(0, book.getCopiesAvailable());
+        assertEquals(Book.Status.BORROWED, book.getStatus());
+    }
+
+    @Test
+    void backfillAttachesOutstandingLoansToTheirOwnCopies() {
+        // Catalogued before copies were tracked: copiesAvailable holds the copies owned
+        Long bookId = bookRepository.save(book(3)).getId();
+        Loan active = loan(bookId, Loan.Status.ACTIVE, null);
+        Loan overdue = loan(bookId, Loan.Status.OVERDUE, null);
+        Loan returned = loan(bookId, Loan.Status.RETURNED, LocalDate.now());
+
+        BookCopy allocated = allocate(bookId).orElseThrow();
+
+        Long activeCopy = copyIdOf(active);
+        Long overdueCopy = copyIdOf(overdue);
+        assertNotNull(activeCopy);
+        assertNotNull(overdueCopy);
+        assertNotEquals(activeCopy, overdueCopy);
+        assertNotEquals(allocated.getId(), activeCopy);
+        assertNotEquals(allocated.getId(), overdueCopy);
+        assertNull(copyIdOf(returned));
+        assertEquals(Map.of(BookCopy.Status.ON_LOAN, 3L), statuses(bookId));
+        assertEquals(0, bookRepository.findById(bookId).orElseThrow().getCopiesAvailable());
+    }
+
+    @Test
+    void withdrawingNeverTouchesCopiesOnLoan() {
+        Long bookId = catalogued(3);
+        BookCopy lent = allocate(bookId).orElseThrow();
+
+        assertEquals(0, setAvailableCopies(bookId, 0));
+
+        assertEquals(Map.of(BookCopy.Status.ON_LOAN, 1L, BookCopy.Status.WITHDRAWN, 2L), statuses(bookId));
+        assertEquals(BookCopy.Status.ON_LOAN, bookCopyRepository.findById(lent.getId()).orElseThrow().getStatus());
+        assertEquals(Book.Status.BORROWED, bookRepository.findById(bookId).orElseThrow().getStatus());
+
+        // Adding copies back creates new ones with fresh barcodes
+        assertEquals(2, setAvailableCopies(bookId, 2));
+        assertEquals(Map.of(BookCopy.Status.ON_LOAN, 1L, BookCopy.Status.WITHDRAWN, 2L, BookCopy.Status.AVAILABLE, 2L),
+                statuses(bookId));
+        assertEquals(5, bookCopyRepository.findAll().stream().map(BookCopy::getBarcode).distinct().count());
+    }
+
+    @Test
+    void returnPutsTheCopyBackAndRestoresTheCounter() {
+        Long bookId = catalogued(1);
+        BookCopy copy = allocate(bookId).orElseThrow();
+        Loan loan = loanRepository.save(new Loan(null, bookRepository.findById(bookId).orElseThrow(), member,
+                copy, LocalDate.now(), LocalDate.now().plusDays(14), null, Loan.Status.ACTIVE, 0));
+
+        release(loan.getId());
+
+        assertEquals(Map.of(BookCopy.Status.AVAILABLE, 1L), statuses(bookId));
+        Book book = bookRepository.findById(bookId).orElseThrow();
+        assertEquals(1, book.getCopiesAvailable());
+        assertEquals(Book.Status.AVAILABLE, book.getStatus());
+
+        // Releasing the same loan again changes nothing
+        release(loan.getId());
+        assertEquals(1, bookRepository.findById(bookId).orElseThrow().getCopiesAvailable());
+
+        // The counter matches the copy rows, so a recount has nothing to fix
+        boolean fixed = transaction.execute(status -> bookCopyService.recount(bookRepository.findById(bookId).orElseThrow()));
+        assertFalse(fixed);
+    }
+
+    private Long catalogued(int copies) {
+        return transaction.execute(status -> {
+            Book book = bookRepository.save(book(copies));
+            bookCopyService.createInitialCopies(book);
+            return book.getId();
+        });
+    }
+
+    private Optional<BookCopy> allocate(Long bookId) {
+        return transaction.execute(status -> bookCopyService.allocate(bookRepository.findById(bookId).orElseThrow()));
+    }
+
+    private int setAvailableCopies(Long bookId, int requested) {
+        return transaction.execute(status ->
+                bookCopyService.setAvailableCopies(bookRepository.findById(bookId).orElseThrow(), requested));
+    }
+
+    private void release(Long loanId) {
+        transaction.executeWithoutResult(status -> bookCopyService.release(loanRepository.findById(loanId).orElseThrow()));
+    }
+
+    private Loan loan(Long bookId, Loan.Status status, LocalDate returnDate) {
+        LocalDate loanDate = LocalDate.now().minusDays(20);
+        return loanRepository.save(new Loan(null, bookRepository.findById(bookId).orElseThrow(), member, null,
+                loanDate, loanDate.plusDays(14), returnDate, status, 0));
+    }
+
+    private Long copyIdOf(Loan loan) {
+        return transaction.execute(status -> {
+            BookCopy copy = loanRepository.findById(loan.getId()).orElseThrow().getCopy();
+            return copy != null ? copy.getId() : null;
+        });
+    }
+
+    private Map<BookCopy.Status, Long> statuses(Long bookId) {
+        return transaction.execute(status -> bookCopyRepository.findAll().stream()
+                .filter(copy -> copy.getBook().getId().equals(bookId))
+                .collect(Collectors.groupingBy(BookCopy::getStatus, Collectors.counting())));
+    }
+
+    private Book book(int copies) {
+        ++seeded;
+        return new Book(null, "BC-" + seeded, "Title " + seeded, "Author " + seeded, "Fiction", 2000, copies,
+                Book.Status.AVAILABLE);
+    }
+}
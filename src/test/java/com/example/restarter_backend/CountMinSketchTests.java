@@ -0,0 +1,69 @@
+package com.example.restarter_backend;
+
+import com.example.restarter_backend.util.CountMinSketch;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CountMinSketchTests {
+
+    @Test
+    void fewKeysInAWideSketchAreCountedExactly() {
+        CountMinSketch sketch = new CountMinSketch(4, 4096);
+        assertEquals(3, sketch.add(1L, 3));
+        assertEquals(5, sketch.add(1L, 2));
+        sketch.add(2L, 7);
+
+        assertEquals(5, sketch.estimate(1L));
+        assertEquals(7, sketch.estimate(2L));
+        assertEquals(0, sketch.estimate(3L));
+    }
+
+    @Test
+    void estimatesNeverUndercount() {
+        // 1000 keys in 4 x 64 counters: plenty of collisions
+        CountMinSketch sketch = new CountMinSketch(4, 64);
+        for (long key = 0; key < 1000; key++) {
+            long estimate = sketch.add(key, key % 10 + 1);
+            assertTrue(estimate >= key % 10 + 1);
+        }
+        for (long key = 0; key < 1000; key++) {
+            assertTrue(sketch.estimate(key) >= key % 10 + 1, "key " + key);
+        }
+    }
+
+    @Test
+    void halvingDecaysEveryCount() {
+        CountMinSketch sketch = new CountMinSketch(4, 4096);
+        sketch.add(1L, 9);
+        sketch.add(2L, 1);
+
+        sketch.halve();
+        assertEquals(4, sketch.estimate(1L));
+        assertEquals(0, sketch.estimate(2L));
+        sketch.halve();
+        assertEquals(2, sketch.estimate(1L));
+    }
+
+    @Test
+    void concurrentIncrementsAreNotLost() throws Exception {
+        CountMinSketch sketch = new CountMinSketch(4, 4096);
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        for (int thread = 0; thread < 4; thread++) {
+            pool.execute(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    sketch.add(42L, 1);
+                }
+            });
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(30, TimeUnit.SECONDS));
+
+        assertEquals(40_000, sketch.estimate(42L));
+    }
+}
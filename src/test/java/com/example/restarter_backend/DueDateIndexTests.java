@@ -0,0 +1,93 @@
+package com.example.restarter_backend;
+
+import com.example.restarter_backend.event.LoanEvent;
+import com.example.restarter_backend.service.DueDateIndex;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DueDateIndexTests {
+
+    private static final LocalDate TODAY = LocalDate.of(2025, 6, 10);
+
+    private final DueDateIndex index = new DueDateIndex();
+
+    @Test
+    void expiredLoansAreThoseDueBeforeToday() {
+        index.add(1L, TODAY.minusDays(2));
+        index.add(2L, TODAY.minusDays(1));
+        index.add(3L, TODAY);
+        index.add(4L, TODAY.plusDays(5));
+
+        assertEquals(List.of(1L, 2L), sorted(index.expiredLoanIds(TODAY)));
+        assertEquals(4, index.size());
+        assertEquals(4, index.bucketCount());
+    }
+
+    @Test
+    void renewalMovesTheLoanToItsNewBucket() {
+        index.add(1L, TODAY.minusDays(1));
+        index.add(1L, TODAY.plusDays(14));
+
+        assertTrue(index.expiredLoanIds(TODAY).isEmpty());
+        assertEquals(List.of(1L), index.expiredLoanIds(TODAY.plusDays(15)));
+        assertEquals(1, index.size());
+        assertEquals(1, index.bucketCount()); // the emptied bucket is dropped
+    }
+
+    @Test
+    void removedLoansLeaveTheIndex() {
+        index.add(1L, TODAY.minusDays(1));
+        index.add(2L, TODAY.minusDays(1));
+        index.remove(1L);
+        index.remove(99L); // unknown ids are ignored
+
+        assertEquals(List.of(2L), index.expiredLoanIds(TODAY));
+        index.remove(2L);
+        assertEquals(0, index.size());
+        assertEquals(0, index.bucketCount());
+    }
+
+    @Test
+    void evictionDropsOnlyExpiredBuckets() {
+        index.add(1L, TODAY.minusDays(3));
+        index.add(2L, TODAY.minusDays(1));
+        index.add(3L, TODAY);
+
+        index.evictBefore(TODAY);
+
+        assertTrue(index.expiredLoanIds(TODAY).isEmpty());
+        assertEquals(List.of(3L), index.expiredLoanIds(TODAY.plusDays(1)));
+        assertEquals(1, index.size());
+        // An evicted loan can be added again (renewed after it had expired)
+        index.add(1L, TODAY.plusDays(14));
+        assertEquals(2, index.size());
+    }
+
+    @Test
+    void eventsKeepTheIndexCurrentAndRedeliveryIsHarmless() {
+        LoanEvent created = event(1L, LoanEvent.Type.LOAN_CREATED, TODAY.minusDays(1));
+        index.onLoanEvent(created);
+        index.onLoanEvent(created);
+        assertEquals(List.of(1L), index.expiredLoanIds(TODAY));
+
+        index.onLoanEvent(event(2L, LoanEvent.Type.LOAN_RENEWED, TODAY.plusDays(14)));
+        index.onLoanEvent(event(1L, LoanEvent.Type.LOAN_RETURNED, null));
+        index.onLoanEvent(event(1L, LoanEvent.Type.LOAN_RETURNED, null));
+
+        assertTrue(index.expiredLoanIds(TODAY).isEmpty());
+        assertEquals(1, index.size());
+    }
+
+    private static LoanEvent event(Long loanId, LoanEvent.Type type, LocalDate dueDate) {
+        return new LoanEvent(loanId, type, loanId, 10L, 20L, dueDate, TODAY.atStartOfDay());
+    }
+
+    private static List<Long> sorted(List<Long> ids) {
+        return ids.stream().sorted().toList();
+    }
+}
@@ -0,0 +1,160 @@
+package com.example.restarter_backend;
+
+import com.example.restarter_backend.entity.IdempotencyRecord;
+import com.example.restarter_backend.repository.IdempotencyRecordRepository;
+import com.example.restarter_backend.service.IdempotencyService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("h2")
+@Import(IdempotencyService.class)
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // claims and responses commit in their own transactions
+class IdempotencyServiceTests {
+
+    private static final Map<String, Object> BODY = Map.of("isbn", "978-0", "username", "member");
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    private final AtomicInteger runs = new AtomicInteger();
+
+    @AfterEach
+    void tearDown() {
+        idempotencyRecordRepository.deleteAll();
+    }
+
+    @Test
+    void repeatReplaysTheStoredResponse() {
+        ResponseEntity<?> first = create("key-replay", "member", BODY);
+        ResponseEntity<?> repeat = create("key-replay", "member", BODY);
+
+        assertEquals(1, runs.get());
+        assertEquals(HttpStatus.CREATED, first.getStatusCode());
+        assertNull(first.getHeaders().getFirst("Idempotent-Replayed"));
+        assertEquals(HttpStatus.CREATED, repeat.getStatusCode());
+        assertEquals("true", repeat.getHeaders().getFirst("Idempotent-Replayed"));
+        assertEquals("{\"loan\":1}", repeat.getBody());
+    }
+
+    @Test
+    void keyReusedForAnotherBodyIsRefused() {
+        create("key-reused", "member", BODY);
+        ResponseEntity<?> reused = create("key-reused", "member", Map.of("isbn", "978-1", "username", "member"));
+
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, reused.getStatusCode());
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    void repeatWhileTheFirstRequestRunsGetsConflict() {
+        AtomicReference<ResponseEntity<?>> repeat = new AtomicReference<>();
+        execute("key-running", "member", "/api/loans", BODY, () -> {
+            repeat.set(create("key-running", "member", BODY));
+            return ResponseEntity.status(HttpStatus.CREATED).body(Map.of("loan", 1));
+        });
+
+        assertEquals(HttpStatus.CONFLICT, repeat.get().getStatusCode());
+        assertEquals(0, runs.get()); // the repeat never ran its action
+    }
+
+    @Test
+    void keysAreScopedByUserAndPath() {
+        create("key-shared", "member", BODY);
+        create("key-shared", "other-member", BODY);
+        execute("key-shared", "member", "/api/loans/1/return", null,
+                () -> ResponseEntity.ok(Map.of("loan", runs.incrementAndGet())));
+
+        assertEquals(3, runs.get());
+    }
+
+    @Test
+    void failuresAndServerErrorsFreeTheKey() {
+        assertThrows(IllegalStateException.class, () -> execute("key-failing", "member", "/api/loans", BODY, () -> {
+            runs.incrementAndGet();
+            throw new IllegalStateException("boom");
+        }));
+        execute("key-failing", "member", "/api/loans", BODY, () -> {
+            runs.incrementAndGet();
+            return ResponseEntity.internalServerError().build();
+        });
+        ResponseEntity<?> retry = create("key-failing", "member", BODY);
+
+        assertEquals(HttpStatus.CREATED, retry.getStatusCode());
+        assertEquals(3, runs.get());
+    }
+
+    @Test
+    void responseThatCannotBeStoredKeepsTheKeyTaken() {
+        ResponseEntity<?> first = execute("key-unstorable", "member", "/api/loans", BODY, () -> {
+            runs.incrementAndGet();
+            return ResponseEntity.status(HttpStatus.CREATED).body(new Unserializable());
+        });
+        ResponseEntity<?> repeat = create("key-unstorable", "member", BODY);
+
+        assertEquals(HttpStatus.CREATED, first.getStatusCode()); // the client still gets its loan
+        assertEquals(HttpStatus.CONFLICT, repeat.getStatusCode()); // and a retry does not create another
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    void slowRequestKeepsItsClaim() {
+        AtomicReference<ResponseEntity<?>> repeat = new AtomicReference<>();
+        execute("key-slow", "member", "/api/loans", BODY, () -> {
+            // The claim has run past in-progress-timeout-seconds; the renewal pushes it back
+            IdempotencyRecord claim = idempotencyRecordRepository.findAll().get(0);
+            claim.setExpiresAt(LocalDateTime.now().minusSeconds(1));
+            idempotencyRecordRepository.save(claim);
+            idempotencyService.renewClaims();
+
+            repeat.set(create("key-slow", "member", BODY));
+            return ResponseEntity.status(HttpStatus.CREATED).body(Map.of("loan", 1));
+        });
+
+        assertEquals(HttpStatus.CONFLICT, repeat.get().getStatusCode());
+        assertEquals(0, runs.get());
+    }
+
+    private ResponseEntity<?> create(String key, String username, Object body) {
+        return execute(key, username, "/api/loans", body,
+                () -> ResponseEntity.status(HttpStatus.CREATED).body(Map.of("loan", runs.incrementAndGet())));
+    }
+
+    private ResponseEntity<?> execute(String key, String username, String path, Object body,
+                                      Supplier<ResponseEntity<?>> action) {
+        return idempotencyService.execute(key, username, path.endsWith("/return") ? "PUT" : "POST", path, body, action);
+    }
+
+    // Jackson fails on the getter, as it would on any body it cannot write
+    static class Unserializable {
+        public String getValue() {
+            throw new IllegalStateException("not serializable");
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.restarter_backend;
+
+import com.example.restarter_backend.entity.SchedulerLock;
+import com.example.restarter_backend.repository.SchedulerLockRepository;
+import com.example.restarter_backend.service.LeaseLockService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Several LeaseLockService instances with different node ids share one H2 database,
+ * standing in for application instances sharing the MySQL primary.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("h2")
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // leases commit in their own transactions
+class LeaseLockServiceTests {
+
+    private static final Duration MINUTE = Duration.ofMinutes(1);
+
+    @Autowired
+    private SchedulerLockRepository schedulerLockRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void setUp() {
+        schedulerLockRepository.deleteAll();
+    }
+
+    @Test
+    void heldLeaseBlocksOtherNodesUntilReleased() {
+        LeaseLockService nodeA = node("node-a");
+        LeaseLockService nodeB = node("node-b");
+        AtomicInteger runsOnB = new AtomicInteger();
+
+        assertTrue(nodeA.runLocked("job", MINUTE, Duration.ZERO,
+                () -> assertFalse(nodeB.runLocked("job", MINUTE, Duration.ZERO, runsOnB::incrementAndGet))));
+        assertEquals(0, runsOnB.get());
+
+        // lockAtLeastFor of zero: released as soon as node A finished
+        assertTrue(nodeB.runLocked("job", MINUTE, Duration.ZERO, runsOnB::incrementAndGet));
+        assertEquals(1, runsOnB.get());
+    }
+
+    @Test
+    void lockAtLeastForKeepsTheLeaseAfterAQuickRun() {
+        assertTrue(node("node-a").runLocked("job", MINUTE, MINUTE, () -> { }));
+        assertFalse(node("node-b").runLocked("job", MINUTE, MINUTE, () -> { }));
+    }
+
+    @Test
+    void expiredLeaseOfACrashedNodeIsTakenOver() {
+        LocalDateTime now = LocalDateTime.now();
+        schedulerLockRepository.save(new SchedulerLock("expired", "crashed", now.minusMinutes(10), now.minusMinutes(1)));
+        schedulerLockRepository.save(new SchedulerLock("live", "busy", now, now.plusMinutes(10)));
+
+        assertTrue(node("node-a").runLocked("expired", MINUTE, Duration.ZERO, () -> { }));
+        assertFalse(node("node-a").runLocked("live", MINUTE, Duration.ZERO, () -> { }));
+    }
+
+    @Test
+    void failedRunReleasesTheLeaseAtOnce() {
+        try {
+            node("node-a").runLocked("job", MINUTE, MINUTE, () -> { throw new IllegalStateException("boom"); });
+        } catch (IllegalStateException expected) {
+            // the task's failure reaches the caller
+        }
+        assertTrue(node("node-b").runLocked("job", MINUTE, MINUTE, () -> { }));
+    }
+
+    @Test
+    void concurrentNodesRunTheJobExactlyOnce() throws Exception {
+        int nodes = 8;
+        AtomicInteger runs = new AtomicInteger();
+        List<Boolean> results = runOnNodes(nodes, node -> node.runLocked("nightly", MINUTE, MINUTE, runs::incrementAndGet));
+
+        assertEquals(1, runs.get());
+        assertEquals(1, results.stream().filter(Boolean::booleanValue).count());
+    }
+
+    private LeaseLockService node(String nodeId) {
+        return new LeaseLockService(schedulerLockRepository, transactionManager, nodeId);
+    }
+
+    // Starts one thread per simulated node and releases them together
+    private <T> List<T> runOnNodes(int nodes, NodeTask<T> task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(nodes);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<T>> futures = new ArrayList<>();
+            for (int i = 0; i < nodes; i++) {
+                LeaseLockService node = node("node-" + i);
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return task.run(node);
+                }));
+            }
+            start.countDown();
+            List<T> results = new ArrayList<>();
+            for (Future<T> future : futures) {
+                results.add(future.get(30, TimeUnit.SECONDS));
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @FunctionalInterface
+    private interface NodeTask<T> {
+        T run(LeaseLockService node);
+    }
+}
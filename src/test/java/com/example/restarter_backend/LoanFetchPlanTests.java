@@ -0,0 +1,166 @@
+package com.example.restarter_backend;
+
+import com.example.restarter_backend.dto.Views;
+import com.example.restarter_backend.entity.Book;
+import com.example.restarter_backend.entity.BookCopy;
+import com.example.restarter_backend.entity.Loan;
+import com.example.restarter_backend.entity.LoanRecord;
+import com.example.restarter_backend.entity.Role;
+import com.example.restarter_backend.entity.User;
+import com.example.restarter_backend.repository.LoanRecordRepository;
+import com.example.restarter_backend.repository.LoanRepository;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.hibernate.Hibernate;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Statements per loan endpoint, counted with Hibernate statistics: the listings must cost the
+ * same number of selects for 3 loans as for 60 (no N+1 over book, user or copy).
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("h2")
+class LoanFetchPlanTests {
+
+    // As the app serializes loan listings (DEFAULT_VIEW_INCLUSION off, Summary view)
+    private static final ObjectWriter SUMMARY = Jackson2ObjectMapperBuilder.json().build().writerWithView(Views.Summary.class);
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private LoanRepository loanRepository;
+
+    @Autowired
+    private LoanRecordRepository loanRecordRepository;
+
+    private Statistics statistics;
+    private int seeded;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void allLoansListingIsOneSelectWhateverTheRowCount() throws Exception {
+        seed(3);
+        long few = statementsFor(() -> loanRecordRepository.findAll());
+        seed(57);
+        long many = statementsFor(() -> loanRecordRepository.findAll());
+
+        assertEquals(1, few);
+        assertEquals(few, many);
+    }
+
+    @Test
+    void myLoansListingIsOneSelectWhateverTheRowCount() throws Exception {
+        User member = seed(3);
+        long few = statementsFor(() -> loanRecordRepository.findByUserId(member.getId()));
+        for (int i = 0; i < 20; i++) {
+            loan(member, book(), null);
+        }
+        long many = statementsFor(() -> loanRecordRepository.findByUserId(member.getId()));
+
+        assertEquals(1, few);
+        assertEquals(few, many);
+    }
+
+    @Test
+    void renewAndReturnLoadTheLoanWithItsAssociationsInOneSelect() throws Exception {
+        User member = seed(1);
+        Long id = loan(member, book(), null).getId();
+
+        assertEquals(1, statementsFor(() -> List.of(loanRepository.findWithDetailsById(id).orElseThrow())));
+    }
+
+    @Test
+    void statusSweepLoadsLoansOnlyAndBatchesAssociationsWhenTouched() {
+        seed(40);
+        clear();
+
+        List<Loan> active = loanRepository.findByStatus(Loan.Status.ACTIVE);
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertFalse(Hibernate.isInitialized(active.get(0).getBook()));
+
+        // 40 distinct books, @BatchSize(50): one more select instead of 40
+        active.forEach(loan -> loan.getBook().getTitle());
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void ownershipCheckLoadsNothing() {
+        User member = seed(1);
+        Long id = loanRepository.findByUserId(member.getId()).get(0).getId();
+        clear();
+
+        assertTrue(loanRepository.existsByIdAndUserUsername(id, member.getUsername()));
+        assertFalse(loanRepository.existsByIdAndUserUsername(id, "someone-else"));
+        assertEquals(2, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    // Clears the persistence context, runs the query, serializes the result and returns the statements it took
+    private long statementsFor(Supplier<List<?>> query) throws Exception {
+        clear();
+        List<?> rows = query.get();
+        assertFalse(rows.isEmpty());
+        SUMMARY.writeValueAsBytes(rows);
+        return statistics.getPrepareStatementCount();
+    }
+
+    private void clear() {
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+    }
+
+    // One member per loan, each with its own book, every other loan on a tracked copy; returns the last member
+    private User seed(int loans) {
+        User member = null;
+        for (int i = 0; i < loans; i++) {
+            member = user();
+            Book book = book();
+            BookCopy copy = i % 2 == 0 ? entityManager.persist(new BookCopy(book, book.getIsbn() + "-1", BookCopy.Status.ON_LOAN)) : null;
+            loan(member, book, copy);
+        }
+        return member;
+    }
+
+    private User user() {
+        User user = new User();
+        user.setUsername("member-" + ++seeded);
+        user.setName("Member " + seeded);
+        user.setRole(Role.MEMBER);
+        return entityManager.persist(user);
+    }
+
+    private Book book() {
+        ++seeded;
+        return entityManager.persist(new Book(null, "FP-" + seeded, "Title " + seeded, "Author " + seeded,
+                "Fiction", 2000, 0, Book.Status.BORROWED));
+    }
+
+    private Loan loan(User member, Book book, BookCopy copy) {
+        LocalDate today = LocalDate.now();
+        return entityManager.persist(new Loan(null, book, member, copy, today, today.plusDays(14), null, Loan.Status.ACTIVE, 0));
+    }
+}
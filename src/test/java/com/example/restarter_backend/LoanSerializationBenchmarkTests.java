@@ -0,0 +1,129 @@
+package com.example.restarter_backend;
+
+import com.example.restarter_backend.dto.Views;
+import com.example.restarter_backend.entity.Book;
+import com.example.restarter_backend.entity.Loan;
+import com.example.restarter_backend.entity.Role;
+import com.example.restarter_backend.entity.User;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Serialization cost of the /api/loans/all payload with 100k loans.
+ * Run with: mvn -Pbenchmarks test
+ */
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+class LoanSerializationBenchmarkTests {
+
+    private static final int LOANS = 100_000;
+    private static final int BOOKS = 2_000;
+    private static final int USERS = 10_000;
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int MEASURED_ROUNDS = 5;
+
+    @Test
+    void reportSerializationCpuAndWireBytes() throws IOException {
+        List<Loan> loans = buildLoans();
+
+        // Same builder Spring Boot uses, so DEFAULT_VIEW_INCLUSION is off as in the app
+        ObjectMapper defaults = Jackson2ObjectMapperBuilder.json().build();
+        ObjectMapper blackbird = Jackson2ObjectMapperBuilder.json().build();
+        blackbird.registerModule(new BlackbirdModule());
+
+        Result full = measure("default, full entities", defaults.writer(), loans);
+        Result tuned = measure("blackbird, full entities", blackbird.writer(), loans);
+        Result slim = measure("blackbird, Summary view", blackbird.writerWithView(Views.Summary.class), loans);
+
+        System.out.println("=== /api/loans/all serialization, " + LOANS + " loans ===");
+        System.out.printf("%-28s %12s %14s %14s%n", "variant", "cpu ms/op", "raw bytes", "gzip bytes");
+        for (Result result : List.of(full, tuned, slim)) {
+            System.out.printf("%-28s %12.1f %14d %14d%n", result.name, result.cpuMillis, result.rawBytes, result.gzipBytes);
+        }
+
+        assertTrue(slim.rawBytes < full.rawBytes, "Summary view should be smaller than the full entity graph");
+    }
+
+    private Result measure(String name, ObjectWriter writer, List<Loan> loans) throws IOException {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        byte[] payload = null;
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            payload = writer.writeValueAsBytes(loans);
+        }
+        long cpuStart = threads.getCurrentThreadCpuTime();
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            payload = writer.writeValueAsBytes(loans);
+        }
+        double cpuMillis = (threads.getCurrentThreadCpuTime() - cpuStart) / 1_000_000.0 / MEASURED_ROUNDS;
+        return new Result(name, cpuMillis, payload.length, gzip(payload).length);
+    }
+
+    private static byte[] gzip(byte[] payload) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(payload.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(payload);
+        }
+        return out.toByteArray();
+    }
+
+    private static List<Loan> buildLoans() {
+        List<Book> books = new ArrayList<>(BOOKS);
+        for (int i = 0; i < BOOKS; i++) {
+            Book book = new Book();
+            book.setId((long) i + 1);
+            book.setIsbn("978-0-00-" + String.format("%06d", i));
+            book.setTitle("Benchmark Title " + i);
+            book.setAuthor("Author " + (i % 300));
+            book.setCategory("Category " + (i % 25));
+            book.setPublicationYear(1950 + (i % 70));
+            book.setCopiesAvailable(1);
+            book.setStatus(Book.Status.BORROWED);
+            books.add(book);
+        }
+        List<User> users = new ArrayList<>(USERS);
+        for (int i = 0; i < USERS; i++) {
+            User user = new User();
+            user.setId((long) i + 1);
+            user.setUsername("member" + i);
+            user.setEmail("member" + i + "@example.com");
+            user.setPassword("$2a$10$abcdefghijklmnopqrstuuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ01");
+            user.setRole(Role.MEMBER);
+            user.setAddress(i + " Library Lane");
+            user.setContactInfo("555-" + String.format("%04d", i % 10_000));
+            user.setRegistrationDate(LocalDate.of(2024, 1, 1));
+            user.setMembershipExpiryDate(LocalDate.of(2026, 1, 1));
+            user.setName("Member " + i);
+            users.add(user);
+        }
+        LocalDate start = LocalDate.of(2025, 1, 1);
+        List<Loan> loans = new ArrayList<>(LOANS);
+        for (int i = 0; i < LOANS; i++) {
+            Loan loan = new Loan();
+            loan.setId((long) i + 1);
+            loan.setBook(books.get(i % BOOKS));
+            loan.setUser(users.get(i % USERS));
+            loan.setLoanDate(start.plusDays(i % 365));
+            loan.setDueDate(start.plusDays(i % 365 + 14));
+            loan.setStatus(i % 3 == 0 ? Loan.Status.RETURNED : Loan.Status.ACTIVE);
+            loan.setRenewalCount(i % 3);
+            loans.add(loan);
+        }
+        return loans;
+    }
+
+    private record Result(String name, double cpuMillis, int rawBytes, int gzipBytes) {}
+}
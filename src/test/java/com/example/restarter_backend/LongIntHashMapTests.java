@@ -0,0 +1,95 @@
+package com.example.restarter_backend;
+
+import com.example.restarter_backend.util.Hashing;
+import com.example.restarter_backend.util.LongIntHashMap;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LongIntHashMapTests {
+
+    @Test
+    void putGetAndAddTo() {
+        LongIntHashMap map = new LongIntHashMap(16);
+        assertEquals(-1, map.get(7L, -1));
+
+        map.put(7L, 3);
+        map.put(-7L, 4);
+        map.put(7L, 5); // overwrites
+        assertEquals(5, map.get(7L, -1));
+        assertEquals(4, map.get(-7L, -1));
+
+        assertEquals(2, map.addTo(8L, 2)); // absent counts from 0
+        assertEquals(7, map.addTo(8L, 5));
+        assertEquals(4, map.addTo(8L, -3));
+        assertEquals(3, map.size());
+    }
+
+    @Test
+    void keyZeroIsReserved() {
+        LongIntHashMap map = new LongIntHashMap(4);
+        assertThrows(IllegalArgumentException.class, () -> map.put(0L, 1));
+        assertThrows(IllegalArgumentException.class, () -> map.addTo(0L, 1));
+        assertEquals(-1, map.get(0L, -1));
+    }
+
+    @Test
+    void growsFromTheSmallestTableWithoutLosingEntries() {
+        LongIntHashMap map = new LongIntHashMap(0);
+        for (long key = 1; key <= 10_000; key++) {
+            map.addTo(key * 31, (int) key);
+            map.addTo(key * 31, 1);
+        }
+        assertEquals(10_000, map.size());
+        for (long key = 1; key <= 10_000; key++) {
+            assertEquals((int) key + 1, map.get(key * 31, -1), "key " + key);
+        }
+        assertEquals(-1, map.get(32L, -1));
+    }
+
+    @Test
+    void collidingKeysProbeToTheNextFreeSlotAndWrapAround() {
+        // 1024 slots (600 / 0.6 rounded up); the keys all hash to the last slot
+        LongIntHashMap map = new LongIntHashMap(600);
+        List<Long> colliding = new ArrayList<>();
+        for (long key = 1; colliding.size() < 6; key++) {
+            if ((Hashing.mix(key) & 1023) == 1023) {
+                colliding.add(key);
+            }
+        }
+        for (int i = 0; i < 5; i++) {
+            map.put(colliding.get(i), i);
+        }
+        for (int i = 0; i < 5; i++) {
+            assertEquals(i, map.get(colliding.get(i), -1));
+            assertEquals(i + 10, map.addTo(colliding.get(i), 10));
+        }
+        assertEquals(-1, map.get(colliding.get(5), -1)); // same chain, absent
+        assertEquals(5, map.size());
+        assertTrue(map.toString().contains("capacity=1024"));
+    }
+
+    @Test
+    void forEachAndRetainAtLeastSeeEveryLiveEntry() {
+        LongIntHashMap map = new LongIntHashMap(0);
+        for (long key = 1; key <= 100; key++) {
+            map.put(key, (int) (key % 5));
+        }
+        Map<Long, Integer> seen = new HashMap<>();
+        map.forEach(seen::put);
+        assertEquals(100, seen.size());
+
+        LongIntHashMap kept = map.retainAtLeast(3);
+        assertEquals(40, kept.size());
+        assertEquals(4, kept.get(4L, -1));
+        assertEquals(-1, kept.get(2L, -1));
+        assertEquals(100, map.size()); // the original is untouched
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.restarter_backend;
+
+import com.example.restarter_backend.entity.Loan;
+import com.example.restarter_backend.entity.LoanReminder;
+import com.example.restarter_backend.entity.Role;
+import com.example.restarter_backend.entity.User;
+import com.example.restarter_backend.notification.ReminderSender;
+import com.example.restarter_backend.repository.UserRepository;
+import com.example.restarter_backend.service.LeaseLockService;
+import com.example.restarter_backend.service.MembershipExpiryService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Chunks of two members (batch-size=2), so every date below spans several keyset pages.
+ */
+@DataJpaTest(properties = "app.membership.batch-size=2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("h2")
+@Import({MembershipExpiryService.class, LeaseLockService.class, MembershipExpiryServiceTests.RecordingSender.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // the service commits each chunk itself
+class MembershipExpiryServiceTests {
+
+    private static final LocalDate TODAY = LocalDate.now();
+
+    @Autowired
+    private MembershipExpiryService membershipExpiryService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RecordingSender sender;
+
+    private int seeded;
+
+    @AfterEach
+    void tearDown() {
+        userRepository.deleteAll();
+        sender.notices.clear();
+    }
+
+    @Test
+    void expiringMembersGetOneNoticePerTerm() {
+        LocalDate expiry = TODAY.plusDays(3);
+        List<User> expiring = List.of(member(expiry), member(expiry), member(expiry));
+        member(TODAY.plusDays(4));
+        member(null);
+
+        assertEquals(3, membershipExpiryService.notifyExpiringOn(expiry));
+        assertEquals(0, membershipExpiryService.notifyExpiringOn(expiry));
+        assertEquals(expiring.stream().map(user -> "EXPIRING_SOON " + user.getUsername()).toList(), sender.notices);
+
+        // Renewed: the new term gets its own notice
+        User renewed = userRepository.findById(expiring.get(0).getId()).orElseThrow();
+        renewed.setMembershipExpiryDate(expiry.plusYears(1));
+        userRepository.save(renewed);
+        assertEquals(1, membershipExpiryService.notifyExpiringOn(expiry.plusYears(1)));
+    }
+
+    @Test
+    void expiredMembersAreSuspendedOnce() {
+        LocalDate expiry = TODAY.minusDays(1);
+        List<User> expired = List.of(member(expiry), member(expiry), member(expiry));
+        User earlier = member(TODAY.minusDays(2));
+
+        assertEquals(3, membershipExpiryService.suspendExpiredOn(expiry));
+        assertEquals(0, membershipExpiryService.suspendExpiredOn(expiry));
+
+        for (User user : expired) {
+            assertTrue(userRepository.findById(user.getId()).orElseThrow().isBorrowingSuspended());
+        }
+        assertFalse(userRepository.findById(earlier.getId()).orElseThrow().isBorrowingSuspended());
+        assertEquals(expired.stream().map(user -> "EXPIRED " + user.getUsername()).toList(), sender.notices);
+
+        // Renewal lifts the suspension
+        User renewed = userRepository.findById(expired.get(0).getId()).orElseThrow();
+        renewed.setMembershipExpiryDate(TODAY.plusYears(1));
+        assertFalse(userRepository.save(renewed).isBorrowingSuspended());
+    }
+
+    private User member(LocalDate expiry) {
+        User user = new User();
+        user.setUsername("expiry-member-" + ++seeded);
+        user.setRole(Role.MEMBER);
+        user.setMembershipExpiryDate(expiry);
+        return userRepository.save(user);
+    }
+
+    static class RecordingSender implements ReminderSender {
+
+        final List<String> notices = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void send(User user, LoanReminder.Kind kind, LocalDate dueDate, List<Loan> loans) {
+        }
+
+        @Override
+        public void sendMembershipNotice(User user, MembershipNotice notice, LocalDate expiryDate) {
+            notices.add(notice + " " + user.getUsername());
+        }
+    }
+}
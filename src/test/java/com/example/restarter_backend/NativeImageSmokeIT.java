@@ -0,0 +1,81 @@
+package com.example.restarter_backend;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Starts the native binary against in-memory H2 and checks the public catalog answers.
+ * Run with: mvn -Pnative verify (the profile passes the binary path as native.binary)
+ */
+@EnabledIfSystemProperty(named = "native.binary", matches = ".+")
+class NativeImageSmokeIT {
+
+    private static final Duration STARTUP_TIMEOUT = Duration.ofSeconds(30);
+
+    @Test
+    void nativeBinaryServesCatalogOnH2() throws Exception {
+        int port = freePort();
+        Process app = new ProcessBuilder(List.of(
+                System.getProperty("native.binary"),
+                "--server.port=" + port,
+                "--spring.datasource.url=jdbc:h2:mem:native_smoke;DB_CLOSE_DELAY=-1;MODE=MySQL;NON_KEYWORDS=USER",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.jpa.hibernate.ddl-auto=create-drop",
+                "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"))
+                .redirectErrorStream(true)
+                .redirectOutput(new File(System.getProperty("java.io.tmpdir"), "native-smoke.log"))
+                .start();
+        try {
+            HttpClient client = HttpClient.newHttpClient();
+            long begin = System.nanoTime();
+            HttpResponse<String> books = awaitStartup(client, "http://localhost:" + port + "/api/books");
+            System.out.println("Native binary answered after " + (System.nanoTime() - begin) / 1_000_000 + " ms");
+
+            assertEquals(200, books.statusCode());
+            assertEquals("[]", books.body().trim());
+
+            HttpResponse<String> facets = client.send(
+                    HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/books/facets")).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            assertEquals(200, facets.statusCode());
+            assertTrue(facets.body().contains("\"total\":0"));
+        } finally {
+            app.destroy();
+        }
+    }
+
+    private static HttpResponse<String> awaitStartup(HttpClient client, String url) throws InterruptedException {
+        long deadline = System.nanoTime() + STARTUP_TIMEOUT.toNanos();
+        while (System.nanoTime() < deadline) {
+            try {
+                return client.send(HttpRequest.newBuilder(URI.create(url)).build(), HttpResponse.BodyHandlers.ofString());
+            } catch (IOException notUpYet) {
+                Thread.sleep(50);
+            }
+        }
+        fail("Native binary did not answer " + url + " within " + STARTUP_TIMEOUT);
+        return null;
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
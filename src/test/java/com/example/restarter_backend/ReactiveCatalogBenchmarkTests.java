@@ -0,0 +1,164 @@
+package com.example.restarter_backend;
+
+import com.example.restarter_backend.entity.Book;
+import com.example.restarter_backend.repository.BookRepository;
+import com.example.restarter_backend.service.ReactiveCatalogService;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Platform threads and database connections in use while 10k concurrent clients browse the
+ * catalog, blocking /api/books against streaming /api/reactive/books, both on in-memory H2.
+ * Clients run on virtual threads, so they do not count towards the server's platform threads.
+ * Needs a file descriptor limit above 2 x CLIENTS (ulimit -n).
+ * Run with: mvn -Pbenchmarks test
+ */
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+class ReactiveCatalogBenchmarkTests {
+
+    private static final int CLIENTS = 10_000;
+    private static final int BOOKS = 500;
+    private static final String H2_OPTIONS = "DB_CLOSE_DELAY=-1;MODE=MySQL;NON_KEYWORDS=USER";
+
+    @Test
+    void reportThreadsAndConnectionsPerStack() throws Exception {
+        try (ConfigurableApplicationContext context = start()) {
+            seed(context.getBean(BookRepository.class));
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            HikariDataSource hikari = context.getBean(HikariDataSource.class);
+            ReactiveCatalogService reactive = context.getBean(ReactiveCatalogService.class);
+
+            run(port, "/api/books", hikari, reactive); // warm-up: JIT, pools, Tomcat threads
+            Result blocking = run(port, "/api/books", hikari, reactive);
+            Result streaming = run(port, "/api/reactive/books", hikari, reactive);
+
+            System.out.println("=== " + CLIENTS + " concurrent clients, " + BOOKS + " books per response ===");
+            System.out.printf("%-22s %9s %8s %13s %13s %13s%n",
+                    "endpoint", "wall ms", "errors", "peak threads", "peak JDBC", "peak R2DBC");
+            for (Result result : List.of(blocking, streaming)) {
+                System.out.printf("%-22s %9d %8d %13d %13d %13d%n", result.path, result.wallMillis, result.errors,
+                        result.peakThreads, result.peakJdbc, result.peakR2dbc);
+            }
+
+            assertTrue(streaming.peakJdbc <= blocking.peakJdbc, "the reactive path should not use JDBC connections");
+        }
+    }
+
+    private Result run(int port, String path, HikariDataSource hikari, ReactiveCatalogService reactive) throws Exception {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        AtomicInteger peakThreads = new AtomicInteger();
+        AtomicInteger peakJdbc = new AtomicInteger();
+        AtomicInteger peakR2dbc = new AtomicInteger();
+        AtomicLong errors = new AtomicLong();
+
+        Thread sampler = Thread.ofPlatform().daemon().start(() -> {
+            while (!Thread.currentThread().isInterrupted()) {
+                peakThreads.accumulateAndGet(threads.getThreadCount(), Math::max);
+                peakJdbc.accumulateAndGet(hikari.getHikariPoolMXBean().getActiveConnections(), Math::max);
+                Object acquired = reactive.getPoolStats().get("acquired");
+                if (acquired instanceof Integer count) {
+                    peakR2dbc.accumulateAndGet(count, Math::max);
+                }
+                try {
+                    Thread.sleep(5);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        });
+
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(30)).build();
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .timeout(Duration.ofSeconds(120))
+                .build();
+        long begin = System.nanoTime();
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> calls = new ArrayList<>(CLIENTS);
+            for (int i = 0; i < CLIENTS; i++) {
+                calls.add(clients.submit(() -> {
+                    try {
+                        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                        if (response.statusCode() != 200) {
+                            errors.incrementAndGet();
+                        }
+                    } catch (Exception e) {
+                        errors.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> call : calls) {
+                call.get();
+            }
+        }
+        long wallMillis = (System.nanoTime() - begin) / 1_000_000;
+        sampler.interrupt();
+        sampler.join();
+        return new Result(path, wallMillis, errors.get(), peakThreads.get(), peakJdbc.get(), peakR2dbc.get());
+    }
+
+    private static void seed(BookRepository books) {
+        List<Book> batch = new ArrayList<>(BOOKS);
+        for (int i = 0; i < BOOKS; i++) {
+            Book book = new Book();
+            book.setIsbn("978-1-00-" + String.format("%06d", i));
+            book.setTitle("Benchmark Title " + i);
+            book.setAuthor("Author " + (i % 50));
+            book.setCategory("Category " + (i % 10));
+            book.setPublicationYear(1950 + (i % 70));
+            book.setCopiesAvailable(1);
+            book.setStatus(Book.Status.AVAILABLE);
+            batch.add(book);
+        }
+        books.saveAll(batch);
+    }
+
+    private static ConfigurableApplicationContext start() {
+        // Passed as command-line arguments so they win over the properties files
+        return new SpringApplicationBuilder(RestarterBackendApplication.class).run(
+                "--server.port=0",
+                "--server.tomcat.max-connections=" + (CLIENTS * 2),
+                "--server.tomcat.accept-count=" + CLIENTS,
+                // Streams queue for the R2DBC pool under this load; the default async timeout is 30s
+                "--spring.mvc.async.request-timeout=120s",
+                "--spring.datasource.url=jdbc:h2:mem:reactive_bench;" + H2_OPTIONS,
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.jpa.hibernate.ddl-auto=create-drop",
+                "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                "--spring.jpa.show-sql=false",
+                "--logging.level.org.springframework=WARN",
+                "--logging.level.org.hibernate=WARN",
+                "--logging.level.com.example.restarter_backend=WARN",
+                "--logging.level.org.springframework.security=WARN",
+                // Same in-memory database, opened by the R2DBC driver
+                "--app.reactive.enabled=true",
+                "--app.reactive.r2dbc.url=r2dbc:h2:mem:///reactive_bench?options=" + H2_OPTIONS,
+                "--app.reactive.r2dbc.username=sa",
+                "--app.reactive.r2dbc.password=");
+    }
+
+    private record Result(String path, long wallMillis, long errors, int peakThreads, int peakJdbc, int peakR2dbc) {}
+}
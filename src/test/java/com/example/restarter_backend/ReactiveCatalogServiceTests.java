@@ -0,0 +1,64 @@
+package com.example.restarter_backend;
+
+import com.example.restarter_backend.entity.Book;
+import com.example.restarter_backend.service.ReactiveCatalogService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * The R2DBC catalog reads against in-memory H2. The table is created over JDBC; both drivers
+ * open the same named in-memory database inside this JVM.
+ */
+class ReactiveCatalogServiceTests {
+
+    private static final String DB = "reactive_catalog";
+
+    private ReactiveCatalogService service;
+
+    @BeforeEach
+    void setUp() {
+        JdbcTemplate jdbc = new JdbcTemplate(new DriverManagerDataSource("jdbc:h2:mem:" + DB + ";DB_CLOSE_DELAY=-1", "sa", ""));
+        jdbc.execute("DROP TABLE IF EXISTS book");
+        jdbc.execute("CREATE TABLE book (id BIGINT PRIMARY KEY, isbn VARCHAR(20), title VARCHAR(200), author VARCHAR(200), " +
+                "category VARCHAR(50), publication_year INT, copies_available INT, status VARCHAR(20))");
+        jdbc.update("INSERT INTO book VALUES (1, '978-1', 'Dune', 'Frank Herbert', 'Science Fiction', 1965, 2, 'AVAILABLE')");
+        jdbc.update("INSERT INTO book VALUES (2, '978-2', 'Emma', 'Jane Austen', 'Classics', 1815, 0, 'BORROWED')");
+        jdbc.update("INSERT INTO book VALUES (3, '978-3', '100% Recall', 'A. Author', 'Memory', 2001, 1, 'AVAILABLE')");
+        service = new ReactiveCatalogService("r2dbc:h2:mem:///" + DB + "?options=DB_CLOSE_DELAY=-1", "sa", "", 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.close();
+    }
+
+    @Test
+    void streamsAllBooksInIdOrder() {
+        List<Book> books = service.streamAll().collectList().block();
+
+        assertEquals(List.of(1L, 2L, 3L), books.stream().map(Book::getId).toList());
+        assertEquals(Book.Status.BORROWED, books.get(1).getStatus());
+        assertEquals(1965, books.get(0).getPublicationYear());
+    }
+
+    @Test
+    void searchIsCaseInsensitiveAndTreatsWildcardsLiterally() {
+        assertEquals(List.of(2L), service.search("AUSTEN").map(Book::getId).collectList().block());
+        assertEquals(List.of(3L), service.search("100%").map(Book::getId).collectList().block());
+        assertEquals(List.of(), service.search("_").map(Book::getId).collectList().block());
+    }
+
+    @Test
+    void findsOneBookById() {
+        assertEquals("Dune", service.findById(1).block().getTitle());
+        assertNull(service.findById(42).block());
+    }
+}
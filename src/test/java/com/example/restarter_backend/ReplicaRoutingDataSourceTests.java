@@ -0,0 +1,138 @@
+package com.example.restarter_backend;
+
+import com.example.restarter_backend.config.ReplicaRoutingDataSource;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.orm.jpa.persistenceunit.PersistenceManagedTypes;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Two separate H2 databases stand in for the MySQL primary and replica,
+ * each holding a marker row that names it.
+ */
+class ReplicaRoutingDataSourceTests {
+
+    private DataSource primary;
+    private DataSource replica;
+
+    @BeforeEach
+    void setUp() {
+        primary = new DriverManagerDataSource("jdbc:h2:mem:routing_primary;DB_CLOSE_DELAY=-1", "sa", "");
+        replica = new DriverManagerDataSource("jdbc:h2:mem:routing_replica;DB_CLOSE_DELAY=-1", "sa", "");
+        for (DataSource ds : new DataSource[] {primary, replica}) {
+            JdbcTemplate jdbc = new JdbcTemplate(ds);
+            jdbc.execute("DROP TABLE IF EXISTS marker");
+            jdbc.execute("CREATE TABLE marker (name VARCHAR(20))");
+        }
+        new JdbcTemplate(primary).update("INSERT INTO marker VALUES ('primary')");
+        new JdbcTemplate(replica).update("INSERT INTO marker VALUES ('replica')");
+    }
+
+    @Test
+    void readOnlyTransactionsUseReplicaAndOthersUsePrimary() {
+        DataSource routed = routed(replica);
+
+        assertEquals("replica", readMarker(routed, true));
+        assertEquals("primary", readMarker(routed, false));
+    }
+
+    @Test
+    void readOnlyTransactionsFallBackToPrimaryWhenReplicaIsDown() {
+        DataSource unreachable = new DriverManagerDataSource("jdbc:h2:tcp://localhost:1/unreachable", "sa", "");
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primary, unreachable, 60_000);
+        routing.afterPropertiesSet();
+        DataSource routed = new LazyConnectionDataSourceProxy(routing);
+
+        assertEquals("primary", readMarker(routed, true));
+        assertFalse(routing.isReplicaAvailable());
+    }
+
+    // A renew or return: the @PreAuthorize ownership check reads first, then the service writes
+    @Test
+    void writeAfterAReadOnlyCheckInTheSameRequestGoesToThePrimary() {
+        EntityManagerFactory emf = entityManagerFactory(routed(replica));
+        try {
+            assertEquals("replica", readThenWrite(emf));
+            assertEquals(List.of("primary", "written"), markers(primary));
+            assertEquals(List.of("replica"), markers(replica));
+        } finally {
+            emf.close();
+        }
+    }
+
+    // What spring.jpa.open-in-view=true does: one EntityManager, and so one connection, for the whole request
+    @Test
+    void requestScopedEntityManagerWouldPinTheReplicaForTheWrite() {
+        EntityManagerFactory emf = entityManagerFactory(routed(replica));
+        EntityManager requestScoped = emf.createEntityManager();
+        TransactionSynchronizationManager.bindResource(emf, new EntityManagerHolder(requestScoped));
+        try {
+            assertEquals("replica", readThenWrite(emf));
+            assertEquals(List.of("replica", "written"), markers(replica));
+        } finally {
+            TransactionSynchronizationManager.unbindResource(emf);
+            requestScoped.close();
+            emf.close();
+        }
+    }
+
+    private DataSource routed(DataSource replicaSource) {
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primary, replicaSource, 60_000);
+        routing.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+
+    private String readMarker(DataSource dataSource, boolean readOnly) {
+        TransactionTemplate tx = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        tx.setReadOnly(readOnly);
+        return tx.execute(status -> new JdbcTemplate(dataSource).queryForObject("SELECT name FROM marker", String.class));
+    }
+
+    // Returns what the read-only transaction saw; the write inserts a "written" marker
+    private static String readThenWrite(EntityManagerFactory emf) {
+        EntityManager entityManager = SharedEntityManagerCreator.createSharedEntityManager(emf);
+        JpaTransactionManager transactionManager = new JpaTransactionManager(emf);
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        String seen = readOnly.execute(status ->
+                (String) entityManager.createNativeQuery("SELECT name FROM marker").getSingleResult());
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                entityManager.createNativeQuery("INSERT INTO marker VALUES ('written')").executeUpdate());
+        return seen;
+    }
+
+    private static EntityManagerFactory entityManagerFactory(DataSource dataSource) {
+        LocalContainerEntityManagerFactoryBean factory = new LocalContainerEntityManagerFactoryBean();
+        factory.setDataSource(dataSource);
+        factory.setManagedTypes(PersistenceManagedTypes.of());
+        factory.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        factory.setJpaPropertyMap(Map.of(
+                "hibernate.dialect", "org.hibernate.dialect.H2Dialect",
+                "hibernate.boot.allow_jdbc_metadata_access", "false"));
+        factory.afterPropertiesSet();
+        return factory.getObject();
+    }
+
+    private static List<String> markers(DataSource dataSource) {
+        return new JdbcTemplate(dataSource).queryForList("SELECT name FROM marker ORDER BY name", String.class);
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.restarter_backend;
+
+import com.example.restarter_backend.entity.Book;
+import com.example.restarter_backend.entity.Role;
+import com.example.restarter_backend.entity.User;
+import com.example.restarter_backend.repository.BookRepository;
+import com.example.restarter_backend.repository.NaturalIdLookup;
+import com.example.restarter_backend.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Book and User through the second-level, natural-id and query caches. Each step commits in its
+ * own transaction, as requests do: the caches are only filled and updated on commit.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("h2")
+@Import(NaturalIdLookup.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class SecondLevelCacheTests {
+
+    @Autowired
+    private NaturalIdLookup naturalIdLookup;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transaction;
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        transaction = new TransactionTemplate(transactionManager);
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        User user = new User();
+        user.setUsername("cached-member");
+        user.setRole(Role.MEMBER);
+        inTransaction(() -> userRepository.save(user));
+        inTransaction(() -> bookRepository.save(new Book(null, "L2-0001", "Cached Title", "Cached Author",
+                "Fiction", 2001, 1, Book.Status.AVAILABLE)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        inTransaction(() -> {
+            bookRepository.deleteAll();
+            userRepository.deleteAll();
+            return null;
+        });
+    }
+
+    @Test
+    void warmNaturalIdLookupsRunNoQuery() {
+        inTransaction(() -> naturalIdLookup.findUserByUsername("cached-member"));
+        inTransaction(() -> naturalIdLookup.findBookByIsbn("L2-0001"));
+
+        statistics.clear();
+        assertTrue(inTransaction(() -> naturalIdLookup.findUserByUsername("cached-member")).isPresent());
+        assertEquals("Cached Title", inTransaction(() -> naturalIdLookup.findBookByIsbn("L2-0001")).orElseThrow().getTitle());
+        assertEquals(0, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void renamedUsernameResolvesToTheNewNameOnly() {
+        inTransaction(() -> naturalIdLookup.findUserByUsername("cached-member"));
+        inTransaction(() -> {
+            naturalIdLookup.findUserByUsername("cached-member").orElseThrow().setUsername("renamed-member");
+            return null;
+        });
+
+        assertFalse(inTransaction(() -> naturalIdLookup.findUserByUsername("cached-member")).isPresent());
+        assertTrue(inTransaction(() -> naturalIdLookup.findUserByUsername("renamed-member")).isPresent());
+    }
+
+    @Test
+    void statusQueryIsServedFromTheQueryCacheUntilABookChanges() {
+        inTransaction(() -> bookRepository.findByStatus(Book.Status.AVAILABLE));
+
+        statistics.clear();
+        assertEquals(1, inTransaction(() -> bookRepository.findByStatus(Book.Status.AVAILABLE)).size());
+        assertEquals(0, statistics.getPrepareStatementCount());
+
+        inTransaction(() -> {
+            naturalIdLookup.findBookByIsbn("L2-0001").orElseThrow().setStatus(Book.Status.BORROWED);
+            return null;
+        });
+        statistics.clear();
+        assertTrue(inTransaction(() -> bookRepository.findByStatus(Book.Status.AVAILABLE)).isEmpty());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    private <T> T inTransaction(Supplier<T> work) {
+        return transaction.execute(status -> work.get());
+    }
+}
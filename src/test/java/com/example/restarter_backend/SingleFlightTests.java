@@ -0,0 +1,142 @@
+package com.example.restarter_backend;
+
+import com.example.restarter_backend.util.SingleFlight;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+class SingleFlightTests {
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    void concurrentCallersShareOneLoad() throws Exception {
+        SingleFlight<String, Integer> flights = new SingleFlight<>(10_000, 100);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(pool.submit(() -> flights.execute("key", blockingLoad(release, () -> 42))));
+            }
+            awaitStat(flights, "joinedInFlight", 7);
+            release.countDown();
+
+            for (Future<Integer> result : results) {
+                assertEquals(42, result.get(10, TimeUnit.SECONDS));
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(1, loads.get());
+        assertEquals(1L, flights.stats().get("executions"));
+        assertEquals(7L, flights.stats().get("saved"));
+    }
+
+    @Test
+    void failureReachesFollowersAndIsNotMemoized() throws Exception {
+        SingleFlight<String, Integer> flights = new SingleFlight<>(10_000, 100);
+        IllegalStateException failure = new IllegalStateException("query failed");
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            Future<Integer> leader = pool.submit(() -> flights.execute("key", blockingLoad(release, () -> {
+                throw failure;
+            })));
+            awaitStat(flights, "executions", 1);
+            Future<Integer> follower = pool.submit(() -> flights.execute("key", () -> fail("joins the leader's load")));
+            awaitStat(flights, "joinedInFlight", 1);
+            release.countDown();
+
+            assertSame(failure, causeOf(leader));
+            assertSame(failure, causeOf(follower));
+        } finally {
+            pool.shutdownNow();
+        }
+
+        // The next call loads again
+        assertEquals(7, flights.execute("key", () -> {
+            loads.incrementAndGet();
+            return 7;
+        }));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void resultIsReusedUntilTheMemoizationWindowEnds() throws Exception {
+        SingleFlight<String, Integer> flights = new SingleFlight<>(50, 100);
+        assertEquals(1, flights.execute("key", this::load));
+        assertEquals(1, flights.execute("key", this::load));
+        assertEquals(1L, flights.stats().get("memoHits"));
+
+        Thread.sleep(100);
+        assertEquals(2, flights.execute("key", this::load));
+
+        // Without memoization only calls that overlap share a load
+        SingleFlight<String, Integer> unmemoized = new SingleFlight<>(0, 100);
+        unmemoized.execute("key", this::load);
+        unmemoized.execute("key", this::load);
+        assertEquals(4, loads.get());
+        assertEquals(0, unmemoized.stats().get("entries"));
+    }
+
+    @Test
+    void expiredEntriesAreEvictedAboveMaxEntries() throws Exception {
+        SingleFlight<Integer, Integer> flights = new SingleFlight<>(20, 3);
+        for (int key = 1; key <= 4; key++) {
+            flights.execute(key, this::load);
+        }
+        assertEquals(4, flights.stats().get("entries")); // over the limit, but all still memoized
+
+        Thread.sleep(50);
+        flights.execute(5, this::load);
+        assertEquals(1, flights.stats().get("entries"));
+    }
+
+    private int load() {
+        return loads.incrementAndGet();
+    }
+
+    // A loader that counts itself and holds the flight open until released
+    private <V> Supplier<V> blockingLoad(CountDownLatch release, Supplier<V> result) {
+        return () -> {
+            loads.incrementAndGet();
+            try {
+                assertTrue(release.await(10, TimeUnit.SECONDS));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+            return result.get();
+        };
+    }
+
+    private static void awaitStat(SingleFlight<?, ?> flights, String stat, long expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while ((Long) flights.stats().get(stat) < expected) {
+            if (System.nanoTime() > deadline) {
+                fail(stat + " never reached " + expected + ": " + flights.stats());
+            }
+            Thread.sleep(5);
+        }
+    }
+
+    private static Throwable causeOf(Future<?> future) {
+        return assertThrows(ExecutionException.class, () -> future.get(10, TimeUnit.SECONDS)).getCause();
+    }
+}
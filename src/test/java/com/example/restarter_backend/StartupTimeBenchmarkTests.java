@@ -0,0 +1,69 @@
+package com.example.restarter_backend;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Context startup time of the default profile against the fast profile, both on in-memory H2.
+ * Run with: mvn -Pbenchmarks test
+ */
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+class StartupTimeBenchmarkTests {
+
+    private static final int RUNS = 5;
+
+    @Test
+    void reportStartupTimePerProfile() {
+        long[] defaults = measure("default");
+        long[] fast = measure("fast");
+
+        System.out.println("=== Context startup time (ms), " + RUNS + " runs after one warm-up ===");
+        System.out.printf("%-10s %8s %8s %8s%n", "profile", "min", "median", "max");
+        print("default", defaults);
+        print("fast", fast);
+
+        assertTrue(median(fast) <= median(defaults), "fast profile should not start slower than the default profile");
+    }
+
+    private long[] measure(String profile) {
+        start(profile, 0).close(); // warm-up: class loading and JIT are shared across runs
+        long[] millis = new long[RUNS];
+        for (int i = 0; i < RUNS; i++) {
+            long begin = System.nanoTime();
+            ConfigurableApplicationContext context = start(profile, i + 1);
+            millis[i] = (System.nanoTime() - begin) / 1_000_000;
+            context.close();
+        }
+        Arrays.sort(millis);
+        return millis;
+    }
+
+    private ConfigurableApplicationContext start(String profile, int run) {
+        // Passed as command-line arguments so they win over the profile's own properties files
+        return new SpringApplicationBuilder(RestarterBackendApplication.class)
+                .profiles(profile)
+                .run(
+                        "--server.port=0",
+                        "--spring.datasource.url=jdbc:h2:mem:startup_" + profile + "_" + run + ";DB_CLOSE_DELAY=-1;MODE=MySQL;NON_KEYWORDS=USER",
+                        "--spring.datasource.driver-class-name=org.h2.Driver",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        // Empty databases: let Hibernate create the schema instead of validating it
+                        "--spring.jpa.hibernate.ddl-auto=create-drop",
+                        "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect");
+    }
+
+    private static void print(String profile, long[] sorted) {
+        System.out.printf("%-10s %8d %8d %8d%n", profile, sorted[0], median(sorted), sorted[sorted.length - 1]);
+    }
+
+    private static long median(long[] sorted) {
+        return sorted[sorted.length / 2];
+    }
+}
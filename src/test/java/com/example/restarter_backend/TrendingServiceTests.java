@@ -0,0 +1,137 @@
+package com.example.restarter_backend;
+
+import com.example.restarter_backend.dto.TrendingBook;
+import com.example.restarter_backend.entity.Book;
+import com.example.restarter_backend.entity.TrendingScore;
+import com.example.restarter_backend.repository.BookRepository;
+import com.example.restarter_backend.repository.TrendingScoreRepository;
+import com.example.restarter_backend.service.LeaseLockService;
+import com.example.restarter_backend.service.TrendingService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Capacity 2, so the candidate set is trimmed as soon as it holds five books. The timers are
+ * pushed out of the way; the tests drive decay and refresh themselves.
+ */
+@DataJpaTest(properties = {
+        "app.trending.capacity=2",
+        "app.trending.refresh-ms=3600000",
+        "app.trending.decay-interval-ms=3600000"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("h2")
+@Import({TrendingService.class, LeaseLockService.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // persist commits under its own lease
+class TrendingServiceTests {
+
+    @Autowired
+    private TrendingService trendingService;
+
+    @Autowired
+    private TrendingScoreRepository trendingScoreRepository;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    private int seeded;
+
+    @BeforeEach
+    void setUp() {
+        // The service outlives each test: decay whatever earlier tests counted down to nothing
+        for (int i = 0; i < Long.SIZE; i++) {
+            trendingService.decay();
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        trendingScoreRepository.deleteAll();
+        bookRepository.deleteAll();
+    }
+
+    @Test
+    void trimmingRaisesTheAdmissionThreshold() {
+        long b1 = book(), b2 = book(), b3 = book(), b4 = book(), b5 = book(), b6 = book();
+        trendingService.record(b1, 5);
+        trendingService.record(b2, 4);
+        trendingService.record(b3, 3);
+        trendingService.record(b4, 1);
+        trendingService.record(b5, 1); // fifth candidate: trimmed to b1, b2; threshold 4
+
+        trendingService.record(b6, 1); // 1 < 4: not admitted
+        trendingService.record(b3, 2); // 5 >= 4: admitted again
+        trendingService.refreshLeaderboard();
+
+        assertEquals(Map.of(b1, 5L, b3, 5L), scores());
+    }
+
+    @Test
+    void decayHalvesScoresAndTheAdmissionThreshold() {
+        long b1 = book(), b2 = book(), b3 = book(), b4 = book(), b5 = book(), b6 = book();
+        trendingService.record(b1, 8);
+        trendingService.record(b2, 7);
+        trendingService.record(b3, 1);
+        trendingService.record(b4, 1);
+        trendingService.record(b5, 1); // threshold 7
+        trendingService.record(b6, 6); // not admitted
+        trendingService.refreshLeaderboard();
+        assertEquals(Map.of(b1, 8L, b2, 7L), scores());
+
+        trendingService.decay(); // b1 4, b2 3, b6 3, threshold 3
+        trendingService.record(b6, 2); // 5 >= 3: admitted
+        trendingService.refreshLeaderboard();
+
+        assertEquals(Map.of(b6, 5L, b1, 4L), scores());
+        assertEquals(b6, trendingService.getTrending(1).get(0).getBookId());
+    }
+
+    @Test
+    void persistKeepsTheHigherScoreOfEachInstance() {
+        long b1 = book(), b2 = book(), b3 = book(), b4 = book();
+        LocalDateTime now = LocalDateTime.now();
+        // Written by another instance: b1 just now, b4 four decay intervals ago (8 >>> 4 == 0)
+        trendingScoreRepository.save(new TrendingScore(b1, 100, now));
+        trendingScoreRepository.save(new TrendingScore(b4, 8, now.minusHours(4)));
+        trendingService.record(b1, 5);
+        trendingService.record(b2, 7);
+        trendingService.record(b3, 3);
+
+        trendingService.persist();
+
+        // Top two (capacity) by score; the decayed row is dropped
+        Map<Long, Long> stored = trendingScoreRepository.findAll().stream()
+                .collect(Collectors.toMap(TrendingScore::getBookId, TrendingScore::getScore));
+        assertEquals(Map.of(b1, 100L, b2, 7L), stored);
+
+        // Persisting again changes nothing
+        trendingService.persist();
+        assertEquals(stored, trendingScoreRepository.findAll().stream()
+                .collect(Collectors.toMap(TrendingScore::getBookId, TrendingScore::getScore)));
+    }
+
+    private Map<Long, Long> scores() {
+        return trendingService.getTrending(trendingService.getCapacity()).stream()
+                .collect(Collectors.toMap(TrendingBook::getBookId, TrendingBook::getScore));
+    }
+
+    private long book() {
+        int n = ++seeded;
+        return bookRepository.save(new Book(null, "TR-" + n, "Trending " + n, "Author " + n,
+                "Fiction", 2000, 1, Book.Status.AVAILABLE)).getId();
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.restarter_backend;
+
+import com.example.restarter_backend.entity.Role;
+import com.example.restarter_backend.entity.User;
+import com.example.restarter_backend.repository.NaturalIdLookup;
+import com.example.restarter_backend.repository.UserRepository;
+import com.example.restarter_backend.service.UserService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("h2")
+@Import({UserService.class, NaturalIdLookup.class, BCryptPasswordEncoder.class})
+class UserServiceTests {
+
+    private static final LocalDate TODAY = LocalDate.now();
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private int seeded;
+
+    @AfterEach
+    void tearDown() {
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void renewingAnExpiredMembershipRunsAYearFromTodayAndLiftsTheSuspension() {
+        User expired = member(TODAY.minusMonths(2), true);
+
+        User renewed = userService.renewMembership(expired.getId(), null);
+
+        assertEquals(TODAY.plusYears(1), renewed.getMembershipExpiryDate());
+        assertFalse(renewed.isBorrowingSuspended());
+    }
+
+    @Test
+    void renewingARunningMembershipExtendsItFromItsEnd() {
+        User running = member(TODAY.plusMonths(3), false);
+
+        assertEquals(TODAY.plusMonths(3).plusYears(1), userService.renewMembership(running.getId(), null).getMembershipExpiryDate());
+    }
+
+    @Test
+    void librarianCanSetTheEndDateButNotInThePast() {
+        User expired = member(TODAY.minusDays(1), true);
+
+        assertThrows(RuntimeException.class, () -> userService.renewMembership(expired.getId(), TODAY.minusDays(1)));
+        assertTrue(userRepository.findById(expired.getId()).orElseThrow().isBorrowingSuspended());
+
+        User renewed = userService.renewMembership(expired.getId(), TODAY.plusMonths(6));
+        assertEquals(TODAY.plusMonths(6), renewed.getMembershipExpiryDate());
+        assertFalse(renewed.isBorrowingSuspended());
+    }
+
+    @Test
+    void membersCannotExtendTheirOwnMembershipThroughUpdateUser() {
+        User member = member(TODAY.minusDays(1), true);
+        User updates = new User();
+        updates.setUsername(member.getUsername());
+        updates.setRole(Role.MEMBER);
+        updates.setMembershipExpiryDate(TODAY.plusYears(5));
+
+        User updated = userService.updateUser(member.getId(), updates);
+
+        assertEquals(TODAY.minusDays(1), updated.getMembershipExpiryDate());
+        assertTrue(updated.isBorrowingSuspended());
+    }
+
+    private User member(LocalDate expiry, boolean suspended) {
+        User user = new User();
+        user.setUsername("renewal-member-" + ++seeded);
+        user.setRole(Role.MEMBER);
+        user.setMembershipExpiryDate(expiry);
+        user.setBorrowingSuspended(suspended);
+        return userRepository.save(user);
+    }
+}
@@ -0,0 +1,220 @@
+package com.example.restarter_backend.service;
+
+import com.example.restarter_backend.entity.JobCheckpoint;
+import com.example.restarter_backend.entity.SchedulerLock;
+import com.example.restarter_backend.repository.JobCheckpointRepository;
+import com.example.restarter_backend.repository.SchedulerLockRepository;
+import com.example.restarter_backend.service.PartitionedJobRunner.JobReport;
+import com.example.restarter_backend.service.PartitionedJobRunner.Outcome;
+import com.example.restarter_backend.service.PartitionedJobRunner.PartitionResult;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The runner bean is node A; node B is a second runner wired by hand with a LeaseLockService of
+ * its own node id, both sharing one H2 database as application instances share the MySQL primary.
+ * In the service package to start and stop node B's executor.
+ */
+@DataJpaTest(properties = {"app.scheduling.node-id=node-a", "app.jobs.parallelism=2"})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("h2")
+@Import({PartitionedJobRunner.class, LeaseLockService.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // partitions commit in their own transactions
+class PartitionedJobRunnerTests {
+
+    // ids 1..100 in ranges of 10: partitions 0..9, partition 1 is ids 11..20
+    private static final long MAX_ID = 99;
+    private static final long PARTITION_SIZE = 10;
+
+    @Autowired
+    private PartitionedJobRunner nodeA;
+
+    @Autowired
+    private JobCheckpointRepository jobCheckpointRepository;
+
+    @Autowired
+    private SchedulerLockRepository schedulerLockRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private PartitionedJobRunner nodeB;
+
+    @BeforeEach
+    void setUp() {
+        jobCheckpointRepository.deleteAll();
+        schedulerLockRepository.deleteAll();
+        nodeB = new PartitionedJobRunner();
+        ReflectionTestUtils.setField(nodeB, "jobCheckpointRepository", jobCheckpointRepository);
+        ReflectionTestUtils.setField(nodeB, "leaseLockService",
+                new LeaseLockService(schedulerLockRepository, transactionManager, "node-b"));
+        ReflectionTestUtils.setField(nodeB, "transactionManager", transactionManager);
+        ReflectionTestUtils.setField(nodeB, "configuredParallelism", 2);
+        ReflectionTestUtils.setField(nodeB, "poolSize", 10);
+        ReflectionTestUtils.setField(nodeB, "lockAtMostForMinutes", 30L);
+        nodeB.start();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        nodeB.stop();
+    }
+
+    @Test
+    void twoNodesRunEveryRangeExactlyOnce() throws Exception {
+        Map<Long, Integer> runsPerRange = new ConcurrentHashMap<>();
+        PartitionedJobRunner.RangeTask task = (fromId, toId) -> {
+            runsPerRange.merge(fromId, 1, Integer::sum);
+            sleep(20);
+            return (int) (toId - fromId + 1);
+        };
+
+        CompletableFuture<JobReport> onA = CompletableFuture.supplyAsync(() -> nodeA.run("sweep", "day-1", MAX_ID, PARTITION_SIZE, task));
+        CompletableFuture<JobReport> onB = CompletableFuture.supplyAsync(() -> nodeB.run("sweep", "day-1", MAX_ID, PARTITION_SIZE, task));
+        JobReport reportA = onA.get(30, TimeUnit.SECONDS);
+        JobReport reportB = onB.get(30, TimeUnit.SECONDS);
+
+        assertEquals(10, runsPerRange.size());
+        runsPerRange.forEach((fromId, runs) -> assertEquals(1, runs, "range from " + fromId));
+        for (int p = 0; p < 10; p++) {
+            Outcome a = reportA.partitions().get(p).outcome();
+            Outcome b = reportB.partitions().get(p).outcome();
+            // One node ran it; the other found it leased or already done
+            assertTrue((a == Outcome.DONE) != (b == Outcome.DONE), "partition " + p + ": " + a + " / " + b);
+            assertFalse(a == Outcome.FAILED || b == Outcome.FAILED, "partition " + p);
+        }
+        assertEquals(100, rows(reportA) + rows(reportB));
+        assertEquals(10, jobCheckpointRepository.findAll().stream()
+                .filter(c -> c.getStatus() == JobCheckpoint.Status.DONE).count());
+    }
+
+    @Test
+    void failedRangeIsRecordedAndTheRerunResumesFromIt() {
+        List<Long> ran = new CopyOnWriteArrayList<>();
+        PartitionedJobRunner.RangeTask failing = (fromId, toId) -> {
+            ran.add(fromId);
+            if (fromId == 11) {
+                throw new IllegalStateException("boom");
+            }
+            return 1;
+        };
+
+        JobReport first = nodeA.run("reconcile", "day-1", MAX_ID, PARTITION_SIZE, failing);
+        assertEquals(10, ran.size());
+        PartitionResult failed = first.partitions().get(1);
+        assertEquals(Outcome.FAILED, failed.outcome());
+        assertEquals("boom", failed.error());
+        assertEquals(0, failed.rows());
+        assertEquals(9, first.partitions().stream().filter(r -> r.outcome() == Outcome.DONE).count());
+        assertEquals(9, rows(first));
+        assertEquals(first, nodeA.getLastReports().get("reconcile"));
+
+        JobCheckpoint checkpoint = checkpoint("reconcile", "day-1", 1);
+        assertEquals(JobCheckpoint.Status.FAILED, checkpoint.getStatus());
+        assertEquals("boom", checkpoint.getError());
+        assertNotNull(checkpoint.getElapsedMillis());
+
+        // The rerun, here on the other node, runs only the failed range; the failure freed its lease
+        ran.clear();
+        JobReport resumed = nodeB.run("reconcile", "day-1", MAX_ID, PARTITION_SIZE, (fromId, toId) -> {
+            ran.add(fromId);
+            return 5;
+        });
+        assertEquals(List.of(11L), ran);
+        assertEquals(Outcome.DONE, resumed.partitions().get(1).outcome());
+        assertEquals(9, resumed.partitions().stream().filter(r -> r.outcome() == Outcome.SKIPPED_DONE).count());
+        assertEquals(5, rows(resumed));
+        checkpoint = checkpoint("reconcile", "day-1", 1);
+        assertEquals(JobCheckpoint.Status.DONE, checkpoint.getStatus());
+        assertEquals(5, checkpoint.getRowsProcessed());
+        assertNull(checkpoint.getError());
+
+        // A new run key starts over
+        ran.clear();
+        nodeA.run("reconcile", "day-2", MAX_ID, PARTITION_SIZE, (fromId, toId) -> {
+            ran.add(fromId);
+            return 0;
+        });
+        assertEquals(10, ran.size());
+    }
+
+    @Test
+    void eachRangeCommitsOrRollsBackInItsOwnTransaction() {
+        LocalDateTime now = LocalDateTime.now();
+        nodeA.run("writes", "day-1", MAX_ID, PARTITION_SIZE, (fromId, toId) -> {
+            assertTrue(TransactionSynchronizationManager.isActualTransactionActive());
+            schedulerLockRepository.save(new SchedulerLock("written-" + fromId, "test", now, now));
+            if (fromId == 11) {
+                throw new IllegalStateException("boom");
+            }
+            return 1;
+        });
+
+        assertFalse(schedulerLockRepository.existsById("written-11"));
+        for (long fromId = 1; fromId <= MAX_ID; fromId += PARTITION_SIZE) {
+            if (fromId != 11) {
+                assertTrue(schedulerLockRepository.existsById("written-" + fromId), "range from " + fromId);
+            }
+        }
+    }
+
+    @Test
+    void partitionLeasedByAnotherNodeIsLeftToIt() {
+        LocalDateTime now = LocalDateTime.now();
+        schedulerLockRepository.save(new SchedulerLock("sweep#3", "node-b", now, now.plusMinutes(10)));
+        List<Long> ran = new CopyOnWriteArrayList<>();
+
+        JobReport report = nodeA.run("sweep", "day-1", MAX_ID, PARTITION_SIZE, (fromId, toId) -> {
+            ran.add(fromId);
+            return 1;
+        });
+
+        assertEquals(Outcome.HELD_ELSEWHERE, report.partitions().get(3).outcome());
+        assertFalse(ran.contains(31L));
+        assertEquals(9, ran.size());
+        assertTrue(jobCheckpointRepository.findByJobNameAndRunKeyAndPartitionNo("sweep", "day-1", 3).isEmpty());
+        // Partition leases are released when a range finishes
+        assertTrue(schedulerLockRepository.findById("sweep#0").orElseThrow().getLockedUntil().isBefore(now.plusMinutes(1)));
+    }
+
+    private JobCheckpoint checkpoint(String jobName, String runKey, int partition) {
+        return jobCheckpointRepository.findByJobNameAndRunKeyAndPartitionNo(jobName, runKey, partition).orElseThrow();
+    }
+
+    private static int rows(JobReport report) {
+        return report.partitions().stream().mapToInt(PartitionResult::rows).sum();
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
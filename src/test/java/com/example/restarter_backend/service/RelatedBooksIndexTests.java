@@ -0,0 +1,101 @@
+package com.example.restarter_backend.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * In the service package: the builder is package-private to RecommendationService.
+ */
+class RelatedBooksIndexTests {
+
+    // Borrowers: book 1 by three users, 2 by three, 3 by two, 4 by one.
+    // Pair scores: 1-3 = 2/sqrt(6), 1-2 = 2/3, 2-4 = 1/sqrt(3), 2-3 = 1/sqrt(6).
+    private static RelatedBooksIndex.Builder fourUsers() {
+        RelatedBooksIndex.Builder builder = new RelatedBooksIndex.Builder(1000);
+        add(builder, 1, 2, 3);
+        add(builder, 1, 2);
+        add(builder, 1, 3);
+        add(builder, 2, 4);
+        return builder;
+    }
+
+    @Test
+    void neighboursAreRankedByCosineSimilarity() {
+        RelatedBooksIndex index = fourUsers().build(10, 1);
+
+        assertEquals(4, index.bookCount());
+        assertEquals(8, index.neighbourCount());
+        assertArrayEquals(new long[] {3, 2}, index.neighbours(1, 10));
+        assertArrayEquals(new long[] {1, 4, 3}, index.neighbours(2, 10));
+        assertArrayEquals(new long[] {1, 2}, index.neighbours(3, 10));
+        assertArrayEquals(new long[] {2}, index.neighbours(4, 10));
+        assertArrayEquals(new float[] {(float) (2 / Math.sqrt(6)), 2f / 3}, index.scores(1, 10), 1e-6f);
+        assertArrayEquals(new long[0], index.neighbours(99, 10));
+    }
+
+    @Test
+    void eachBookKeepsItsTopKAndLookupsHonourTheLimit() {
+        RelatedBooksIndex index = fourUsers().build(2, 1);
+
+        assertEquals(7, index.neighbourCount());
+        assertArrayEquals(new long[] {1, 4}, index.neighbours(2, 10));
+        assertArrayEquals(new long[] {1}, index.neighbours(2, 1));
+        assertArrayEquals(new float[] {2f / 3}, index.scores(2, 1), 1e-6f);
+    }
+
+    @Test
+    void pairsBelowTheMinimumAreLeftOutButTheirBooksKeepARow() {
+        RelatedBooksIndex index = fourUsers().build(10, 2);
+
+        assertEquals(4, index.bookCount());
+        assertArrayEquals(new long[] {3, 2}, index.neighbours(1, 10));
+        assertArrayEquals(new long[] {1}, index.neighbours(2, 10));
+        assertArrayEquals(new long[0], index.neighbours(4, 10));
+    }
+
+    @Test
+    void rarePairsArePrunedWhenTheLimitIsExceeded() {
+        RelatedBooksIndex.Builder builder = new RelatedBooksIndex.Builder(4);
+        add(builder, 1, 2);
+        add(builder, 1, 2);
+        add(builder, 3, 4);
+        add(builder, 5, 6);
+        add(builder, 7, 8);
+        assertEquals(1, builder.prunedBelow());
+
+        add(builder, 9, 10); // fifth pair: everything seen once is dropped
+        assertEquals(2, builder.prunedBelow());
+
+        RelatedBooksIndex index = builder.build(10, 1);
+        assertEquals(10, index.bookCount());
+        assertEquals(2, index.neighbourCount());
+        assertArrayEquals(new long[] {2}, index.neighbours(1, 10));
+        assertArrayEquals(new long[0], index.neighbours(3, 10));
+    }
+
+    @Test
+    void bookIdsMustFitTheHalfOfAPairKey() {
+        RelatedBooksIndex.Builder builder = new RelatedBooksIndex.Builder(1000);
+        add(builder, 1, Integer.MAX_VALUE);
+        assertArrayEquals(new long[] {1}, builder.build(10, 1).neighbours(Integer.MAX_VALUE, 10));
+
+        assertThrows(IllegalArgumentException.class, () -> add(builder, 1, Integer.MAX_VALUE + 1L));
+        assertThrows(IllegalArgumentException.class, () -> add(builder, 0, 5));
+        assertThrows(IllegalArgumentException.class, () -> add(builder, -3, 5));
+    }
+
+    @Test
+    void emptyIndexHasNoNeighbours() {
+        assertEquals(0, RelatedBooksIndex.EMPTY.bookCount());
+        assertArrayEquals(new long[0], RelatedBooksIndex.EMPTY.neighbours(1, 10));
+        assertArrayEquals(new float[0], RelatedBooksIndex.EMPTY.scores(1, 10));
+    }
+
+    // One user's books, sorted and distinct as RecommendationService.flushUser passes them
+    private static void add(RelatedBooksIndex.Builder builder, long... books) {
+        builder.addUser(books, books.length);
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.restarter_backend.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * In the service package: the builder is package-private to SuggestService.
+ */
+class SuggestIndexTests {
+
+    @Test
+    void insertingIntoAnEdgeSplitsIt() {
+        SuggestIndex.Builder builder = new SuggestIndex.Builder(10, 100);
+        builder.add("hobbit", 2);
+        builder.add("hobby", 0); // splits "hobbit" into "hobb" + "it" / "y"
+        builder.add("house", 1); // splits "hobb" into "ho" + "bb" / "use"
+        SuggestIndex index = builder.build();
+
+        assertArrayEquals(new int[] {0, 1, 2}, index.complete("h", 10));
+        assertArrayEquals(new int[] {0, 1, 2}, index.complete("ho", 10));
+        assertArrayEquals(new int[] {0, 2}, index.complete("hobb", 10));
+        assertArrayEquals(new int[] {2}, index.complete("hobbit", 10));
+        assertArrayEquals(new int[] {0}, index.complete("hobby", 10));
+        assertArrayEquals(new int[] {1}, index.complete("house", 10));
+        assertArrayEquals(new int[0], index.complete("hobbits", 10));
+        assertArrayEquals(new int[0], index.complete("x", 10));
+    }
+
+    @Test
+    void prefixEndingInsideAnEdgeMatchesEverythingBelowIt() {
+        SuggestIndex.Builder builder = new SuggestIndex.Builder(10, 100);
+        builder.add("hobbit", 2);
+        builder.add("hobby", 0);
+        builder.add("house", 1);
+        SuggestIndex index = builder.build();
+
+        assertArrayEquals(new int[] {0, 2}, index.complete("hob", 10)); // inside "bb"
+        assertArrayEquals(new int[] {2}, index.complete("hobbi", 10)); // inside "it"
+        assertArrayEquals(new int[] {1}, index.complete("hous", 10)); // inside "use"
+        assertArrayEquals(new int[0], index.complete("hobx", 10)); // differs inside "bb"
+        assertArrayEquals(new int[0], index.complete("hox", 10));
+    }
+
+    @Test
+    void keysLongerThanTheLimitAreCut() {
+        SuggestIndex.Builder builder = new SuggestIndex.Builder(10, 5);
+        builder.add("hobbit", 0);
+        builder.add("hobbies", 1);
+        SuggestIndex index = builder.build();
+
+        // Both keys are stored as "hobbi", and so is any longer prefix
+        assertArrayEquals(new int[] {0, 1}, index.complete("hobbit", 10));
+        assertArrayEquals(new int[] {0, 1}, index.complete("hobbies and more", 10));
+        assertArrayEquals(new int[] {0, 1}, index.complete("hob", 10));
+        assertArrayEquals(new int[0], index.complete("hobbx", 10));
+    }
+
+    @Test
+    void idsUnderSeveralWordKeysAreMergedOnceAndBestFirst() {
+        SuggestIndex.Builder builder = new SuggestIndex.Builder(3, 100);
+        // As SuggestService.addKeys: the whole key plus the rest of it from every later word
+        add(builder, "the hobbit", 0);
+        add(builder, "hobbit house", 1);
+        add(builder, "the house of the hobbit", 2);
+        add(builder, "hobbits", 3);
+        SuggestIndex index = builder.build();
+
+        assertArrayEquals(new int[] {0, 1, 2}, index.complete("h", 10)); // topK 3 of four matches
+        assertArrayEquals(new int[] {0, 1, 2}, index.complete("hobbit", 10));
+        assertArrayEquals(new int[] {1, 2}, index.complete("house", 10));
+        assertArrayEquals(new int[] {0, 2}, index.complete("the", 10));
+        assertArrayEquals(new int[] {0}, index.complete("h", 1));
+    }
+
+    @Test
+    void emptyIndexCompletesNothing() {
+        assertArrayEquals(new int[0], SuggestIndex.EMPTY.complete("a", 10));
+        assertArrayEquals(new int[0], SuggestIndex.EMPTY.complete("", 10));
+    }
+
+    @Test
+    void normalizeFoldsCaseAccentsAndPunctuation() {
+        assertEquals("the hobbit vol 2", SuggestIndex.normalize("The Hobbit, Vol. 2"));
+        assertEquals("eowyn s saga", SuggestIndex.normalize("  Éowyn’s   Saga! "));
+        assertEquals("garcia marquez", SuggestIndex.normalize("García Márquez"));
+        assertEquals("", SuggestIndex.normalize(" -- "));
+        assertEquals("", SuggestIndex.normalize(null));
+    }
+
+    private static void add(SuggestIndex.Builder builder, String key, int id) {
+        builder.add(key, id);
+        for (int i = key.indexOf(' '); i >= 0; i = key.indexOf(' ', i + 1)) {
+            builder.add(key.substring(i + 1), id);
+        }
+    }
+}